@@ -0,0 +1,57 @@
+;Lnge initialisieren, n ist die Anzahl der Vergleiche pro Durchlauf
+LOADM listeEnde
+SUBM listeAnfang
+STORE n
+
+:whilestart
+LOADM 0
+STORE vertauscht
+;WHILESTART, das Indexregister ist i
+LDXM 0
+:FORSTART TXA
+SUB n
+JMPGEM FORENDE
+;SCHLEIFE, LOADXP erhht i, danach zeigt das Indexregister auf das zweite Element
+LOADXP listeAnfang
+SUBX listeAnfang
+JMPLEM FORSTART
+CALL tausche
+JMPM FORSTART
+:FORENDE
+;WHILEENDE
+LOAD n
+SUBM 1
+STORE n
+LOAD vertauscht
+JMPEQM whileende
+LOAD n
+JMPGTM whilestart
+:whileende
+HALT
+
+;Unterprogramm: vertauscht die Elemente i-1 und i, das Indexregister ist danach wieder i
+:tausche LOADX listeAnfang
+STORE zwischenspeicher
+DECX
+LOADX listeAnfang
+INCX
+STOREX listeAnfang
+DECX
+LOAD zwischenspeicher
+STOREXP listeAnfang
+LOADM 1
+STORE vertauscht
+RET
+
+;Variablen
+:vertauscht
+:n 0
+:zwischenspeicher
+
+
+:listeAnfang 19
+18
+23
+53
+12
+:listeEnde 15
\ No newline at end of file
@@ -0,0 +1,188 @@
+package assemblerSim;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts the reads, writes and fetches of every ramcell, without simulating caches.
+ * It is set on a machine like a MemoryHierarchy, so every access the machine reports only increments an array element.
+ * The counters show which ramcells a program uses most, as heatmap of the RAM view, as table or exported as CSV.
+ */
+public class AccessCounters extends MemoryHierarchy
+{
+	private final long[] reads;
+	private final long[] writes;
+	private final long[] fetches;
+
+	/**
+	 * Create new counters, all 0
+	 * @param nramSize Size of the ram
+	 */
+	public AccessCounters(int nramSize)
+	{
+		super(nramSize);
+		reads = new long[nramSize];
+		writes = new long[nramSize];
+		fetches = new long[nramSize];
+	}
+
+	/**
+	 * Resets all counters to 0
+	 */
+	protected void reset()
+	{
+		Arrays.fill(reads, 0);
+		Arrays.fill(writes, 0);
+		Arrays.fill(fetches, 0);
+	}
+
+	/**
+	 * Counts the fetch of an instruction
+	 * @param address The ramcell containing the instruction
+	 */
+	protected void fetch(int address)
+	{
+		fetches[address]++;
+	}
+	/**
+	 * Counts the reading of an operand, an adress or a jump adress
+	 * @param address The ramcell read
+	 */
+	protected void read(int address)
+	{
+		reads[address]++;
+	}
+	/**
+	 * Counts the writing of a ramcell
+	 * @param address The ramcell written
+	 */
+	protected void write(int address)
+	{
+		writes[address]++;
+	}
+
+	/**
+	 * Returns the number of ramcells counted
+	 * @return The size of the ram
+	 */
+	protected int getSize()
+	{
+		return reads.length;
+	}
+	/**
+	 * Returns the number of reads of a ramcell
+	 * @param ncell The ramcell
+	 * @return The number of reads
+	 */
+	protected long getReads(int ncell)
+	{
+		return reads[ncell];
+	}
+	/**
+	 * Returns the number of writes of a ramcell
+	 * @param ncell The ramcell
+	 * @return The number of writes
+	 */
+	protected long getWrites(int ncell)
+	{
+		return writes[ncell];
+	}
+	/**
+	 * Returns the number of fetches of a ramcell
+	 * @param ncell The ramcell
+	 * @return The number of fetches
+	 */
+	protected long getFetches(int ncell)
+	{
+		return fetches[ncell];
+	}
+	/**
+	 * Returns the number of all accesses of a ramcell
+	 * @param ncell The ramcell
+	 * @return The sum of reads, writes and fetches
+	 */
+	protected long getAccesses(int ncell)
+	{
+		return reads[ncell]+writes[ncell]+fetches[ncell];
+	}
+	/**
+	 * Returns the ramcells with the most accesses
+	 * @param nmaxCells Maximum number of ramcells returned
+	 * @return The accessed ramcells, the most accessed first, ramcells with the same number of accesses by adress
+	 */
+	protected int[] getHottest(int nmaxCells)
+	{
+		List<Integer> cells = new ArrayList<Integer>();
+		for(int i = 0; i < reads.length; i++)
+		{
+			if(getAccesses(i) > 0)
+			{
+				cells.add(i);
+			}
+		}
+		Collections.sort(cells, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				long accessesA = getAccesses(a);
+				long accessesB = getAccesses(b);
+				return accessesB < accessesA ? -1 : (accessesB > accessesA ? 1 : a-b);
+			}
+		});
+		int[] hottest = new int[Math.min(cells.size(), nmaxCells)];
+		for(int i = 0; i < hottest.length; i++)
+		{
+			hottest[i] = cells.get(i);
+		}
+		return hottest;
+	}
+
+	/**
+	 * Returns a report of the accesses of the labels and of the ramcells with the most accesses
+	 * @param labels Labels of the program and their adresses, e.g. from Interpreter.stringToLabels, may be null
+	 * @param maxCells Maximum number of ramcells in the report
+	 * @return The report
+	 */
+	protected String getReport(Map<String, Integer> labels, int maxCells)
+	{
+		StringBuilder report = new StringBuilder();
+		if(labels != null && !labels.isEmpty())
+		{
+			long[] accesses = new long[reads.length];
+			for(int i = 0; i < accesses.length; i++)
+			{
+				accesses[i] = getAccesses(i);
+			}
+			appendLabels(report, labels, new long[][]{accesses, reads, writes, fetches}, new String[]{"accesses", "reads", "writes", "fetches"}, 0);
+		}
+		for(int address : getHottest(maxCells))
+		{
+			report.append("Ramcell ").append(address).append(": ").append(getAccesses(address)).append(" accesses, ");
+			report.append(reads[address]).append(" reads, ").append(writes[address]).append(" writes, ");
+			report.append(fetches[address]).append(" fetches\n");
+		}
+		return report.toString();
+	}
+	/**
+	 * Writes the counters of all accessed ramcells as CSV, one line per ramcell after a header line
+	 * @param nwriter Receives the CSV, it is not closed
+	 * @throws IOException Throws exceptions from the writer
+	 */
+	protected void writeCsv(Writer nwriter) throws IOException
+	{
+		nwriter.write("cell,reads,writes,fetches\n");
+		for(int i = 0; i < reads.length; i++)
+		{
+			if(getAccesses(i) > 0)
+			{
+				nwriter.write(i+","+reads[i]+","+writes[i]+","+fetches[i]+"\n");
+			}
+		}
+	}
+}
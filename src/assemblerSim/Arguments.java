@@ -0,0 +1,142 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The arguments of a mode of the Starter. The keywords of the mode may be given anywhere after its name, all other arguments are
+ * values counted by their position. A missing value or a value that is not a number throws an IllegalArgumentException with the usage
+ * of the mode, so no mode mistakes the name of another one for a file.
+ */
+class Arguments
+{
+	private final String usage;
+	private final List<String> values = new ArrayList<String>();
+	private final HashSet<String> keywords = new HashSet<String>();
+
+	/**
+	 * Sorts the arguments after the name of a mode into keywords and values
+	 * @param nargs All arguments of the program
+	 * @param nfirst Index of the first argument after the name of the mode
+	 * @param nusage The mode and its arguments as shown to the user, e.g. "-heat file [ramsize] [csvfile]"
+	 * @param nkeywords The keywords of the mode
+	 */
+	Arguments(String[] nargs, int nfirst, String nusage, String... nkeywords)
+	{
+		usage = nusage;
+		List<String> known = Arrays.asList(nkeywords);
+		for(int i = nfirst; i < nargs.length; i++)
+		{
+			if(known.contains(nargs[i]))
+			{
+				keywords.add(nargs[i]);
+			}
+			else
+			{
+				values.add(nargs[i]);
+			}
+		}
+	}
+
+	/**
+	 * Returns a value that has to be given
+	 * @param nindex Position of the value among the values
+	 * @return The value
+	 */
+	String get(int nindex)
+	{
+		if(nindex >= values.size())
+		{
+			throw new IllegalArgumentException("Usage: "+usage);
+		}
+		return values.get(nindex);
+	}
+
+	/**
+	 * Returns an optional value
+	 * @param nindex Position of the value among the values
+	 * @param ndefault The value if it is not given
+	 * @return The value
+	 */
+	String get(int nindex, String ndefault)
+	{
+		return nindex < values.size() ? values.get(nindex) : ndefault;
+	}
+
+	/**
+	 * Returns a number that has to be given
+	 * @param nindex Position of the number among the values
+	 * @return The number
+	 */
+	int getInt(int nindex)
+	{
+		return (int)toNumber(get(nindex), Integer.MIN_VALUE, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns an optional number
+	 * @param nindex Position of the number among the values
+	 * @param ndefault The number if it is not given
+	 * @return The number
+	 */
+	int getInt(int nindex, int ndefault)
+	{
+		return nindex < values.size() ? getInt(nindex) : ndefault;
+	}
+
+	/**
+	 * Returns an optional long number
+	 * @param nindex Position of the number among the values
+	 * @param ndefault The number if it is not given
+	 * @return The number
+	 */
+	long getLong(int nindex, long ndefault)
+	{
+		return nindex < values.size() ? toNumber(values.get(nindex), Long.MIN_VALUE, Long.MAX_VALUE) : ndefault;
+	}
+
+	/**
+	 * Checks whether a keyword was given
+	 * @param nkeyword The keyword
+	 * @return true, if the keyword was given
+	 */
+	boolean has(String nkeyword)
+	{
+		return keywords.contains(nkeyword);
+	}
+
+	/**
+	 * Returns the number of values given
+	 * @return The number of values, without the keywords
+	 */
+	int size()
+	{
+		return values.size();
+	}
+
+	/**
+	 * Parses a number
+	 * @param nvalue The value
+	 * @param nmin The smallest allowed number
+	 * @param nmax The largest allowed number
+	 * @return The number
+	 */
+	private long toNumber(String nvalue, long nmin, long nmax)
+	{
+		try
+		{
+			long number = Long.parseLong(nvalue);
+			if(number >= nmin && number <= nmax)
+			{
+				return number;
+			}
+		}
+		catch(NumberFormatException e)
+		{
+			//reported with the usage below
+		}
+		throw new IllegalArgumentException(nvalue+" is not a number. Usage: "+usage);
+	}
+}
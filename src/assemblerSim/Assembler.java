@@ -0,0 +1,706 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Translates a program into machinecode in a single pass over its characters, see Interpreter.
+ *
+ * Every line is one ramcell: an optional label ":NAME" ended by a space, then a mnemonic of Opcodes with an optional operand
+ * or a number or label alone, and an optional comment after ';'. Mnemonics and labels are not case sensitive, the tokens are
+ * separated by single spaces. Mnemonics are looked up in a perfect hash table built once from Opcodes and numbers are parsed
+ * while scanning, so the scan creates no objects. Operands naming labels are resolved after the scan, so a label can be used
+ * before its line, a label defined twice refers to its last definition.
+ * A line which can not be translated contains ERROR and is reported as Diagnostic.
+ */
+public class Assembler
+{
+	/**
+	 * Content of a ramcell whose line could not be translated
+	 */
+	protected final static int ERROR = 0xABADC0DE;
+	/**
+	 * Largest adress an operand can have
+	 */
+	private final static int MAX_ADRESS = 0xFFFFFF;
+	/**
+	 * Returned by number() for a token which is not a number
+	 */
+	private final static long NO_NUMBER = Long.MIN_VALUE;
+	/**
+	 * The mnemonics by their perfect hash, null for unused slots
+	 */
+	private final static Opcodes[] MNEMONICS;
+	/**
+	 * Multiplier of the perfect hash, chosen so no two mnemonics share a slot
+	 */
+	private final static int MNEMONIC_MULTIPLIER;
+	/**
+	 * Number of bits of a slot of the perfect hash
+	 */
+	private final static int MNEMONIC_BITS;
+
+	static
+	{
+		Opcodes[] opcodes = Opcodes.values();
+		int bits = 32-Integer.numberOfLeadingZeros(opcodes.length*4-1);
+		int multiplier = 1;
+		Opcodes[] table;
+		while(true)
+		{
+			table = new Opcodes[1<<bits];
+			boolean perfect = true;
+			for(Opcodes opcode : opcodes)
+			{
+				String name = opcode.name();
+				int slot = (hash(name, 0, name.length())*multiplier)>>>(32-bits);
+				if(table[slot] != null)
+				{
+					perfect = false;
+					break;
+				}
+				table[slot] = opcode;
+			}
+			if(perfect)
+			{
+				break;
+			}
+			multiplier += 2;
+		}
+		MNEMONICS = table;
+		MNEMONIC_MULTIPLIER = multiplier;
+		MNEMONIC_BITS = bits;
+	}
+
+	private final String source;
+	/**
+	 * Machinecode of every line, the lines naming labels are completed by resolve()
+	 */
+	private int[] code;
+	private int lines;
+	/**
+	 * Start of the current line in the source
+	 */
+	private int lineStart;
+
+	/**
+	 * The texts containing the names of the labels, the source or a name given to the constructor
+	 */
+	private String[] labelTexts = new String[16];
+	private int[] labelStarts = new int[16];
+	private int[] labelEnds = new int[16];
+	private int[] labelHashes = new int[16];
+	/**
+	 * The line of every label
+	 */
+	private int[] labelLines = new int[16];
+	private int labelCount;
+	/**
+	 * Open adressing table of the labels, the index of a label plus 1, 0 for unused slots
+	 */
+	private int[] labelSlots = new int[32];
+	/**
+	 * Line, start and end in the source of every label defined in the program
+	 */
+	private int[] definitionLines = new int[16];
+	private int[] definitionStarts = new int[16];
+	private int[] definitionEnds = new int[16];
+	private int definitionCount;
+
+	/**
+	 * Line, start and end in the source and machinecode without the adress of every operand naming a label
+	 */
+	private int[] useLines = new int[16];
+	private int[] useStarts = new int[16];
+	private int[] useEnds = new int[16];
+	private int[] useCodes = new int[16];
+	private int useCount;
+
+	private final List<Diagnostic> diagnostics = new ArrayList<Diagnostic>();
+
+	/**
+	 * Translates a program
+	 * @param nsource The program
+	 */
+	public Assembler(String nsource)
+	{
+		this(nsource, null);
+	}
+	/**
+	 * Translates a program using labels defined elsewhere, which are replaced by labels defined in the program
+	 * @param nsource The program
+	 * @param nlabels Names and adresses of the labels, may be null
+	 */
+	public Assembler(String nsource, Map<String, Integer> nlabels)
+	{
+		source = nsource;
+		code = new int[Math.max(16, nsource.length()/8)];
+		if(nlabels != null)
+		{
+			for(Map.Entry<String, Integer> label : nlabels.entrySet())
+			{
+				String name = label.getKey();
+				define(name, 0, name.length(), label.getValue());
+			}
+		}
+		scan();
+		resolve();
+	}
+
+	/**
+	 * Returns the number of lines of the program, without empty lines at its end
+	 * @return The number of translated ramcells
+	 */
+	protected int getLines()
+	{
+		return lines;
+	}
+	/**
+	 * Returns the machinecode of a line
+	 * @param nline The line, starting at 0
+	 * @return The content of the ramcell, ERROR if the line could not be translated
+	 */
+	protected int getCode(int nline)
+	{
+		return code[nline];
+	}
+	/**
+	 * Returns the errors found in the program
+	 * @return The errors in the order of their lines
+	 */
+	protected List<Diagnostic> getDiagnostics()
+	{
+		return diagnostics;
+	}
+	/**
+	 * Returns the labels of the program
+	 * @return The names of the labels in upper case and the adresses of their ramcells
+	 */
+	protected HashMap<String, Integer> getLabels()
+	{
+		HashMap<String, Integer> labels = new HashMap<String, Integer>();
+		for(int i = 0; i < labelCount; i++)
+		{
+			labels.put(upperCase(labelTexts[i], labelStarts[i], labelEnds[i]), labelLines[i]);
+		}
+		return labels;
+	}
+	/**
+	 * Returns the label defined in a line, see LiveAssembler
+	 * @param nline The line, starting at 0
+	 * @return The name of the label in upper case, null if the line defines none
+	 */
+	String getDefinition(int nline)
+	{
+		int i = Arrays.binarySearch(definitionLines, 0, definitionCount, nline);
+		return i < 0 ? null : upperCase(source, definitionStarts[i], definitionEnds[i]);
+	}
+	/**
+	 * Returns the label the operand of a line names, see LiveAssembler
+	 * @param nline The line, starting at 0
+	 * @return The name of the label in upper case, null if the operand is no label
+	 */
+	String getUse(int nline)
+	{
+		int i = Arrays.binarySearch(useLines, 0, useCount, nline);
+		return i < 0 ? null : upperCase(source, useStarts[i], useEnds[i]);
+	}
+	/**
+	 * Returns the machinecode of a line without the adress of the label its operand names, see LiveAssembler
+	 * @param nline The line, starting at 0
+	 * @return The machinecode of the mnemonic, 0 for a label alone, the content of the ramcell if the operand is no label
+	 */
+	int getInstruction(int nline)
+	{
+		int i = Arrays.binarySearch(useLines, 0, useCount, nline);
+		return i < 0 ? code[nline] : Math.max(useCodes[i], 0);
+	}
+
+	/**
+	 * Translates all lines, the lines naming labels get the machinecode without the adress
+	 */
+	private void scan()
+	{
+		int last = 0;
+		int start = 0;
+		int length = source.length();
+		while(true)
+		{
+			int end = source.indexOf('\n', start);
+			if(end < 0)
+			{
+				end = length;
+			}
+			if(end > start)
+			{
+				last = lines+1;
+			}
+			line(start, end);
+			if(end == length)
+			{
+				break;
+			}
+			start = end+1;
+		}
+		// like String.split, the empty lines at the end are no lines, but an empty program has one
+		lines = length == 0 ? 1 : last;
+	}
+	/**
+	 * Translates a line
+	 * @param start Start of the line in the source
+	 * @param end End of the line in the source, without the line break
+	 */
+	private void line(int start, int end)
+	{
+		if(lines == code.length)
+		{
+			code = grow(code);
+		}
+		lineStart = start;
+		start = skipBlanks(start, end);
+		while(end > start && source.charAt(end-1) <= ' ')
+		{
+			end--;
+		}
+		if(start < end && source.charAt(start) == ':')
+		{
+			int space = find(' ', start+1, end);
+			define(source, start+1, space, lines);
+			if(definitionCount == definitionLines.length)
+			{
+				definitionLines = grow(definitionLines);
+				definitionStarts = grow(definitionStarts);
+				definitionEnds = grow(definitionEnds);
+			}
+			definitionLines[definitionCount] = lines;
+			definitionStarts[definitionCount] = start+1;
+			definitionEnds[definitionCount] = space;
+			definitionCount++;
+			start = skipBlanks(space < end ? space+1 : end, end);
+		}
+		int stop = find(';', start, end);
+		if(start == stop)
+		{
+			code[lines++] = 0;
+			return;
+		}
+		int space = find(' ', start, stop);
+		Opcodes opcode = mnemonic(start, space);
+		if(opcode == null)
+		{
+			operand(0, start, space, false);
+		}
+		else if(skipSpaces(space, stop) < stop)
+		{
+			operand(opcode.ordinal()*0x1000000, space+1, find(' ', space+1, stop), true);
+		}
+		else
+		{
+			code[lines] = opcode.ordinal()*0x1000000;
+		}
+		lines++;
+	}
+	/**
+	 * Translates the number or label of the current line
+	 * @param instruction The machinecode of the mnemonic of the line, 0 for none
+	 * @param start Start of the token in the source
+	 * @param end End of the token in the source
+	 * @param adress true, if the token is the operand of a mnemonic, which has to be an adress
+	 */
+	private void operand(int instruction, int start, int end, boolean adress)
+	{
+		long number = number(start, end);
+		if(number == NO_NUMBER)
+		{
+			if(useCount == useLines.length)
+			{
+				useLines = grow(useLines);
+				useStarts = grow(useStarts);
+				useEnds = grow(useEnds);
+				useCodes = grow(useCodes);
+			}
+			useLines[useCount] = lines;
+			useStarts[useCount] = start;
+			useEnds[useCount] = end;
+			useCodes[useCount] = adress ? instruction : -1;
+			useCount++;
+		}
+		else if(adress && (number < 0 || number > MAX_ADRESS))
+		{
+			code[lines] = ERROR;
+			report(start, "Adress out of range: "+number);
+		}
+		else
+		{
+			code[lines] = instruction+(int)number;
+		}
+	}
+	/**
+	 * Replaces the operands naming labels by the adresses of the labels
+	 */
+	private void resolve()
+	{
+		List<Diagnostic> unknown = new ArrayList<Diagnostic>();
+		for(int i = 0; i < useCount; i++)
+		{
+			int start = useStarts[i];
+			int end = useEnds[i];
+			int label = lookup(source, start, end, hash(source, start, end));
+			int line = useLines[i];
+			if(label >= 0)
+			{
+				code[line] = (useCodes[i] < 0 ? 0 : useCodes[i])+labelLines[label];
+			}
+			else
+			{
+				code[line] = ERROR;
+				String name = source.substring(start, end);
+				unknown.add(new Diagnostic(line+1, start-source.lastIndexOf('\n', start-1),
+						useCodes[i] < 0 ? "Unknown instruction, number or label: "+name : "Unknown label: "+name));
+			}
+		}
+		if(!unknown.isEmpty())
+		{
+			// both lists are ordered by line
+			List<Diagnostic> merged = new ArrayList<Diagnostic>(diagnostics.size()+unknown.size());
+			int j = 0;
+			for(Diagnostic diagnostic : diagnostics)
+			{
+				while(j < unknown.size() && unknown.get(j).line < diagnostic.line)
+				{
+					merged.add(unknown.get(j++));
+				}
+				merged.add(diagnostic);
+			}
+			merged.addAll(unknown.subList(j, unknown.size()));
+			diagnostics.clear();
+			diagnostics.addAll(merged);
+		}
+	}
+
+	/**
+	 * Finds the mnemonic of a token with the perfect hash
+	 * @param start Start of the token in the source
+	 * @param end End of the token in the source
+	 * @return The opcode, null if the token is no mnemonic
+	 */
+	private Opcodes mnemonic(int start, int end)
+	{
+		Opcodes opcode = MNEMONICS[(hash(source, start, end)*MNEMONIC_MULTIPLIER)>>>(32-MNEMONIC_BITS)];
+		if(opcode == null)
+		{
+			return null;
+		}
+		String name = opcode.name();
+		if(name.length() != end-start)
+		{
+			return null;
+		}
+		for(int i = 0; i < name.length(); i++)
+		{
+			if(Character.toUpperCase(source.charAt(start+i)) != name.charAt(i))
+			{
+				return null;
+			}
+		}
+		return opcode;
+	}
+	/**
+	 * Parses a decimal number like Integer.parseInt
+	 * @param start Start of the token in the source
+	 * @param end End of the token in the source
+	 * @return The number, NO_NUMBER if the token is no number or does not fit into an int
+	 */
+	private long number(int start, int end)
+	{
+		if(start == end)
+		{
+			return NO_NUMBER;
+		}
+		int i = start;
+		char sign = source.charAt(i);
+		if(sign == '-' || sign == '+')
+		{
+			i++;
+			if(i == end)
+			{
+				return NO_NUMBER;
+			}
+		}
+		long value = 0;
+		for(; i < end; i++)
+		{
+			int digit = Character.digit(source.charAt(i), 10);
+			if(digit < 0)
+			{
+				return NO_NUMBER;
+			}
+			value = value*10+digit;
+			if(value > 1L<<31)
+			{
+				return NO_NUMBER;
+			}
+		}
+		value = sign == '-' ? -value : value;
+		return value > Integer.MAX_VALUE ? NO_NUMBER : value;
+	}
+
+	/**
+	 * Defines a label, replacing an earlier label with the same name
+	 * @param text The text containing the name
+	 * @param start Start of the name in the text
+	 * @param end End of the name in the text
+	 * @param line The line of the label
+	 */
+	private void define(String text, int start, int end, int line)
+	{
+		int hash = hash(text, start, end);
+		int label = lookup(text, start, end, hash);
+		if(label >= 0)
+		{
+			labelTexts[label] = text;
+			labelStarts[label] = start;
+			labelEnds[label] = end;
+			labelLines[label] = line;
+			return;
+		}
+		if(labelCount == labelLines.length)
+		{
+			labelTexts = Arrays.copyOf(labelTexts, labelCount*2);
+			labelStarts = grow(labelStarts);
+			labelEnds = grow(labelEnds);
+			labelHashes = grow(labelHashes);
+			labelLines = grow(labelLines);
+		}
+		labelTexts[labelCount] = text;
+		labelStarts[labelCount] = start;
+		labelEnds[labelCount] = end;
+		labelHashes[labelCount] = hash;
+		labelLines[labelCount] = line;
+		labelCount++;
+		if(labelCount*2 > labelSlots.length)
+		{
+			labelSlots = new int[labelSlots.length*2];
+			for(int i = 0; i < labelCount; i++)
+			{
+				labelSlots[free(labelHashes[i])] = i+1;
+			}
+		}
+		else
+		{
+			labelSlots[free(hash)] = labelCount;
+		}
+	}
+	/**
+	 * Finds a label
+	 * @param text The text containing the name
+	 * @param start Start of the name in the text
+	 * @param end End of the name in the text
+	 * @param hash The hash of the name
+	 * @return The index of the label, -1 if it is not defined
+	 */
+	private int lookup(String text, int start, int end, int hash)
+	{
+		int mask = labelSlots.length-1;
+		for(int slot = hash&mask; labelSlots[slot] != 0; slot = (slot+1)&mask)
+		{
+			int label = labelSlots[slot]-1;
+			if(labelHashes[label] == hash && equal(labelTexts[label], labelStarts[label], labelEnds[label], text, start, end))
+			{
+				return label;
+			}
+		}
+		return -1;
+	}
+	/**
+	 * Finds the free slot for a new label
+	 * @param hash The hash of its name
+	 * @return The first free slot of the probe sequence
+	 */
+	private int free(int hash)
+	{
+		int mask = labelSlots.length-1;
+		int slot = hash&mask;
+		while(labelSlots[slot] != 0)
+		{
+			slot = (slot+1)&mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Reports an error in the current line
+	 * @param start Position of the error in the source
+	 * @param message Description of the error
+	 */
+	private void report(int start, String message)
+	{
+		diagnostics.add(new Diagnostic(lines+1, start-lineStart+1, message));
+	}
+	/**
+	 * Finds a character in a part of the source
+	 * @param c The character
+	 * @param start Start of the part
+	 * @param end End of the part
+	 * @return The position of the first c, end if there is none
+	 */
+	private int find(char c, int start, int end)
+	{
+		for(int i = start; i < end; i++)
+		{
+			if(source.charAt(i) == c)
+			{
+				return i;
+			}
+		}
+		return end;
+	}
+	/**
+	 * Skips whitespace and control characters like String.trim
+	 * @param start Start of the part of the source
+	 * @param end End of the part of the source
+	 * @return The position of the first other character, end if there is none
+	 */
+	private int skipBlanks(int start, int end)
+	{
+		while(start < end && source.charAt(start) <= ' ')
+		{
+			start++;
+		}
+		return start;
+	}
+	/**
+	 * Skips spaces
+	 * @param start Start of the part of the source
+	 * @param end End of the part of the source
+	 * @return The position of the first character which is not a space, end if there is none
+	 */
+	private int skipSpaces(int start, int end)
+	{
+		while(start < end && source.charAt(start) == ' ')
+		{
+			start++;
+		}
+		return start;
+	}
+
+	/**
+	 * Computes a hash of a name which is not case sensitive
+	 * @param text The text containing the name
+	 * @param start Start of the name in the text
+	 * @param end End of the name in the text
+	 * @return The hash
+	 */
+	private static int hash(String text, int start, int end)
+	{
+		int hash = 0;
+		for(int i = start; i < end; i++)
+		{
+			hash = hash*31+Character.toUpperCase(text.charAt(i));
+		}
+		return hash*0x9E3779B9;
+	}
+	/**
+	 * Converts a name to upper case like the names of the labels are compared
+	 * @param text The text containing the name
+	 * @param start Start of the name in the text
+	 * @param end End of the name in the text
+	 * @return The name in upper case
+	 */
+	private static String upperCase(String text, int start, int end)
+	{
+		StringBuilder name = new StringBuilder(end-start);
+		for(int i = start; i < end; i++)
+		{
+			name.append(Character.toUpperCase(text.charAt(i)));
+		}
+		return name.toString();
+	}
+	/**
+	 * Compares two names, not case sensitive
+	 * @return true, if the names are equal in upper case
+	 */
+	private static boolean equal(String a, int startA, int endA, String b, int startB, int endB)
+	{
+		if(endA-startA != endB-startB)
+		{
+			return false;
+		}
+		for(int i = 0; i < endA-startA; i++)
+		{
+			if(Character.toUpperCase(a.charAt(startA+i)) != Character.toUpperCase(b.charAt(startB+i)))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Doubles the size of an array
+	 * @param array The array
+	 * @return A copy twice as long
+	 */
+	private static int[] grow(int[] array)
+	{
+		return Arrays.copyOf(array, array.length*2);
+	}
+
+	/**
+	 * An error in a line of the program
+	 */
+	public static class Diagnostic
+	{
+		private final int line;
+		private final int column;
+		private final String message;
+
+		/**
+		 * Create a new error
+		 * @param nline The line, starting at 1
+		 * @param ncolumn The column, starting at 1
+		 * @param nmessage Description of the error
+		 */
+		Diagnostic(int nline, int ncolumn, String nmessage)
+		{
+			line = nline;
+			column = ncolumn;
+			message = nmessage;
+		}
+
+		/**
+		 * Returns the line of the error, its ramcell is one less
+		 * @return The line, starting at 1
+		 */
+		protected int getLine()
+		{
+			return line;
+		}
+		/**
+		 * Returns the column of the token which could not be translated
+		 * @return The column, starting at 1
+		 */
+		protected int getColumn()
+		{
+			return column;
+		}
+		/**
+		 * Returns the description of the error
+		 * @return The message
+		 */
+		protected String getMessage()
+		{
+			return message;
+		}
+		/**
+		 * Returns the error for showing it
+		 * @return Line, column and message
+		 */
+		public String toString()
+		{
+			return "Line "+line+", column "+column+": "+message;
+		}
+	}
+}
@@ -0,0 +1,985 @@
+package assemblerSim;
+
+import java.util.Arrays;
+
+/**
+ * Runs one program on many instances of a VonNeuman-machine at once, e.g. to sort many small lists.
+ * Every instance has its own registers and ram and behaves exactly like a HeadlessRechner.
+ *
+ * The registers and the ram of all instances are stored as structure of arrays: register[instance], ram[cell*instances+instance]
+ * and returnStack[entry*instances+instance],
+ * so an instruction is executed for a whole group of instances in one loop over the instances.
+ * A group consists of the instances whose programcounters agree. Between the groups the instances wait in a list per programcounter
+ * and the group at the lowest programcounter runs next, so instances which took different branches run in lockstep again as soon as
+ * they meet. Instances which modified the instruction differently are executed in separate groups.
+ *
+ * An instance whose instruction throws an exception stops with STATUS_EXCEPTION, the other instances continue.
+ */
+public class BatchRechner
+{
+	/**
+	 * Status of an instance stopped by an exception, see getException()
+	 */
+	public final static int STATUS_EXCEPTION = -1;
+
+	private final int size;
+	private final int instances;
+	private final int addressMask;
+	/*
+	 * Registers and ram of all instances
+	 */
+	private final int[] accumulator;
+	private final int[] valueRegister;
+	private final int[] instructionRegister;
+	private final int[] programCounter;
+	private final int[] addressRegister;
+	private final int[] indexRegister;
+	private final int[] stackPointer;
+	private final int[] returnStack;
+	private final int[] ram;
+	private final int[] status;
+	private final long[] instructionCount;
+	private final RuntimeException[] exceptions;
+	/**
+	 * Instances of the current group
+	 */
+	private final int[] group;
+	private int groupSize;
+	/**
+	 * First instance waiting at each programcounter, -1 if none, the others are linked by next
+	 */
+	private final int[] waiting;
+	private final int[] next;
+	/**
+	 * First instance waiting at a programcounter outside of the ram
+	 */
+	private int outside;
+	/**
+	 * No instance waits at a programcounter below this one
+	 */
+	private int lowest;
+	/**
+	 * Number of instructions all instances of the current group may still execute
+	 */
+	private long budget;
+	/**
+	 * Instruction count of each instance at which its budget is used up
+	 */
+	private final long[] limits;
+
+	/*
+	 * Statistics
+	 */
+	private long groupInstructions;
+	private long instanceInstructions;
+
+	/**
+	 * Create a new batch of instances, which all start with the same ram
+	 * @param nimage The ram content, e.g. created by Interpreter.stringToRam
+	 * @param ninstances Number of instances
+	 */
+	public BatchRechner(int[] nimage, int ninstances)
+	{
+		if(ninstances < 1)
+		{
+			throw new IllegalArgumentException("At least one instance is needed");
+		}
+		size = nimage.length;
+		instances = ninstances;
+		addressMask = 0xFFFFFF%size;
+		accumulator = new int[instances];
+		valueRegister = new int[instances];
+		instructionRegister = new int[instances];
+		programCounter = new int[instances];
+		addressRegister = new int[instances];
+		indexRegister = new int[instances];
+		stackPointer = new int[instances];
+		returnStack = new int[HeadlessRechner.RETURN_STACK_SIZE*instances];
+		status = new int[instances];
+		instructionCount = new long[instances];
+		exceptions = new RuntimeException[instances];
+		group = new int[instances];
+		waiting = new int[size];
+		next = new int[instances];
+		limits = new long[instances];
+		ram = new int[size*instances];
+		for(int cell = 0; cell < size; cell++)
+		{
+			Arrays.fill(ram, cell*instances, (cell+1)*instances, nimage[cell]);
+		}
+	}
+
+	/**
+	 * Writes input data into the ram of one instance
+	 * @param instance The instance
+	 * @param address The first ramcell to write to
+	 * @param values The values to write
+	 */
+	protected void patch(int instance, int address, int[] values)
+	{
+		if(address < 0 || address+values.length > size)
+		{
+			throw new ArrayIndexOutOfBoundsException("The patch at "+address+" does not fit into the ram");
+		}
+		for(int i = 0; i < values.length; i++)
+		{
+			ram[(address+i)*instances+instance] = values[i];
+		}
+	}
+	/**
+	 * Returns the number of instances
+	 * @return The number of instances
+	 */
+	protected int getInstances()
+	{
+		return instances;
+	}
+	/**
+	 * Returns a copy of the ram of one instance
+	 * @param instance The instance
+	 * @return The content of its ram
+	 */
+	protected int[] getRam(int instance)
+	{
+		int[] copy = new int[size];
+		for(int cell = 0; cell < size; cell++)
+		{
+			copy[cell] = ram[cell*instances+instance];
+		}
+		return copy;
+	}
+	/**
+	 * Returns the accumulator of one instance
+	 * @param instance The instance
+	 * @return The content of its accumulator
+	 */
+	protected int getAccumulator(int instance)
+	{
+		return accumulator[instance];
+	}
+	/**
+	 * Returns the valueregister of one instance
+	 * @param instance The instance
+	 * @return The content of its valueregister
+	 */
+	protected int getValueRegister(int instance)
+	{
+		return valueRegister[instance];
+	}
+	/**
+	 * Returns the programcounter of one instance
+	 * @param instance The instance
+	 * @return The content of its programcounter
+	 */
+	protected int getProgramCounter(int instance)
+	{
+		return programCounter[instance];
+	}
+	/**
+	 * Returns the adressregister of one instance
+	 * @param instance The instance
+	 * @return The content of its adressregister
+	 */
+	protected int getAddressRegister(int instance)
+	{
+		return addressRegister[instance];
+	}
+	/**
+	 * Returns the indexregister of one instance
+	 * @param instance The instance
+	 * @return The content of its indexregister
+	 */
+	protected int getIndexRegister(int instance)
+	{
+		return indexRegister[instance];
+	}
+	/**
+	 * Returns the number of return adresses on the return stack of one instance
+	 * @param instance The instance
+	 * @return The content of its stackpointer
+	 */
+	protected int getStackPointer(int instance)
+	{
+		return stackPointer[instance];
+	}
+	/**
+	 * Returns a copy of the return stack of one instance
+	 * @param instance The instance
+	 * @return The content of its return stack, the adresses below the stackpointer are on the stack
+	 */
+	protected int[] getReturnStack(int instance)
+	{
+		int[] copy = new int[HeadlessRechner.RETURN_STACK_SIZE];
+		for(int entry = 0; entry < copy.length; entry++)
+		{
+			copy[entry] = returnStack[entry*instances+instance];
+		}
+		return copy;
+	}
+	/**
+	 * Returns the instructionregister of one instance
+	 * @param instance The instance
+	 * @return The content of its instructionregister
+	 */
+	protected int getInstructionRegister(int instance)
+	{
+		return instructionRegister[instance];
+	}
+	/**
+	 * Returns the state of one instance
+	 * @param instance The instance
+	 * @return One of the HeadlessRechner.STATUS_ constants or STATUS_EXCEPTION
+	 */
+	protected int getStatus(int instance)
+	{
+		return status[instance];
+	}
+	/**
+	 * Returns the exception which stopped an instance
+	 * @param instance The instance
+	 * @return The exception, null if the instance was not stopped by an exception
+	 */
+	protected RuntimeException getException(int instance)
+	{
+		return exceptions[instance];
+	}
+	/**
+	 * Returns the number of instructions one instance executed
+	 * @param instance The instance
+	 * @return The number of executed instructions
+	 */
+	protected long getInstructionCount(int instance)
+	{
+		return instructionCount[instance];
+	}
+	/**
+	 * Returns a report of how well the instances ran in lockstep
+	 * @return The report in one line
+	 */
+	protected String getReport()
+	{
+		return "Executed "+instanceInstructions+" instructions in "+groupInstructions+" groups, "
+				+String.format("%.2f", groupInstructions == 0 ? 0.0 : (double)instanceInstructions/groupInstructions)+" instances per group\n";
+	}
+
+	/**
+	 * Executes every instance until it halts, reaches a breakpoint or the end of the ram, throws an exception or used up its budget.
+	 * Instances stopped by a breakpoint or the end of the ram continue like in HeadlessRechner.run().
+	 * @param maxInstructions Maximum number of instructions each instance executes
+	 * @return true, if all instances stopped, false if some used up their budget
+	 */
+	protected boolean run(long maxInstructions)
+	{
+		Arrays.fill(waiting, -1);
+		outside = -1;
+		lowest = size;
+		for(int i = 0; i < instances; i++)
+		{
+			if(status[i] != HeadlessRechner.STATUS_HALT && status[i] != STATUS_EXCEPTION)
+			{
+				status[i] = HeadlessRechner.STATUS_READY;
+			}
+			limits[i] = instructionCount[i]+Math.min(maxInstructions, Long.MAX_VALUE-instructionCount[i]);
+			enqueue(i);
+		}
+		while(formGroup())
+		{
+			while(execute() && continueGroup())
+			{
+			}
+			for(int i = 0; i < groupSize; i++)
+			{
+				enqueue(group[i]);
+			}
+		}
+		for(int i = 0; i < instances; i++)
+		{
+			if(status[i] == HeadlessRechner.STATUS_READY)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Lets an instance wait at its programcounter, if it is ready and has budget left
+	 * @param instance The instance
+	 */
+	private void enqueue(int instance)
+	{
+		if(status[instance] != HeadlessRechner.STATUS_READY || instructionCount[instance] >= limits[instance])
+		{
+			return;
+		}
+		int pc = programCounter[instance];
+		if(pc < 0 || pc >= size)
+		{
+			next[instance] = outside;
+			outside = instance;
+		}
+		else
+		{
+			next[instance] = waiting[pc];
+			waiting[pc] = instance;
+			lowest = Math.min(lowest, pc);
+		}
+	}
+	/**
+	 * Forms the next group: the instances waiting at the lowest programcounter, which have the same instruction there.
+	 * Instances with a programcounter outside of the ram are executed on their own first.
+	 * @return false, if no instance is waiting anymore
+	 */
+	private boolean formGroup()
+	{
+		groupSize = 0;
+		while(outside >= 0)
+		{
+			int instance = outside;
+			outside = next[instance];
+			if(programCounter[instance]%size < 0)
+			{
+				//like in HeadlessRechner the fetch from a negative adress throws an exception
+				addressRegister[instance] = programCounter[instance]%size;
+				fail(instance, new ArrayIndexOutOfBoundsException(addressRegister[instance]));
+			}
+			else
+			{
+				group[groupSize++] = instance;
+				budget = limits[instance]-instructionCount[instance];
+				return true;
+			}
+		}
+		while(lowest < size && waiting[lowest] < 0)
+		{
+			lowest++;
+		}
+		if(lowest == size)
+		{
+			return false;
+		}
+		int row = lowest*instances;
+		int instance = waiting[lowest];
+		int instruction = ram[row+instance];
+		int rest = -1;
+		budget = Long.MAX_VALUE;
+		while(instance >= 0)
+		{
+			int following = next[instance];
+			if(ram[row+instance] == instruction)
+			{
+				group[groupSize++] = instance;
+				budget = Math.min(budget, limits[instance]-instructionCount[instance]);
+			}
+			else
+			{
+				//the instance modified its instruction, it waits for the next group
+				next[instance] = rest;
+				rest = instance;
+			}
+			instance = following;
+		}
+		waiting[lowest] = rest;
+		return true;
+	}
+	/**
+	 * Checks whether the group can execute the next instruction without being formed again, after an instruction without a jump.
+	 * This is the case if no other instance waits at the new programcounter and all instances of the group have the same instruction there.
+	 * @return true, if the group stays together
+	 */
+	private boolean continueGroup()
+	{
+		int pc = programCounter[group[0]];
+		if(--budget <= 0 || pc < 0 || waiting[pc] >= 0)
+		{
+			return false;
+		}
+		int row = pc*instances;
+		int instruction = ram[row+group[0]];
+		for(int i = 1; i < groupSize; i++)
+		{
+			if(ram[row+group[i]] != instruction)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Stops an instance of the group because of an exception
+	 * @param instance The instance
+	 * @param exception The exception its instruction threw
+	 */
+	private void fail(int instance, RuntimeException exception)
+	{
+		status[instance] = STATUS_EXCEPTION;
+		exceptions[instance] = exception;
+	}
+	/**
+	 * Removes the instances stopped by an exception from the group
+	 */
+	private void removeFailed()
+	{
+		int count = 0;
+		for(int i = 0; i < groupSize; i++)
+		{
+			if(status[group[i]] != STATUS_EXCEPTION)
+			{
+				group[count++] = group[i];
+			}
+		}
+		groupSize = count;
+	}
+
+	/**
+	 * Executes the instruction at the programcounter of the group for all its instances, like HeadlessRechner.step()
+	 * @return true, if the instances of the group are still ready and continue with the following instruction
+	 */
+	private boolean execute()
+	{
+		int n = groupSize;
+		int[] g = group;
+		int address = programCounter[g[0]]%size;
+		int instruction = ram[address*instances+g[0]];
+		Opcodes command = Opcodes.decode(instruction);
+		boolean immediate = (command.ordinal() >= Opcodes.LOADM.ordinal() && command.ordinal() <= Opcodes.ORM.ordinal()) || command == Opcodes.LDXM;
+		int operand = instruction&(immediate ? 0xFFFFFF : addressMask);
+		//FETCH
+		for(int i = 0; i < n; i++)
+		{
+			addressRegister[g[i]] = address;
+			instructionRegister[g[i]] = instruction;
+		}
+		//INDIRECT
+		if(command.isIndirect())
+		{
+			boolean failed = false;
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				addressRegister[l] = ram[operand*instances+l]%size;
+				//a conditional jump only reads the ramcell if it is taken
+				if(addressRegister[l] < 0 && !command.isConditionalJump())
+				{
+					fail(l, new ArrayIndexOutOfBoundsException(addressRegister[l]));
+					failed = true;
+				}
+			}
+			if(failed)
+			{
+				removeFailed();
+				n = groupSize;
+			}
+		}
+		else if(command.isIndexed())
+		{
+			boolean failed = false;
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				addressRegister[l] = (operand+indexRegister[l])%size;
+				if(addressRegister[l] < 0)
+				{
+					fail(l, new ArrayIndexOutOfBoundsException(addressRegister[l]));
+					failed = true;
+				}
+			}
+			if(failed)
+			{
+				removeFailed();
+				n = groupSize;
+			}
+		}
+		else if(!immediate && addressesOperand(command))
+		{
+			for(int i = 0; i < n; i++)
+			{
+				addressRegister[g[i]] = operand;
+			}
+		}
+		//EXECUTE
+		boolean jump = false;
+		switch(command)
+		{
+		case NOP:
+		default:
+			break;
+		case HALT:
+			for(int i = 0; i < n; i++)
+			{
+				status[g[i]] = HeadlessRechner.STATUS_HALT;
+			}
+			jump = true;
+			break;
+		case BREAK:
+			for(int i = 0; i < n; i++)
+			{
+				status[g[i]] = HeadlessRechner.STATUS_BREAK;
+			}
+			break;
+		case LOAD:
+		case LOADI:
+		case LOADX:
+		case LOADXP:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				accumulator[l] = ram[addressRegister[l]*instances+l];
+			}
+			if(command == Opcodes.LOADXP)
+			{
+				increaseIndexRegister(n);
+			}
+			break;
+		case LOADM:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] = operand;
+			}
+			break;
+		case STORE:
+		case STOREI:
+		case STOREX:
+		case STOREXP:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				ram[addressRegister[l]*instances+l] = accumulator[l];
+			}
+			if(command == Opcodes.STOREXP)
+			{
+				increaseIndexRegister(n);
+			}
+			break;
+		case LDX:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				indexRegister[l] = ram[operand*instances+l];
+			}
+			break;
+		case LDXM:
+			for(int i = 0; i < n; i++)
+			{
+				indexRegister[g[i]] = operand;
+			}
+			break;
+		case STX:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				ram[operand*instances+l] = indexRegister[l];
+			}
+			break;
+		case TAX:
+			for(int i = 0; i < n; i++)
+			{
+				indexRegister[g[i]] = accumulator[g[i]];
+			}
+			break;
+		case TXA:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] = indexRegister[g[i]];
+			}
+			break;
+		case INCX:
+			increaseIndexRegister(n);
+			break;
+		case DECX:
+			for(int i = 0; i < n; i++)
+			{
+				indexRegister[g[i]]--;
+			}
+			break;
+		case XCHG:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				valueRegister[l] = ram[operand*instances+l];
+				ram[operand*instances+l] = accumulator[l];
+				accumulator[l] = valueRegister[l];
+			}
+			break;
+		case NOT:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] = ~accumulator[g[i]];
+			}
+			break;
+		case ADD:
+		case SUB:
+		case MULT:
+		case DIV:
+		case MOD:
+		case AND:
+		case OR:
+		case ADDI:
+		case SUBI:
+		case MULTI:
+		case DIVI:
+		case MODI:
+		case ANDI:
+		case ORI:
+		case ADDX:
+		case SUBX:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				valueRegister[l] = ram[addressRegister[l]*instances+l];
+			}
+			n = arithmetic(command, n);
+			break;
+		case ADDM:
+		case SUBM:
+		case MULTM:
+		case DIVM:
+		case MODM:
+		case ANDM:
+		case ORM:
+			for(int i = 0; i < n; i++)
+			{
+				valueRegister[g[i]] = operand;
+			}
+			n = arithmetic(command, n);
+			break;
+		case MEMCPY:
+		case MEMSET:
+		case MEMCMP:
+			for(int i = 0; i < n; i++)
+			{
+				bulk(command, g[i], operand);
+			}
+			removeFailed();
+			n = groupSize;
+			break;
+		case JMP:
+		case JMPI:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				programCounter[l] = ram[addressRegister[l]*instances+l];
+			}
+			jump = true;
+			break;
+		case JMPM:
+			for(int i = 0; i < n; i++)
+			{
+				programCounter[g[i]] = operand;
+			}
+			jump = true;
+			break;
+		case CALL:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				int sp = stackPointer[l];
+				if(sp < 0 || sp >= HeadlessRechner.RETURN_STACK_SIZE)
+				{
+					status[l] = sp < 0 ? HeadlessRechner.STATUS_STACK_UNDERFLOW : HeadlessRechner.STATUS_STACK_OVERFLOW;
+				}
+				else
+				{
+					returnStack[sp*instances+l] = programCounter[l]+1;
+					stackPointer[l] = sp+1;
+					programCounter[l] = operand;
+				}
+			}
+			removeFailed();
+			n = groupSize;
+			jump = true;
+			break;
+		case RET:
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				int sp = stackPointer[l]-1;
+				if(sp < 0 || sp >= HeadlessRechner.RETURN_STACK_SIZE)
+				{
+					status[l] = sp < 0 ? HeadlessRechner.STATUS_STACK_UNDERFLOW : HeadlessRechner.STATUS_STACK_OVERFLOW;
+				}
+				else
+				{
+					programCounter[l] = returnStack[sp*instances+l];
+					stackPointer[l] = sp;
+				}
+			}
+			removeFailed();
+			n = groupSize;
+			jump = true;
+			break;
+		case JMPEQ:
+		case JMPNE:
+		case JMPGT:
+		case JMPLT:
+		case JMPGE:
+		case JMPLE:
+		case JMPEQI:
+		case JMPNEI:
+		case JMPGTI:
+		case JMPLTI:
+		case JMPGEI:
+		case JMPLEI:
+		case JMPEQM:
+		case JMPNEM:
+		case JMPGTM:
+		case JMPLTM:
+		case JMPGEM:
+		case JMPLEM:
+			boolean immediateJump = command.ordinal() >= Opcodes.JMPM.ordinal() && command.ordinal() <= Opcodes.JMPLEM.ordinal();
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				if(command.isJumpTaken(accumulator[l]))
+				{
+					if(immediateJump)
+					{
+						programCounter[l] = operand;
+					}
+					else if(addressRegister[l] < 0)
+					{
+						fail(l, new ArrayIndexOutOfBoundsException(addressRegister[l]));
+					}
+					else
+					{
+						programCounter[l] = ram[addressRegister[l]*instances+l];
+					}
+				}
+				else if(programCounter[l] < size-1)
+				{
+					programCounter[l]++;
+				}
+				else
+				{
+					//a failed jump in the last ramcell halts the machine
+					status[l] = HeadlessRechner.STATUS_HALT;
+				}
+			}
+			removeFailed();
+			n = groupSize;
+			jump = true;
+			break;
+		}
+		for(int i = 0; i < n; i++)
+		{
+			instructionCount[g[i]]++;
+		}
+		groupInstructions++;
+		instanceInstructions += n;
+		if(jump || n == 0)
+		{
+			return false;
+		}
+		//all instances of the group share the programcounter
+		if(programCounter[g[0]] < size-1)
+		{
+			for(int i = 0; i < n; i++)
+			{
+				programCounter[g[i]]++;
+			}
+			return command != Opcodes.BREAK;
+		}
+		for(int i = 0; i < n; i++)
+		{
+			status[g[i]] = HeadlessRechner.STATUS_END_OF_RAM;
+		}
+		return false;
+	}
+	/**
+	 * Checks whether an instruction with a direct adress sets the adressregister to it
+	 * @param command The instruction
+	 * @return false for instructions without an operand and for jumps to an immediate adress, they keep the adress they were fetched from
+	 */
+	private static boolean addressesOperand(Opcodes command)
+	{
+		switch(command)
+		{
+		case NOP:
+		case BREAK:
+		case NOT:
+		case TAX:
+		case TXA:
+		case INCX:
+		case DECX:
+			return false;
+		default:
+			return !command.isJump() || command.ordinal() < Opcodes.JMPM.ordinal();
+		}
+	}
+	/**
+	 * Increases the indexregisters of the group by 1
+	 * @param n Number of instances in the group
+	 */
+	private void increaseIndexRegister(int n)
+	{
+		for(int i = 0; i < n; i++)
+		{
+			indexRegister[group[i]]++;
+		}
+	}
+	/**
+	 * Applies an arithmetic or logic instruction to the accumulators and valueregisters of the group
+	 * @param command The instruction
+	 * @param n Number of instances in the group
+	 * @return The number of instances in the group afterwards, a division by zero stops an instance
+	 */
+	private int arithmetic(Opcodes command, int n)
+	{
+		int[] g = group;
+		switch(command)
+		{
+		case ADD:
+		case ADDM:
+		case ADDI:
+		case ADDX:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] += valueRegister[g[i]];
+			}
+			break;
+		case SUB:
+		case SUBM:
+		case SUBI:
+		case SUBX:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] -= valueRegister[g[i]];
+			}
+			break;
+		case MULT:
+		case MULTM:
+		case MULTI:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] *= valueRegister[g[i]];
+			}
+			break;
+		case AND:
+		case ANDM:
+		case ANDI:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] &= valueRegister[g[i]];
+			}
+			break;
+		case OR:
+		case ORM:
+		case ORI:
+			for(int i = 0; i < n; i++)
+			{
+				accumulator[g[i]] |= valueRegister[g[i]];
+			}
+			break;
+		default:
+			boolean modulo = command == Opcodes.MOD || command == Opcodes.MODM || command == Opcodes.MODI;
+			boolean failed = false;
+			for(int i = 0; i < n; i++)
+			{
+				int l = g[i];
+				if(valueRegister[l] == 0)
+				{
+					fail(l, new ArithmeticException("/ by zero"));
+					failed = true;
+				}
+				else
+				{
+					accumulator[l] = modulo ? accumulator[l]%valueRegister[l] : accumulator[l]/valueRegister[l];
+				}
+			}
+			if(failed)
+			{
+				removeFailed();
+			}
+			return groupSize;
+		}
+		return n;
+	}
+	/**
+	 * Executes a bulk instruction for one instance, see BulkMemory
+	 * @param command MEMCPY, MEMSET or MEMCMP
+	 * @param instance The instance
+	 * @param cell The first ramcell of the descriptor
+	 */
+	private void bulk(Opcodes command, int instance, int cell)
+	{
+		int length = accumulator[instance];
+		int second = cell+1 < size ? cell+1 : 0;
+		int processed = Math.max(length, 0);
+		try
+		{
+			if(length > 0)
+			{
+				int first = start(instance, cell, length);
+				switch(command)
+				{
+				case MEMCPY:
+					int source = start(instance, second, length);
+					//like System.arraycopy the regions may overlap
+					if(first < source)
+					{
+						for(int i = 0; i < length; i++)
+						{
+							ram[(first+i)*instances+instance] = ram[(source+i)*instances+instance];
+						}
+					}
+					else
+					{
+						for(int i = length-1; i >= 0; i--)
+						{
+							ram[(first+i)*instances+instance] = ram[(source+i)*instances+instance];
+						}
+					}
+					break;
+				case MEMSET:
+					int value = ram[second*instances+instance];
+					for(int i = 0; i < length; i++)
+					{
+						ram[(first+i)*instances+instance] = value;
+					}
+					break;
+				default:
+					int other = start(instance, second, length);
+					int offset = 0;
+					while(offset < length && ram[(first+offset)*instances+instance] == ram[(other+offset)*instances+instance])
+					{
+						offset++;
+					}
+					int result = 0;
+					processed = length;
+					if(offset < length)
+					{
+						result = ram[(first+offset)*instances+instance] < ram[(other+offset)*instances+instance] ? -1 : 1;
+						processed = offset+1;
+					}
+					accumulator[instance] = result;
+					break;
+				}
+			}
+			else if(command == Opcodes.MEMCMP)
+			{
+				processed = 0;
+				accumulator[instance] = 0;
+			}
+			valueRegister[instance] = processed;
+		}
+		catch(ArrayIndexOutOfBoundsException e)
+		{
+			fail(instance, e);
+		}
+	}
+	/**
+	 * Reads the start of a region from a descriptor and checks that the region fits into the ram, like BulkMemory.start()
+	 * @param instance The instance
+	 * @param cell The ramcell of the descriptor containing the start
+	 * @param length The number of ramcells of the region
+	 * @return The adress of the first ramcell of the region
+	 */
+	private int start(int instance, int cell, int length)
+	{
+		int start = ram[cell*instances+instance]%size;
+		if(start < 0 || start > size-length)
+		{
+			throw new ArrayIndexOutOfBoundsException("Region "+start+" with "+length+" ramcells does not fit into the ram");
+		}
+		return start;
+	}
+}
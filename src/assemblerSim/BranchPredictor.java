@@ -0,0 +1,227 @@
+package assemblerSim;
+
+import java.util.Arrays;
+
+/**
+ * Predicts whether a conditional jump jumps, before its condition is checked.
+ * A predictor is told the actual outcome of every conditional jump afterwards, so it can learn from it.
+ */
+public abstract class BranchPredictor
+{
+	private final String name;
+
+	/**
+	 * Create a new predictor
+	 * @param nname Name used in the reports
+	 */
+	protected BranchPredictor(String nname)
+	{
+		name = nname;
+	}
+
+	/**
+	 * Returns the name of the predictor
+	 * @return The name used in the reports
+	 */
+	protected String getName()
+	{
+		return name;
+	}
+	/**
+	 * Predicts the outcome of a conditional jump
+	 * @param address Adress of the jump
+	 * @param target Adress the jump jumps to
+	 * @return true, if the jump is predicted to jump
+	 */
+	protected abstract boolean predict(int address, int target);
+	/**
+	 * Tells the predictor the actual outcome of a conditional jump, after predict() was called for it
+	 * @param address Adress of the jump
+	 * @param taken true, if the jump jumped
+	 */
+	protected abstract void update(int address, boolean taken);
+	/**
+	 * Forgets everything the predictor learned
+	 */
+	protected abstract void reset();
+
+	/**
+	 * Creates a predictor by its name
+	 * @param nname static, 1bit, 2bit or gshare
+	 * @param nbits Number of adress bits indexing the table, for gshare also the number of jumps in the history
+	 * @return The new predictor
+	 */
+	protected static BranchPredictor create(String nname, int nbits)
+	{
+		if(nname.equals("static"))
+		{
+			return new Static();
+		}
+		if(nname.equals("1bit"))
+		{
+			return new OneBit(nbits);
+		}
+		if(nname.equals("2bit"))
+		{
+			return new TwoBit(nbits);
+		}
+		if(nname.equals("gshare"))
+		{
+			return new Gshare(nbits);
+		}
+		throw new IllegalArgumentException("Unknown branch predictor "+nname);
+	}
+
+	/**
+	 * Predicts backward jumps (loops) to jump and forward jumps not to jump
+	 */
+	public static class Static extends BranchPredictor
+	{
+		/**
+		 * Create a new static predictor
+		 */
+		public Static()
+		{
+			super("static");
+		}
+		protected boolean predict(int address, int target)
+		{
+			return target <= address;
+		}
+		protected void update(int address, boolean taken)
+		{
+		}
+		protected void reset()
+		{
+		}
+	}
+
+	/**
+	 * Predicts the outcome of the last execution of the jump, jumps sharing an entry of the table share their outcome
+	 */
+	public static class OneBit extends BranchPredictor
+	{
+		private final boolean[] taken;
+		private final int mask;
+
+		/**
+		 * Create a new 1-bit predictor
+		 * @param nbits Number of adress bits indexing the table
+		 */
+		public OneBit(int nbits)
+		{
+			super("1bit");
+			taken = new boolean[1<<nbits];
+			mask = taken.length-1;
+		}
+		protected boolean predict(int address, int target)
+		{
+			return taken[address&mask];
+		}
+		protected void update(int address, boolean ntaken)
+		{
+			taken[address&mask] = ntaken;
+		}
+		protected void reset()
+		{
+			Arrays.fill(taken, false);
+		}
+	}
+
+	/**
+	 * Predicts with a saturating 2-bit counter per entry, so a loop exit alone does not change the prediction of the loop
+	 */
+	public static class TwoBit extends BranchPredictor
+	{
+		/**
+		 * Counters from 0 (strongly not taken) to 3 (strongly taken)
+		 */
+		final byte[] counters;
+		final int mask;
+
+		/**
+		 * Create a new 2-bit predictor
+		 * @param nbits Number of adress bits indexing the table
+		 */
+		public TwoBit(int nbits)
+		{
+			this("2bit", nbits);
+		}
+		/**
+		 * Create a new predictor using a table of 2-bit counters
+		 * @param nname Name used in the reports
+		 * @param nbits Number of bits indexing the table
+		 */
+		protected TwoBit(String nname, int nbits)
+		{
+			super(nname);
+			counters = new byte[1<<nbits];
+			mask = counters.length-1;
+			reset();
+		}
+		/**
+		 * Returns the entry of the table used for a jump
+		 * @param address Adress of the jump
+		 * @return Index of the counter
+		 */
+		int index(int address)
+		{
+			return address&mask;
+		}
+		protected boolean predict(int address, int target)
+		{
+			return counters[index(address)] >= 2;
+		}
+		protected void update(int address, boolean taken)
+		{
+			int index = index(address);
+			if(taken && counters[index] < 3)
+			{
+				counters[index]++;
+			}
+			else if(!taken && counters[index] > 0)
+			{
+				counters[index]--;
+			}
+		}
+		protected void reset()
+		{
+			//weakly not taken
+			Arrays.fill(counters, (byte)1);
+		}
+	}
+
+	/**
+	 * Predicts with 2-bit counters indexed by the adress xor the outcomes of the last jumps, so it learns patterns across jumps
+	 */
+	public static class Gshare extends TwoBit
+	{
+		/**
+		 * Outcomes of the last jumps, the latest in the lowest bit
+		 */
+		private int history;
+
+		/**
+		 * Create a new gshare predictor
+		 * @param nbits Number of bits indexing the table and number of jumps in the history
+		 */
+		public Gshare(int nbits)
+		{
+			super("gshare", nbits);
+		}
+		int index(int address)
+		{
+			return (address^history)&mask;
+		}
+		protected void update(int address, boolean taken)
+		{
+			super.update(address, taken);
+			history = ((history<<1)|(taken ? 1 : 0))&mask;
+		}
+		protected void reset()
+		{
+			super.reset();
+			history = 0;
+		}
+	}
+}
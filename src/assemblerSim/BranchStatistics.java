@@ -0,0 +1,156 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Records the outcomes of the conditional jumps of a program and lets several branch predictors predict them.
+ * For every jump and predictor the mispredictions are counted, every misprediction costs the given penalty in cycles.
+ */
+public class BranchStatistics
+{
+	/**
+	 * Default cycles lost by a misprediction, a conditional jump is resolved in EX of the PipelineModel
+	 */
+	public final static int DEFAULT_PENALTY = 3;
+
+	private final BranchPredictor[] predictors;
+	private final int penalty;
+	/**
+	 * Number of executions of the jump in each ramcell
+	 */
+	private final long[] executions;
+	/**
+	 * Number of executions which jumped
+	 */
+	private final long[] taken;
+	/**
+	 * Number of mispredictions, indexed by the predictor and the ramcell
+	 */
+	private final long[][] mispredictions;
+
+	/**
+	 * Create new branch statistics
+	 * @param nramSize Size of the ram
+	 * @param npredictors The predictors to compare
+	 * @param npenalty Cycles lost by a misprediction
+	 */
+	public BranchStatistics(int nramSize, BranchPredictor[] npredictors, int npenalty)
+	{
+		predictors = npredictors;
+		penalty = npenalty;
+		executions = new long[nramSize];
+		taken = new long[nramSize];
+		mispredictions = new long[predictors.length][nramSize];
+	}
+
+	/**
+	 * Resets the statistics and the predictors
+	 */
+	protected void reset()
+	{
+		Arrays.fill(executions, 0);
+		Arrays.fill(taken, 0);
+		for(int i = 0; i < predictors.length; i++)
+		{
+			Arrays.fill(mispredictions[i], 0);
+			predictors[i].reset();
+		}
+	}
+
+	/**
+	 * Records the outcome of a conditional jump
+	 * @param address Adress of the jump
+	 * @param target Adress the jump jumps to, if its condition is fulfilled
+	 * @param jumped true, if the condition was fulfilled
+	 */
+	protected void branch(int address, int target, boolean jumped)
+	{
+		executions[address]++;
+		if(jumped)
+		{
+			taken[address]++;
+		}
+		for(int i = 0; i < predictors.length; i++)
+		{
+			if(predictors[i].predict(address, target) != jumped)
+			{
+				mispredictions[i][address]++;
+			}
+			predictors[i].update(address, jumped);
+		}
+	}
+
+	/**
+	 * Returns the number of mispredictions of a predictor
+	 * @param npredictor Index of the predictor
+	 * @return The number of mispredictions of all jumps
+	 */
+	protected long getMispredictions(int npredictor)
+	{
+		long sum = 0;
+		for(long count : mispredictions[npredictor])
+		{
+			sum += count;
+		}
+		return sum;
+	}
+	/**
+	 * Returns a report of the mispredictions of all predictors and of the jumps executed most often
+	 * @param maxSites Maximum number of jumps in the report
+	 * @return The report
+	 */
+	protected String getReport(int maxSites)
+	{
+		StringBuilder report = new StringBuilder();
+		long total = 0;
+		List<Integer> sites = new ArrayList<Integer>();
+		for(int i = 0; i < executions.length; i++)
+		{
+			if(executions[i] > 0)
+			{
+				total += executions[i];
+				sites.add(i);
+			}
+		}
+		report.append("Conditional jumps: ").append(total).append(" at ").append(sites.size()).append(" adresses\n");
+		for(int i = 0; i < predictors.length; i++)
+		{
+			long count = getMispredictions(i);
+			report.append(predictors[i].getName()).append(": ").append(count).append(" mispredictions (").append(rate(count, total));
+			report.append("), penalty ").append(count*penalty).append(" cycles\n");
+		}
+		Collections.sort(sites, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return executions[b] < executions[a] ? -1 : (executions[b] > executions[a] ? 1 : a-b);
+			}
+		});
+		for(int i = 0; i < sites.size() && i < maxSites; i++)
+		{
+			int address = sites.get(i);
+			report.append("Jump ").append(address).append(": ").append(executions[address]).append(" executions, ");
+			report.append(rate(taken[address], executions[address])).append(" taken");
+			for(int j = 0; j < predictors.length; j++)
+			{
+				report.append(", ").append(predictors[j].getName()).append(" ").append(rate(mispredictions[j][address], executions[address]));
+			}
+			report.append("\n");
+		}
+		return report.toString();
+	}
+	/**
+	 * Formats a rate as percentage
+	 * @param count The counted events
+	 * @param total All events
+	 * @return The percentage
+	 */
+	private static String rate(long count, long total)
+	{
+		return String.format("%.2f%%", total == 0 ? 0.0 : 100.0*count/total);
+	}
+}
@@ -0,0 +1,112 @@
+package assemblerSim;
+
+/**
+ * Common parts of the bulk memory instructions MEMCPY, MEMSET and MEMCMP, used by all engines.
+ *
+ * The operand x of a bulk instruction is the direct adress of a descriptor of two ramcells, the accumulator holds the number of ramcells n:
+ * <pre>
+ * MEMCPY x  copies the n ramcells starting at r[x+1] to the ramcells starting at r[x], the regions may overlap
+ * MEMSET x  sets the n ramcells starting at r[x] to the value r[x+1]
+ * MEMCMP x  compares the n ramcells starting at r[x] with the ones starting at r[x+1], the accumulator gets 0 if they are equal,
+ *           otherwise -1 or 1, if the first different ramcell of the first region is lower or greater than the one of the second region
+ * </pre>
+ * Adresses in the descriptor are taken modulo the size of the ram like indirect adresses. A region which does not fit into the ram
+ * throws an ArrayIndexOutOfBoundsException before anything is written, a VonNeumannRechner with a ram which does not wrap uses the adresses
+ * as they are. Afterwards the adressregister contains x and the valueregister
+ * the number of processed ramcells: n for MEMCPY and MEMSET, the number of compared ramcells for MEMCMP, 0 if n is not positive.
+ */
+public class BulkMemory
+{
+	/**
+	 * Reads the start of a region from the descriptor and checks that the region fits into the ram
+	 * @param ram The ram
+	 * @param cell The ramcell of the descriptor containing the start
+	 * @param length The number of ramcells of the region, has to be positive
+	 * @return The adress of the first ramcell of the region
+	 * @throws ArrayIndexOutOfBoundsException If the region does not fit into the ram
+	 */
+	static int start(int[] ram, int cell, int length)
+	{
+		int start = ram[cell]%ram.length;
+		if(start < 0 || start > ram.length-length)
+		{
+			throw new ArrayIndexOutOfBoundsException("Region "+start+" with "+length+" ramcells does not fit into the ram");
+		}
+		return start;
+	}
+	/**
+	 * Returns the ramcell of the descriptor following a ramcell
+	 * @param ram The ram
+	 * @param cell The first ramcell of the descriptor
+	 * @return The second ramcell of the descriptor
+	 */
+	static int second(int[] ram, int cell)
+	{
+		return cell+1 < ram.length ? cell+1 : 0;
+	}
+	/**
+	 * Finds the first different ramcell of two regions
+	 * @param ram The ram
+	 * @param first Start of the first region
+	 * @param second Start of the second region
+	 * @param length Number of ramcells of both regions
+	 * @return The offset of the first different ramcell or length, if the regions are equal
+	 */
+	static int mismatch(int[] ram, int first, int second, int length)
+	{
+		for(int i = 0; i < length; i++)
+		{
+			if(ram[first+i] != ram[second+i])
+			{
+				return i;
+			}
+		}
+		return length;
+	}
+	/**
+	 * Reads the start of a region from the descriptor and checks that the region fits into the ram
+	 * @param ram The ram of a VonNeumannRechner
+	 * @param cell The ramcell of the descriptor containing the start
+	 * @param length The number of ramcells of the region, has to be positive
+	 * @return The adress of the first ramcell of the region
+	 * @throws ArrayIndexOutOfBoundsException If the region does not fit into the ram
+	 */
+	static int start(Ram ram, int cell, int length)
+	{
+		int start = ram.reduce(ram.read(cell));
+		if(start < 0 || start > ram.getSize()-length)
+		{
+			throw new ArrayIndexOutOfBoundsException("Region "+start+" with "+length+" ramcells does not fit into the ram");
+		}
+		return start;
+	}
+	/**
+	 * Returns the ramcell of the descriptor following a ramcell
+	 * @param ram The ram of a VonNeumannRechner
+	 * @param cell The first ramcell of the descriptor
+	 * @return The second ramcell of the descriptor, outside of a ram which does not wrap after its last ramcell
+	 */
+	static int second(Ram ram, int cell)
+	{
+		return cell+1 < ram.getSize() || !ram.isWrapping() ? cell+1 : 0;
+	}
+	/**
+	 * Finds the first different ramcell of two regions
+	 * @param ram The ram of a VonNeumannRechner
+	 * @param first Start of the first region
+	 * @param second Start of the second region
+	 * @param length Number of ramcells of both regions
+	 * @return The offset of the first different ramcell or length, if the regions are equal
+	 */
+	static int mismatch(Ram ram, int first, int second, int length)
+	{
+		for(int i = 0; i < length; i++)
+		{
+			if(ram.read(first+i) != ram.read(second+i))
+			{
+				return i;
+			}
+		}
+		return length;
+	}
+}
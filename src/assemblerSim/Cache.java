@@ -0,0 +1,202 @@
+package assemblerSim;
+
+import java.util.Arrays;
+
+/**
+ * One level of a simulated cache hierarchy. The cache is set associative, writes allocate a line and are written back when the line is evicted.
+ * Only the tags are simulated, the values are always read from and written to the ram of the machine.
+ * Sizes are counted in ramcells, the line size and the number of sets have to be powers of two.
+ */
+public class Cache
+{
+	/*
+	 * Replacement strategies
+	 */
+	public final static int REPLACEMENT_LRU = 0;
+	public final static int REPLACEMENT_RANDOM = 1;
+
+	private final String name;
+	private final int ways;
+	private final int lineShift;
+	private final int setMask;
+	private final int replacement;
+	/**
+	 * Next level, which is accessed on a miss, null for the ram
+	 */
+	private final Cache next;
+	/**
+	 * Line number cached in each way, indexed by set*ways+way, -1 if the way is empty
+	 */
+	private final int[] tags;
+	private final boolean[] dirty;
+	/**
+	 * Time of the last access of each way, used for LRU
+	 */
+	private final long[] lastUse;
+	private long clock;
+	private int seed = 0x2545F491;
+
+	/*
+	 * Statistics
+	 */
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long writebacks;
+
+	/**
+	 * Create a new cache level
+	 * @param nname Name used in the reports, e.g. L1D
+	 * @param nsize Size in ramcells
+	 * @param nways Associativity, the number of lines in each set
+	 * @param nlineSize Size of a line in ramcells
+	 * @param nreplacement REPLACEMENT_LRU or REPLACEMENT_RANDOM
+	 * @param nnext Next level, which is accessed on a miss, null for the ram
+	 */
+	public Cache(String nname, int nsize, int nways, int nlineSize, int nreplacement, Cache nnext)
+	{
+		if(nways < 1 || nlineSize < 1 || Integer.bitCount(nlineSize) != 1 || nsize%(nways*nlineSize) != 0)
+		{
+			throw new IllegalArgumentException("The size of "+nname+" has to be a multiple of the associativity times the line size, the line size a power of two");
+		}
+		int sets = nsize/(nways*nlineSize);
+		if(Integer.bitCount(sets) != 1)
+		{
+			throw new IllegalArgumentException("The number of sets of "+nname+" has to be a power of two");
+		}
+		name = nname;
+		ways = nways;
+		lineShift = Integer.numberOfTrailingZeros(nlineSize);
+		setMask = sets-1;
+		replacement = nreplacement;
+		next = nnext;
+		tags = new int[sets*ways];
+		dirty = new boolean[sets*ways];
+		lastUse = new long[sets*ways];
+		reset();
+	}
+
+	/**
+	 * Empties the cache and resets the statistics, the next level is left untouched
+	 */
+	protected void reset()
+	{
+		Arrays.fill(tags, -1);
+		Arrays.fill(dirty, false);
+		Arrays.fill(lastUse, 0);
+		clock = 0;
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		writebacks = 0;
+	}
+
+	/**
+	 * Accesses a ramcell through the cache
+	 * @param address The ramcell
+	 * @param write true for a write, false for a read
+	 * @return true, if the line of the ramcell was cached
+	 */
+	protected boolean access(int address, boolean write)
+	{
+		int line = address>>>lineShift;
+		int first = (line&setMask)*ways;
+		clock++;
+		for(int way = first; way < first+ways; way++)
+		{
+			if(tags[way] == line)
+			{
+				hits++;
+				lastUse[way] = clock;
+				dirty[way] |= write;
+				return true;
+			}
+		}
+		misses++;
+		if(next != null)
+		{
+			next.access(address, false);
+		}
+		int victim = victim(first);
+		if(tags[victim] != -1)
+		{
+			evictions++;
+			if(dirty[victim])
+			{
+				writebacks++;
+				if(next != null)
+				{
+					next.access(tags[victim]<<lineShift, true);
+				}
+			}
+		}
+		tags[victim] = line;
+		dirty[victim] = write;
+		lastUse[victim] = clock;
+		return false;
+	}
+	/**
+	 * Chooses the way of a set to replace, an empty way if there is one
+	 * @param first Index of the first way of the set
+	 * @return Index of the way to replace
+	 */
+	private int victim(int first)
+	{
+		int victim = first;
+		for(int way = first; way < first+ways; way++)
+		{
+			if(tags[way] == -1)
+			{
+				return way;
+			}
+			if(lastUse[way] < lastUse[victim])
+			{
+				victim = way;
+			}
+		}
+		if(replacement == REPLACEMENT_RANDOM)
+		{
+			//xorshift, so runs are reproducible
+			seed ^= seed<<13;
+			seed ^= seed>>>17;
+			seed ^= seed<<5;
+			victim = first+(seed>>>1)%ways;
+		}
+		return victim;
+	}
+
+	/**
+	 * Returns the next level
+	 * @return The next level, null for the ram
+	 */
+	protected Cache getNext()
+	{
+		return next;
+	}
+	/**
+	 * Returns the number of accesses which found their line in the cache
+	 * @return The number of hits
+	 */
+	protected long getHits()
+	{
+		return hits;
+	}
+	/**
+	 * Returns the number of accesses which had to load their line from the next level
+	 * @return The number of misses
+	 */
+	protected long getMisses()
+	{
+		return misses;
+	}
+	/**
+	 * Returns a report of the statistics of the cache
+	 * @return The report in one line
+	 */
+	protected String getReport()
+	{
+		long accesses = hits+misses;
+		return name+": "+accesses+" accesses, "+hits+" hits, "+misses+" misses ("
+				+String.format("%.2f", accesses == 0 ? 0.0 : 100.0*misses/accesses)+"%), "+evictions+" evictions, "+writebacks+" writebacks\n";
+	}
+}
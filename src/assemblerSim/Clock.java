@@ -14,6 +14,7 @@ public class Clock
 	 */
 	int stepTime = 1000;
 	VonNeumannRechner rechner;
+	RunAhead runAhead;
 	Timer timer;
 	ClockTask task;
 	boolean isRunning = false;
@@ -45,12 +46,28 @@ public class Clock
 	    }
 	}
 
+	/**
+	 * Sets the run ahead which shows the steps instead of executing them in the virtual maschine
+	 * @param nrunAhead the run ahead of the virtual maschine, null to execute the steps directly
+	 */
+	protected void setRunAhead(RunAhead nrunAhead)
+	{
+		runAhead = nrunAhead;
+	}
+
 	/**
 	 * executes the next step in the virtual maschine
 	 */
 	protected void step()
 	{
-		rechner.step();
+		if(runAhead != null)
+		{
+			runAhead.step();
+		}
+		else
+		{
+			rechner.step();
+		}
 	}
 	
 	/**
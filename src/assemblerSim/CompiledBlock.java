@@ -0,0 +1,146 @@
+package assemblerSim;
+
+/**
+ * A frequently executed basic block of a HeadlessRechner, compiled into a chain of decoded instructions.
+ * The instructions of the block are executed in one loop without fetching, decoding and increasing the programcounter for each of them.
+ * The instructionregister, the programcounter and the instruction count are only updated when the block is left.
+ * Superinstructions in the block are kept as one entry of the chain.
+ */
+public class CompiledBlock
+{
+	/**
+	 * Maximum number of instructions in a block
+	 */
+	public final static int MAX_LENGTH = 64;
+
+	final int start;
+	final int end;
+	/**
+	 * False after the code of the block was overwritten
+	 */
+	boolean valid = true;
+	private final HeadlessRechner.Handler[] handlers;
+	private final int[] operands;
+	/**
+	 * Adresses of the entries of the chain
+	 */
+	private final int[] addresses;
+	/**
+	 * Last instruction of each entry, loaded into the instructionregister when the block is left after it
+	 */
+	private final int[] instructions;
+	/**
+	 * Number of instructions executed up to and including each entry
+	 */
+	private final int[] executed;
+	private final boolean endsWithJump;
+
+	/**
+	 * Compiles a block from the decoded instructions of the machine
+	 * @param m The machine the block belongs to
+	 * @param nstart The address of the first instruction
+	 * @param nend The address after the last instruction
+	 */
+	CompiledBlock(HeadlessRechner m, int nstart, int nend)
+	{
+		start = nstart;
+		end = nend;
+		int entries = 0;
+		for(int address = start; address < end; address += handlerAt(m, address).length)
+		{
+			entries++;
+		}
+		handlers = new HeadlessRechner.Handler[entries];
+		operands = new int[entries];
+		addresses = new int[entries];
+		instructions = new int[entries];
+		executed = new int[entries];
+		int address = start;
+		for(int i = 0; i < entries; i++)
+		{
+			handlers[i] = handlerAt(m, address);
+			operands[i] = m.operands[address];
+			addresses[i] = address;
+			address += handlers[i].length;
+			instructions[i] = m.ram[address-1];
+			executed[i] = address-start;
+		}
+		endsWithJump = handlers[entries-1].jump;
+	}
+
+	/**
+	 * Returns the handler of the entry at an adress of the block, a superinstruction only if all of its ramcells belong to the block
+	 * @param m The machine the block belongs to
+	 * @param address The adress of the entry
+	 * @return The handler of the entry
+	 */
+	private HeadlessRechner.Handler handlerAt(HeadlessRechner m, int address)
+	{
+		HeadlessRechner.Handler handler = m.handlers[address];
+		if(address+handler.length > end)
+		{
+			return m.instructionHandler(address);
+		}
+		return handler;
+	}
+
+	/**
+	 * Executes the block. The programcounter of the machine has to point to the start of the block.
+	 * If an instruction overwrites the code of the block, the block is left after that instruction.
+	 * @param m The machine to execute the block on
+	 */
+	void execute(HeadlessRechner m)
+	{
+		int last = endsWithJump ? handlers.length-1 : handlers.length;
+		int i = 0;
+		try
+		{
+			for(; i < last; i++)
+			{
+				m.addressRegister = addresses[i];
+				handlers[i].execute(m, operands[i]);
+				if(!valid)
+				{
+					leave(m, i);
+					m.programCounter = start+executed[i];
+					return;
+				}
+			}
+			if(endsWithJump)
+			{
+				m.instructionRegister = instructions[i];
+				m.programCounter = addresses[i];
+				m.addressRegister = addresses[i];
+				handlers[i].execute(m, operands[i]);
+				m.instructionCount += executed[i];
+			}
+			else
+			{
+				leave(m, i-1);
+				m.programCounter = end;
+			}
+		}
+		catch(RuntimeException e)
+		{
+			//leave the machine at the failing instruction like the interpreter does, superinstructions do this themselves
+			m.instructionCount += executed[i]-handlers[i].length;
+			if(handlers[i].length == 1)
+			{
+				m.instructionRegister = instructions[i];
+				m.programCounter = addresses[i];
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Updates the instructionregister and the instruction count of the machine when leaving the block
+	 * @param m The machine the block is executed on
+	 * @param index Index of the last executed entry
+	 */
+	private void leave(HeadlessRechner m, int index)
+	{
+		m.instructionRegister = instructions[index];
+		m.instructionCount += executed[index];
+	}
+}
@@ -5,6 +5,8 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;;
+import java.nio.ReadOnlyBufferException;
+import java.util.List;
 
 /**
  * Objects of this class act as an intermediary between the GUI and the virtual maschine
@@ -17,8 +19,36 @@ public class Controller
 	 * Variables
 	 */
 	
+	/**
+	 * Maximum number of ramcells shown in the RAM view, a larger ram is cut off
+	 */
+	private final static int MAX_VIEW_LINES = 65536;
+	/**
+	 * Number of changes recorded for stepping back, 8 bytes each
+	 */
+	private final static int HISTORY_SIZE = 1<<20;
+	/**
+	 * Number of ramcells of the RAM view the steps executed ahead may hold together
+	 */
+	private final static int RUN_AHEAD_CELLS = 1<<20;
+	/**
+	 * Maximum number of steps executed ahead of the GUI
+	 */
+	private final static int RUN_AHEAD_STEPS = 256;
+	/**
+	 * Maximum number of ramcells shown in the table of the most accessed ramcells
+	 */
+	private final static int HOT_CELLS = 1000;
+	/**
+	 * Maximum number of errors of the assembler shown in the console
+	 */
+	private final static int MAX_DIAGNOSTICS = 100;
+	
 	Clock clock;
 	VonNeumannRechner rechner;
+	RunAhead runAhead;
+	AccessCounters counters;
+	LiveAssembler liveAssembler;
 	View view;
 	GUIFrame frm;
 	
@@ -29,23 +59,94 @@ public class Controller
 	 * initializes necessary variables and sets the GUI visible. 
 	 */
 	public Controller(int nramSize)
+	{
+		this(new Ram.Dense(new int[nramSize], true));
+	}
+	
+	/**
+	 * @param nram The empty ram the virtual maschine should have, dense or paged, wrapping or not.
+	 * Constructor creates object for the GUI and virtual maschine;
+	 * initializes necessary variables and sets the GUI visible. Endless loops are only detected and accesses only counted in a dense ram.
+	 */
+	public Controller(Ram nram)
 	{
 		
-		rechner = new VonNeumannRechner(this, nramSize);
+		rechner = new VonNeumannRechner(this, nram);
 		view = new View(this);
 		clock = new Clock(rechner);
 		frm = new GUIFrame(view, this);
-		rechner.setRam(new int[nramSize]);
+		rechner.setRam(nram);
+		if(nram.array() != null)
+		{
+			counters = new AccessCounters(nram.getSize());
+			rechner.setMemoryHierarchy(counters);
+		}
+		int viewCells = Math.max(1, Math.min(nram.getSize(), MAX_VIEW_LINES));
+		runAhead = new RunAhead(rechner, this, Math.min(RUN_AHEAD_STEPS, RUN_AHEAD_CELLS/viewCells));
+		if(nram.array() != null)
+		{
+			runAhead.setLoopDetector(new LoopDetector(nram.getSize()));
+		}
+		clock.setRunAhead(runAhead);
+		runAhead.restart();
+		liveAssembler = new LiveAssembler(this, frm.getCodeDocument());
 		setCycleDisplay("FETCH");
 		frm.setVisible(true);	//after everything is created show the GUI
 	}
 	
+	/**
+	 * Creates a controller without a GUI, for subclasses which receive the updates of a machine themselves
+	 */
+	Controller()
+	{
+	}
+	
 	/**
 	 * This function executes the next step in the virtual maschine.
 	 */
 	protected void step()
 	{
 	clock.step();
+	resyncCode();
+	}
+	
+	/**
+	 * Goes back to the start of the current or the previous instruction in the virtual maschine
+	 */
+	protected void stepBack()
+	{
+		runAhead.sync();
+		if(!rechner.stepBack())
+		{
+			appendEvent("No earlier state recorded\n");
+		}
+		runAhead.restart();
+		resyncCode();
+		updateHeatmap();
+	}
+	
+	/**
+	 * Starts or stops recording the history of the virtual maschine for going back. Without a history runs and jumps use the engine,
+	 * with it they execute the microinstructions.
+	 * @param nrecorded true to record from the current state on, false to drop the history
+	 */
+	protected void setHistoryRecorded(boolean nrecorded)
+	{
+		runAhead.sync();
+		rechner.setHistory(nrecorded ? new History(HISTORY_SIZE) : null);
+		appendEvent(nrecorded ? "Recording the history\n" : "Not recording the history\n");
+	}
+	
+	/**
+	 * Shows the state of the virtual maschine after a number of instructions, without the steps in between
+	 * @param ninstructions Number of instructions to jump over
+	 */
+	protected void jump(long ninstructions)
+	{
+		long jumped = runAhead.jump(ninstructions);
+		appendEvent("Jumped over "+jumped+" instructions\n");
+		resyncCode();
+		updateHeatmap();
 	}
 	
 	/**
@@ -55,6 +156,7 @@ public class Controller
 	{
 		setStepTime(frm.getSliderValue());
 		frm.run();
+		resyncCode();
 		clock.run();
 	}
 	
@@ -65,6 +167,8 @@ public class Controller
 	{
 		frm.stop();
 		clock.halt();
+		resyncCode();
+		updateHeatmap();
 	}
 	
 	/**
@@ -88,6 +192,27 @@ public class Controller
 		view.setRegister(nregister, nvalue);
 	}
 	
+	/**
+	 * Returns the RAM after the virtual maschine followed the steps already shown
+	 * @return The RAM of the virtual maschine
+	 */
+	protected Ram getRAM()
+	{
+		runAhead.sync();
+		return rechner.getBackend();
+	}
+	
+	/**
+	 * Lets the next edit of the Codearea compare every line with the RAM, after the RAM was changed without an edit
+	 */
+	private void resyncCode()
+	{
+		if(liveAssembler != null)
+		{
+			liveAssembler.resync();
+		}
+	}
+	
 	/**
 	 * Sets the Codearea in the GUI to the content of the given file
 	 * @param nfile is the file to read
@@ -124,14 +249,34 @@ public class Controller
 	}
 
 	/**
-	 * Sends a provided String to the interpreter for interpetation and returns the resulting maschinecode
+	 * Sends a provided String to the interpreter for interpetation and returns the resulting maschinecode,
+	 * the errors found are shown in the console
 	 * @param input String to interpret
-	 * @return int-array the size of ram that represents the String in maschinecode 
+	 * @return ram of the kind and size of the current ram that represents the String in maschinecode,
+	 * the current ram itself if it is persistent
 	 */
-	protected int[] interpretInput(String input)
+	protected Ram interpretInput(String input)
 	{
-		return Interpreter.stringToRam(input, rechner.getRamSize());
-		
+		Ram tRAM = rechner.getBackend();
+		if(!tRAM.isPersistent())
+		{
+			tRAM = tRAM.createEmpty();
+		}
+		List<Assembler.Diagnostic> diagnostics = Interpreter.stringToRam(input, tRAM);
+		if(!diagnostics.isEmpty())
+		{
+			StringBuilder errors = new StringBuilder();
+			for(int i = 0; i < diagnostics.size() && i < MAX_DIAGNOSTICS; i++)
+			{
+				errors.append(diagnostics.get(i)).append("\n");
+			}
+			if(diagnostics.size() > MAX_DIAGNOSTICS)
+			{
+				errors.append(diagnostics.size()-MAX_DIAGNOSTICS).append(" more errors\n");
+			}
+			appendEvent(errors.toString());
+		}
+		return tRAM;
 	}
 	
 	/**
@@ -141,8 +286,56 @@ public class Controller
 	{
 		this.reset();
 		String input = frm.getTextFromCodeArea();
-		int[] tRAM = interpretInput(input);
+		Ram tRAM;
+		try
+		{
+			tRAM = interpretInput(input);
+		}
+		catch(ReadOnlyBufferException e)
+		{
+			appendEvent("The ram is read only and does not contain the program\n");
+			return;
+		}
 		rechner.setRam(tRAM);
+		runAhead.restart();
+		resyncCode();
+		updateHeatmap();
+	}
+	
+	/**
+	 * Writes the ramcells of the lines changed in the Codearea, without resetting the virtual maschine.
+	 * The lines of a dense RAM are updated in the RAM view, a paged RAM is shown again.
+	 * @param ncells The changed ramcells
+	 * @param ncodes Their new maschinecode
+	 * @param ncount Number of changed ramcells
+	 */
+	protected void patchRAM(int[] ncells, int[] ncodes, int ncount)
+	{
+		runAhead.sync();
+		Ram tRAM = rechner.getBackend();
+		try
+		{
+			for(int i = 0; i < ncount; i++)
+			{
+				if(ncells[i] < tRAM.getSize())
+				{
+					rechner.patch(ncells[i], ncodes[i]);
+					if(tRAM.array() != null && ncells[i] < MAX_VIEW_LINES)
+					{
+						view.updateRAMLine(ncells[i], formatRAMCell(ncells[i], ncodes[i]));
+					}
+				}
+			}
+		}
+		catch(ReadOnlyBufferException e)
+		{
+			//a read only ram keeps its content, setRAM reports it
+		}
+		if(tRAM.array() == null)
+		{
+			updateRAMAnimation(tRAM);
+		}
+		runAhead.restart();
 	}
 	
 	/**
@@ -155,31 +348,118 @@ public class Controller
 	}
 	
 	/**
-	 * Converts all RAM values to String; combines the to one and formats them
-	 * @param nRAM int-array that represents the RAM
+	 * Shows all RAM values in the GUI
+	 * @param nRAM the RAM
 	 */
-	protected void updateRAMAnimation(int[] nRAM)
+	protected void updateRAMAnimation(Ram nRAM)
 	{
-		int[] tRAM = nRAM;
-		String output = "";
+		updateRAMAnimation(formatRAM(nRAM));
+	}
+	
+	/**
+	 * Shows RAM values already formatted by formatRAM in the GUI
+	 * @param nRAM the formatted RAM
+	 */
+	protected void updateRAMAnimation(String nRAM)
+	{
+		view.updateRAMAnimation(nRAM);
+	}
+	
+	/**
+	 * Converts all RAM values to String; combines the to one and formats them.
+	 * Of a paged RAM only the allocated pages are shown, at most MAX_VIEW_LINES ramcells are shown.
+	 * @param nRAM the RAM
+	 * @return the formatted RAM
+	 */
+	static String formatRAM(Ram nRAM)
+	{
+		StringBuilder output = new StringBuilder(64*Math.min(nRAM.getSize(), 4096));
 		
-		for(int i = 0; i<tRAM.length;i++)
+		int lines = 0;
+		for(int i = nRAM.nextUsed(0); i<nRAM.getSize() && lines < MAX_VIEW_LINES;i = nRAM.nextUsed(i+1))
 		{
-			String tOut =  ""+ Integer.toHexString(tRAM[i]).toUpperCase();
-			String cell = ""+i;
-			while(tOut.length()<8)
-			{
-				tOut = "0" + tOut;
-			}
-			
-			while(cell.length()<3)
-			{
-				cell = "0"+cell;
-			}
-			
-			output = output + "  " + cell + " | " + tOut+" | " + Interpreter.opcodeToString(tRAM[i]) +"\n";
+			lines++;
+			output.append(formatRAMCell(i, nRAM.read(i)));
+		}
+		return output.toString();
+	}
+	
+	/**
+	 * Formats one line of the RAM view
+	 * @param ncell the ramcell
+	 * @param nvalue its content
+	 * @return the formatted line, with line break
+	 */
+	static String formatRAMCell(int ncell, int nvalue)
+	{
+		String tOut =  ""+ Integer.toHexString(nvalue).toUpperCase();
+		String cell = ""+ncell;
+		while(tOut.length()<8)
+		{
+			tOut = "0" + tOut;
 		}
-		view.updateRAMAnimation(output);
+		
+		while(cell.length()<3)
+		{
+			cell = "0"+cell;
+		}
+		
+		return "  "+cell+" | "+tOut+" | "+Interpreter.opcodeToString(nvalue)+"\n";
+	}
+
+	/**
+	 * Shows the accesses of the ramcells next to the RAM view. The virtual maschine first follows the steps already shown,
+	 * so the heatmap is only updated when the maschine halts or is stopped, jumps, steps back, is reset or assembled,
+	 * not for single steps.
+	 */
+	protected void updateHeatmap()
+	{
+		if(counters != null)
+		{
+			runAhead.sync();
+			view.updateHeatmap(formatHeat(rechner.getBackend(), counters));
+		}
+	}
+	
+	/**
+	 * Shows a table of the most accessed ramcells
+	 */
+	protected void showHotCells()
+	{
+		if(counters == null)
+		{
+			appendEvent("Accesses are only counted in a dense ram\n");
+			return;
+		}
+		runAhead.sync();
+		frm.showHotCells(counters, HOT_CELLS);
+	}
+	
+	/**
+	 * Converts the accesses of the ramcells shown by formatRAM to the heat of their lines,
+	 * on a logarithmic scale relative to the most accessed ramcell shown.
+	 * @param nRAM the RAM
+	 * @param ncounters the counters of the accesses of the RAM
+	 * @return the heat of every line, from 0 for a ramcell never accessed to 1 for the most accessed one
+	 */
+	static float[] formatHeat(Ram nRAM, AccessCounters ncounters)
+	{
+		int lines = 0;
+		long max = 0;
+		for(int i = nRAM.nextUsed(0); i<nRAM.getSize() && lines < MAX_VIEW_LINES;i = nRAM.nextUsed(i+1))
+		{
+			lines++;
+			max = Math.max(max, ncounters.getAccesses(i));
+		}
+		float[] heat = new float[lines];
+		double scale = Math.log(max+1);
+		lines = 0;
+		for(int i = nRAM.nextUsed(0); lines < heat.length;i = nRAM.nextUsed(i+1))
+		{
+			long accesses = ncounters.getAccesses(i);
+			heat[lines++] = accesses == 0 ? 0 : (float)(Math.log(accesses+1)/scale);
+		}
+		return heat;
 	}
 
 	/**
@@ -188,7 +468,14 @@ public class Controller
 	protected void reset() 
 	{
 		rechner.reset();
+		if(counters != null)
+		{
+			counters.reset();
+		}
 		frm.clearEvents();
+		runAhead.restart();
+		resyncCode();
+		updateHeatmap();
 	}
 	
 	/**
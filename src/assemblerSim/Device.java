@@ -0,0 +1,216 @@
+package assemblerSim;
+
+/**
+ * A device mapped into the ram by a DeviceBus. The ramcells of the device are its registers, indexed by their offset from the start.
+ * Reading and writing a register is done by the thread executing the program and must never block it,
+ * devices exchange their data with threads of the host through RingBuffers instead.
+ */
+public abstract class Device
+{
+	private final String name;
+	private final int size;
+
+	/**
+	 * Create a new device
+	 * @param nname Name used in the reports
+	 * @param nsize Number of registers
+	 */
+	protected Device(String nname, int nsize)
+	{
+		name = nname;
+		size = nsize;
+	}
+
+	/**
+	 * Returns the name of the device
+	 * @return The name used in the reports
+	 */
+	protected String getName()
+	{
+		return name;
+	}
+	/**
+	 * Returns the number of registers, the number of ramcells the device occupies
+	 * @return The number of registers
+	 */
+	protected int getSize()
+	{
+		return size;
+	}
+	/**
+	 * Reads a register
+	 * @param offset Index of the register
+	 * @param time Number of instructions the machine executed before
+	 * @return The value of the register
+	 */
+	protected abstract int read(int offset, long time);
+	/**
+	 * Writes a register
+	 * @param offset Index of the register
+	 * @param value The written value
+	 * @param time Number of instructions the machine executed before
+	 */
+	protected abstract void write(int offset, int value, long time);
+	/**
+	 * Resets the state of the device which belongs to the machine, the data exchanged with the host is left untouched
+	 */
+	protected void reset()
+	{
+	}
+	/**
+	 * Returns a report of the statistics of the device
+	 * @return The report in one line
+	 */
+	protected abstract String getReport();
+
+	/**
+	 * Character output stream: the program writes into register 0, the host polls the written values from the buffer.
+	 * Register 1 contains the number of free slots in the buffer, values written into a full buffer are dropped.
+	 */
+	public static class Output extends Device
+	{
+		private final RingBuffer buffer;
+		private long written;
+		private long dropped;
+
+		/**
+		 * Create a new output stream
+		 * @param ncapacity Number of values the buffer holds, has to be a power of two
+		 */
+		public Output(int ncapacity)
+		{
+			super("output", 2);
+			buffer = new RingBuffer(ncapacity);
+		}
+		/**
+		 * Returns the buffer the host polls the written values from
+		 * @return The buffer, the host thread is its only consumer
+		 */
+		protected RingBuffer getBuffer()
+		{
+			return buffer;
+		}
+		protected int read(int offset, long time)
+		{
+			return offset == 1 ? buffer.getCapacity()-buffer.size() : 0;
+		}
+		protected void write(int offset, int value, long time)
+		{
+			if(offset == 0)
+			{
+				if(buffer.offer(value))
+				{
+					written++;
+				}
+				else
+				{
+					dropped++;
+				}
+			}
+		}
+		protected String getReport()
+		{
+			return getName()+": "+written+" values written, "+dropped+" dropped\n";
+		}
+	}
+
+	/**
+	 * Input queue: the host offers values to the buffer, the program reads them from register 0, which is 0 if the buffer is empty.
+	 * Register 1 contains the number of values in the buffer, -1 if it is empty and the host closed the input.
+	 */
+	public static class Input extends Device
+	{
+		private final RingBuffer buffer;
+		private volatile boolean closed;
+		private long read;
+		private long underflows;
+
+		/**
+		 * Create a new input queue
+		 * @param ncapacity Number of values the buffer holds, has to be a power of two
+		 */
+		public Input(int ncapacity)
+		{
+			super("input", 2);
+			buffer = new RingBuffer(ncapacity);
+		}
+		/**
+		 * Returns the buffer the host offers the values to
+		 * @return The buffer, the host thread is its only producer
+		 */
+		protected RingBuffer getBuffer()
+		{
+			return buffer;
+		}
+		/**
+		 * Tells the program that the host offers no more values, called by the host after its last offer
+		 */
+		protected void close()
+		{
+			closed = true;
+		}
+		protected int read(int offset, long time)
+		{
+			if(offset == 1)
+			{
+				//closed has to be read first, otherwise the last values could be missed
+				boolean end = closed;
+				int size = buffer.size();
+				return size == 0 && end ? -1 : size;
+			}
+			if(offset == 0)
+			{
+				if(!buffer.isEmpty())
+				{
+					read++;
+					return buffer.poll();
+				}
+				underflows++;
+			}
+			return 0;
+		}
+		protected void write(int offset, int value, long time)
+		{
+		}
+		protected String getReport()
+		{
+			return getName()+": "+read+" values read, "+underflows+" reads of an empty buffer\n";
+		}
+	}
+
+	/**
+	 * Cycle counter: registers 0 and 1 contain the low and high word of the number of instructions executed since the counter was set.
+	 * Writing a value into register 0 sets the counter to it.
+	 */
+	public static class Timer extends Device
+	{
+		private long start;
+
+		/**
+		 * Create a new cycle counter
+		 */
+		public Timer()
+		{
+			super("timer", 2);
+		}
+		protected int read(int offset, long time)
+		{
+			return offset == 0 ? (int)(time-start) : (int)((time-start)>>>32);
+		}
+		protected void write(int offset, int value, long time)
+		{
+			if(offset == 0)
+			{
+				start = time-value;
+			}
+		}
+		protected void reset()
+		{
+			start = 0;
+		}
+		protected String getReport()
+		{
+			return getName()+": set at "+start+"\n";
+		}
+	}
+}
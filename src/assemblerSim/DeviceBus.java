@@ -0,0 +1,117 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps devices into reserved ranges of the ram (memory-mapped I/O).
+ * The operands of LOAD, STORE, XCHG and the arithmetic and logic instructions, directly or indirectly adressed, are routed to the device
+ * mapped at their adress: a read is done by the device right before the instruction reads the ramcell, a write right after the instruction
+ * wrote it. The ramcell keeps the last value read or written, so pointers, jump adresses, the descriptors and regions of bulk instructions
+ * and fetched instructions see this value without accessing the device. An indirect instruction whose pointer is the ramcell it points to
+ * reads the ramcell without accessing the device.
+ *
+ * A HeadlessRechner executes every instruction on its own while a bus is set, like while caches are simulated.
+ * The Translator, the PipelineModel and the MultiCoreRechner do not support devices.
+ */
+public class DeviceBus
+{
+	/**
+	 * Device mapped at each ramcell, null if the ramcell is plain ram
+	 */
+	private final Device[] mapped;
+	/**
+	 * First ramcell of the device mapped at each ramcell
+	 */
+	private final int[] starts;
+	private final List<Device> devices = new ArrayList<Device>();
+
+	/**
+	 * Create a new bus without any devices
+	 * @param nramSize Size of the ram
+	 */
+	public DeviceBus(int nramSize)
+	{
+		mapped = new Device[nramSize];
+		starts = new int[nramSize];
+	}
+
+	/**
+	 * Maps a device into the ram
+	 * @param start The ramcell of register 0 of the device
+	 * @param device The device
+	 * @throws IllegalArgumentException If the device does not fit into the ram or overlaps another device
+	 */
+	protected void map(int start, Device device)
+	{
+		if(start < 0 || start > mapped.length-device.getSize())
+		{
+			throw new IllegalArgumentException("The device "+device.getName()+" at "+start+" does not fit into the ram");
+		}
+		for(int i = start; i < start+device.getSize(); i++)
+		{
+			if(mapped[i] != null)
+			{
+				throw new IllegalArgumentException("The device "+device.getName()+" at "+start+" overlaps the device "+mapped[i].getName());
+			}
+		}
+		for(int i = start; i < start+device.getSize(); i++)
+		{
+			mapped[i] = device;
+			starts[i] = start;
+		}
+		devices.add(device);
+	}
+	/**
+	 * Checks whether a device is mapped at a ramcell
+	 * @param address The ramcell, may be outside of the ram
+	 * @return true, if accesses of the ramcell are routed to a device
+	 */
+	protected boolean isMapped(int address)
+	{
+		return address >= 0 && address < mapped.length && mapped[address] != null;
+	}
+	/**
+	 * Reads a register of a device
+	 * @param address A mapped ramcell
+	 * @param time Number of instructions the machine executed before
+	 * @return The value of the register
+	 */
+	protected int read(int address, long time)
+	{
+		return mapped[address].read(address-starts[address], time);
+	}
+	/**
+	 * Writes a register of a device
+	 * @param address A mapped ramcell
+	 * @param value The written value
+	 * @param time Number of instructions the machine executed before
+	 */
+	protected void write(int address, int value, long time)
+	{
+		mapped[address].write(address-starts[address], value, time);
+	}
+	/**
+	 * Resets all devices
+	 */
+	protected void reset()
+	{
+		for(Device device : devices)
+		{
+			device.reset();
+		}
+	}
+	/**
+	 * Returns a report of the statistics of all devices
+	 * @return The report, one line per device
+	 */
+	protected String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		for(Device device : devices)
+		{
+			report.append(device.getReport());
+		}
+		return report.toString();
+	}
+}
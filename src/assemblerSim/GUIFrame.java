@@ -9,6 +9,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
@@ -18,6 +19,7 @@ import javax.swing.JSlider;
 import javax.swing.JTextArea;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.text.Document;
 
 /**
  * This class creates the GUI Frame and the GUI elements.
@@ -44,10 +46,14 @@ public class GUIFrame extends JFrame
 	private JButton save = new JButton("Save");
 	private JButton load = new JButton("Open");
 	private JButton step = new JButton("Step");
+	private JButton back = new JButton("Back");
+	private JButton jump = new JButton("Jump");
 	private JButton run = new JButton("Run");
 	private JButton stop = new JButton("Stop");
 	private JButton reset = new JButton("Reset");
 	private JButton toRAM = new JButton("Assemble");
+	private JButton hot = new JButton("Hot cells");
+	private JCheckBox record = new JCheckBox("Record");
 	private JLabel sliderLabel = new JLabel("Speed");
 	private JLabel slowLabel = new JLabel("slow");
 	private JLabel fastLabel = new JLabel("fast");
@@ -146,6 +152,29 @@ public class GUIFrame extends JFrame
 			}
 		});
 		
+		// Back-Button
+		add(back);
+		back.setBounds(this.getWidth()-BUTTON_WIDTH,210,BUTTON_WIDTH,BUTTON_HEIGHT);
+		back.setEnabled(false);
+		back.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				parent.stepBack();
+			}
+		});
+		
+		// Jump-Button
+		add(jump);
+		jump.setBounds(this.getWidth()-BUTTON_WIDTH,240,BUTTON_WIDTH,BUTTON_HEIGHT);
+		jump.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				jump();
+			}
+		});
+		
 		// Stop-Button
 		add(stop);
 		stop.setBounds(this.getWidth()-BUTTON_WIDTH,150,BUTTON_WIDTH,BUTTON_HEIGHT);
@@ -158,17 +187,40 @@ public class GUIFrame extends JFrame
 			}
 		});
 		
+		// Hot-Cells-Button
+		add(hot);
+		hot.setBounds(this.getWidth()-BUTTON_WIDTH,550,BUTTON_WIDTH,BUTTON_HEIGHT);
+		hot.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				parent.showHotCells();
+			}
+		});
+		
+		// Record-Checkbox, the history slows down runs and jumps, so it is only recorded on demand
+		add(record);
+		record.setBounds(this.getWidth()-BUTTON_WIDTH,580,BUTTON_WIDTH,BUTTON_HEIGHT);
+		record.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				parent.setHistoryRecorded(record.isSelected());
+				back.setEnabled(record.isSelected());
+			}
+		});
+		
 		// Label for the clock elements
 		add(sliderLabel);
-		sliderLabel.setBounds(this.getWidth()-BUTTON_WIDTH,220,BUTTON_WIDTH,20);
+		sliderLabel.setBounds(this.getWidth()-BUTTON_WIDTH,280,BUTTON_WIDTH,20);
 
 		add(slowLabel);
 		add(fastLabel);
-		slowLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),240,BUTTON_WIDTH,20);
-		fastLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),460,BUTTON_WIDTH,20);
+		slowLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),300,BUTTON_WIDTH,20);
+		fastLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),520,BUTTON_WIDTH,20);
 		// Clock-Slider
 		add(slider);
-		slider.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),260,BUTTON_WIDTH,200);
+		slider.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),320,BUTTON_WIDTH,200);
 		slider.setMajorTickSpacing(1000);
 		slider.setMinorTickSpacing(500);
 		slider.setPaintTicks(true);
@@ -226,6 +278,15 @@ public class GUIFrame extends JFrame
 		return this.area.getText();
 	}
 	
+	/**
+	 * Returns the document of the codefield, to follow its edits
+	 * @return document of the codefield
+	 */
+	protected Document getCodeDocument()
+	{
+		return this.area.getDocument();
+	}
+	
 	/**
 	 * appends a provided string to the console
 	 * @param nEvent String to be appended to the console
@@ -250,9 +311,14 @@ public class GUIFrame extends JFrame
 	void run()
 	{
 		step.setEnabled(false);
+		back.setEnabled(false);
+		jump.setEnabled(false);
 		run.setEnabled(false);
 		reset.setEnabled(false);
 		toRAM.setEnabled(false);
+		hot.setEnabled(false);
+		record.setEnabled(false);
+		area.setEditable(false);
 		stop.setEnabled(true);
 	}
 	
@@ -262,9 +328,14 @@ public class GUIFrame extends JFrame
 	void stop()
 	{
 		step.setEnabled(true);
+		back.setEnabled(record.isSelected());
+		jump.setEnabled(true);
 		run.setEnabled(true);
 		reset.setEnabled(true);
 		toRAM.setEnabled(true);
+		hot.setEnabled(true);
+		record.setEnabled(true);
+		area.setEditable(true);
 		stop.setEnabled(false);
 	}
 	
@@ -293,6 +364,35 @@ public class GUIFrame extends JFrame
         }
 	}
 	
+	/**
+	 * Ask for a number of instructions and let the controller jump over them
+	 */
+	void jump()
+	{
+		String input = JOptionPane.showInputDialog(this, "Number of instructions to jump over", "100");
+		if(input != null)
+		{
+			try
+			{
+				parent.jump(Long.parseLong(input.trim()));
+			}
+			catch(NumberFormatException e)
+			{
+				JOptionPane.showMessageDialog(this, "Not a number: " + input);
+			}
+		}
+	}
+	
+	/**
+	 * Shows the table of the most accessed ramcells
+	 * @param ncounters the counters of the accesses
+	 * @param nmaxCells maximum number of ramcells in the table
+	 */
+	void showHotCells(AccessCounters ncounters, int nmaxCells)
+	{
+		new HotCells(this, ncounters, nmaxCells).setVisible(true);
+	}
+	
 	/**
 	 * Open FileChooser and supply the controller with a file object to write to
 	 */
@@ -345,7 +445,11 @@ public class GUIFrame extends JFrame
 		toRAM.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),toRAM.getY(),toRAM.getWidth(),toRAM.getHeight());
 		run.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),run.getY(),run.getWidth(),run.getHeight());
 		step.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),step.getY(),step.getWidth(),step.getHeight());
+		back.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),back.getY(),back.getWidth(),back.getHeight());
+		jump.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),jump.getY(),jump.getWidth(),jump.getHeight());
 		stop.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),stop.getY(),stop.getWidth(),stop.getHeight());
+		hot.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),hot.getY(),hot.getWidth(),hot.getHeight());
+		record.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),record.getY(),record.getWidth(),record.getHeight());
 		slider.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),slider.getY(),slider.getWidth(),slider.getHeight());
 		slowLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),slowLabel.getY(),slowLabel.getWidth(),slowLabel.getHeight());
 		fastLabel.setBounds(this.getWidth()-(BUTTON_SPACER+BUTTON_WIDTH),fastLabel.getY(),fastLabel.getWidth(),fastLabel.getHeight());
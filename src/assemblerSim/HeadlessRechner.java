@@ -0,0 +1,1831 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulates a VonNeuman-machine without any GUI.
+ * Every step executes a whole instruction (FETCH, INDIRECT and EXECUTE at once) instead of a single microinstruction.
+ * After each step the registers and the ram are in the same state as they are in the VonNeumannRechner after the EXECUTE-cycle of the same instruction.
+ */
+public class HeadlessRechner
+{
+	/*
+	 * Program Variables
+	 */
+	int accumulator;
+	int valueRegister;
+	int instructionRegister;
+	int programCounter;
+	int addressRegister;
+	int indexRegister;
+	/**
+	 * Return adresses pushed by CALL, the stackpointer is the number of adresses on the stack
+	 */
+	final int[] returnStack = new int[RETURN_STACK_SIZE];
+	int stackPointer;
+	int[] ram;
+	/**
+	 * Mask used for direct addresses, equals 0xFFFFFF%ram.length like in VonNeumannRechner.loadAddress()
+	 */
+	private int addressMask;
+	/**
+	 * Decoded instructions of the ramcells, null if a ramcell has not been decoded yet
+	 */
+	Handler[] handlers;
+	/**
+	 * Decoded operands of the ramcells, only valid if the handler of the ramcell is set
+	 */
+	int[] operands;
+	long instructionCount;
+	/**
+	 * Regions of the last bulk instruction, reported to the simulated caches: the destination or first region
+	 * and the source or second region, for MEMSET the value
+	 */
+	int bulkFirst;
+	int bulkSecond;
+	/**
+	 * Pages of ramcells written since the ram was last restored by reset(int[]), one bit per page
+	 */
+	private long[] dirty;
+	/**
+	 * The image the ram was last restored from by reset(int[]), the dirty pages are the differences to it, null for none
+	 */
+	private int[] image;
+	/**
+	 * The dense ram sharing the array with this machine, it records the written ramcells for its snapshots, null for none
+	 */
+	private Ram.Dense backend;
+	/**
+	 * A page tracked for reset(int[]) has 1<<DIRTY_PAGE_BITS ramcells
+	 */
+	public final static int DIRTY_PAGE_BITS = 6;
+	/**
+	 * Number of return adresses the return stack holds, CALL on a full stack stops with STATUS_STACK_OVERFLOW, RET on an empty stack with STATUS_STACK_UNDERFLOW
+	 */
+	public final static int RETURN_STACK_SIZE = 32;
+	
+	/*
+	 * Tiered execution
+	 */
+	private boolean tiered = true;
+	/**
+	 * Number of entries into a basic block, after which it gets compiled
+	 */
+	public final static int COMPILE_THRESHOLD = 50;
+	/**
+	 * Number of times a block may be deoptimized, before its start address is not compiled again
+	 */
+	public final static int MAX_DEOPTIMIZATIONS = 8;
+	/**
+	 * Compiled blocks indexed by their start address
+	 */
+	private CompiledBlock[] blocks;
+	/**
+	 * Compiled block containing the ramcell, used to deoptimize blocks when their code gets overwritten
+	 */
+	private CompiledBlock[] blockAt;
+	private int[] entryCounts;
+	private byte[] deoptimizations;
+	
+	/*
+	 * Superinstructions
+	 */
+	private boolean fusion = true;
+	/**
+	 * Statistics of the superinstructions, indexed by the opcodes of the fused sequences
+	 */
+	private Map<String, long[]> fusionStatistics = new HashMap<String, long[]>();
+
+	/*
+	 * Bounded execution
+	 */
+	/**
+	 * Number of instructions runUntil() executes between two checks of the deadline and the cancellation
+	 */
+	public final static int CHECK_INTERVAL = 1024;
+	private volatile boolean cancelled;
+
+	/**
+	 * Simulated caches, which are told about every access of the ram, null if no caches are simulated
+	 */
+	private MemoryHierarchy memory;
+	/**
+	 * Simulated branch predictors, which are told about every conditional jump, null if no branch predictors are simulated
+	 */
+	private BranchStatistics branches;
+	/**
+	 * Devices mapped into the ram, null if the ram has no devices
+	 */
+	private DeviceBus devices;
+	/**
+	 * Detector of endless loops, which is told about every write into the ram, null if loops are not detected
+	 */
+	private LoopDetector loops;
+	/**
+	 * True, if caches, branch predictors or devices are simulated, so every instruction has to be dispatched on its own
+	 */
+	private boolean traced;
+
+	int status;
+	public final static int STATUS_READY = 0;
+	public final static int STATUS_HALT = 1;
+	public final static int STATUS_BREAK = 2;
+	public final static int STATUS_END_OF_RAM = 3;
+	public final static int STATUS_STACK_OVERFLOW = 4;
+	public final static int STATUS_STACK_UNDERFLOW = 5;
+
+	/**
+	 * Create a new instance of HeadlessRechner with an empty ram
+	 * @param nramSize Size of the ram
+	 */
+	public HeadlessRechner(int nramSize)
+	{
+		this(new int[nramSize]);
+	}
+
+	/**
+	 * Create a new instance of HeadlessRechner
+	 * @param nram The ram content, e.g. created by Interpreter.stringToRam
+	 */
+	public HeadlessRechner(int[] nram)
+	{
+		setRam(nram);
+	}
+
+	/**
+	 * Sets a new ram content
+	 * @param nram The new ram content
+	 */
+	protected void setRam(int[] nram)
+	{
+		ram = nram;
+		addressMask = 0xFFFFFF%ram.length;
+		handlers = new Handler[ram.length];
+		operands = new int[ram.length];
+		blocks = new CompiledBlock[ram.length];
+		blockAt = new CompiledBlock[ram.length];
+		entryCounts = new int[ram.length];
+		deoptimizations = new byte[ram.length];
+		dirty = new long[((ram.length-1>>DIRTY_PAGE_BITS)>>6)+1];
+		Arrays.fill(dirty, -1L);
+		image = null;
+		if(loops != null)
+		{
+			loops.reset(ram);
+		}
+	}
+	/**
+	 * Returns the content of the ram
+	 * @return The content of the ram
+	 */
+	protected int[] getRam()
+	{
+		return ram;
+	}
+	/**
+	 * Returns the number of lines in the ram
+	 * @return The number of lines in the ram
+	 */
+	protected int getRamSize()
+	{
+		return ram.length;
+	}
+	/**
+	 * Resets the registers of the VonNeumann-Machine, the ram is left untouched
+	 */
+	protected void reset()
+	{
+		accumulator = 0;
+		valueRegister = 0;
+		instructionRegister = 0;
+		programCounter = 0;
+		addressRegister = 0;
+		indexRegister = 0;
+		stackPointer = 0;
+		Arrays.fill(returnStack, 0);
+		instructionCount = 0;
+		for(long[] statistics : fusionStatistics.values())
+		{
+			statistics[Superinstruction.STAT_EXECUTIONS] = 0;
+		}
+		status = STATUS_READY;
+		if(loops != null)
+		{
+			loops.reset(ram);
+		}
+	}
+	/**
+	 * Resets the registers and restores the ram from an image, e.g. the program before it ran, so the machine can be used again.
+	 * Only the pages written since the last restore are compared with the image, the differing ramcells are copied back in runs.
+	 * The written pages are only the differences to the image of the last restore, so an image which is not the same array
+	 * is compared in full, like in the first restore after the ram was set. The image must not be changed between two restores.
+	 * Decoded instructions and compiled blocks of the ramcells which did not change are kept.
+	 * @param nimage The ram content to restore, as long as the ram
+	 */
+	protected void reset(int[] nimage)
+	{
+		if(nimage.length != ram.length)
+		{
+			throw new IllegalArgumentException("The image has "+nimage.length+" ramcells, the ram "+ram.length);
+		}
+		if(nimage != image)
+		{
+			Arrays.fill(dirty, -1L);
+			image = nimage;
+		}
+		for(int word = 0; word < dirty.length; word++)
+		{
+			for(long bits = dirty[word]; bits != 0; bits &= bits-1)
+			{
+				int first = (word<<6|Long.numberOfTrailingZeros(bits))<<DIRTY_PAGE_BITS;
+				int end = Math.min(first+(1<<DIRTY_PAGE_BITS), ram.length);
+				for(int i = first; i < end; i++)
+				{
+					if(ram[i] != nimage[i])
+					{
+						int run = i+1;
+						while(run < end && ram[run] != nimage[run])
+						{
+							run++;
+						}
+						System.arraycopy(nimage, i, ram, i, run-i);
+						written(i, run-i);
+						i = run;
+					}
+				}
+			}
+			dirty[word] = 0;
+		}
+		reset();
+	}
+
+	/**
+	 * Returns the content of the accumulator
+	 * @return The content of the accumulator
+	 */
+	protected int getAccumulator()
+	{
+		return accumulator;
+	}
+	/**
+	 * Returns the content of the valueregister
+	 * @return The content of the valueregister
+	 */
+	protected int getValueRegister()
+	{
+		return valueRegister;
+	}
+	/**
+	 * Returns the content of the instructionregister
+	 * @return The content of the instructionregister
+	 */
+	protected int getInstructionRegister()
+	{
+		return instructionRegister;
+	}
+	/**
+	 * Returns the content of the programcounter
+	 * @return The content of the programcounter
+	 */
+	protected int getProgramCounter()
+	{
+		return programCounter;
+	}
+	/**
+	 * Returns the content of the adressregister
+	 * @return The content of the adressregister
+	 */
+	protected int getAddressRegister()
+	{
+		return addressRegister;
+	}
+	/**
+	 * Returns the content of the indexregister
+	 * @return The content of the indexregister
+	 */
+	protected int getIndexRegister()
+	{
+		return indexRegister;
+	}
+	/**
+	 * Returns the number of return adresses on the return stack
+	 * @return The content of the stackpointer
+	 */
+	protected int getStackPointer()
+	{
+		return stackPointer;
+	}
+	/**
+	 * Returns the return stack, the adresses below the stackpointer are on the stack
+	 * @return The return stack, changes are seen by the machine
+	 */
+	protected int[] getReturnStack()
+	{
+		return returnStack;
+	}
+	/**
+	 * Sets a register, e.g. to continue a program translated by the Translator
+	 * @param nregister Defines which register to set, one of the register constants of VonNeumannRechner
+	 * @param nvalue The new value of the register
+	 */
+	protected void setRegister(int nregister, int nvalue)
+	{
+		switch(nregister)
+		{
+		case VonNeumannRechner.ACCUMULATOR:
+			accumulator = nvalue;
+			break;
+		case VonNeumannRechner.VALUEREGISTER:
+			valueRegister = nvalue;
+			break;
+		case VonNeumannRechner.INSTRUCTIONREGISTER:
+			instructionRegister = nvalue;
+			break;
+		case VonNeumannRechner.PROGRAMMCOUNTER:
+			programCounter = nvalue;
+			break;
+		case VonNeumannRechner.ADDRESSREGISTER:
+			addressRegister = nvalue;
+			break;
+		case VonNeumannRechner.INDEXREGISTER:
+			indexRegister = nvalue;
+			break;
+		case VonNeumannRechner.STACKPOINTER:
+			stackPointer = nvalue;
+			break;
+		}
+	}
+	/**
+	 * Returns the number of instructions executed since the last reset
+	 * @return The number of executed instructions
+	 */
+	protected long getInstructionCount()
+	{
+		return instructionCount;
+	}
+	/**
+	 * Returns the state of the machine
+	 * @return One of the STATUS_ constants
+	 */
+	protected int getStatus()
+	{
+		return status;
+	}
+	/**
+	 * Checks whether the machine executed a HALT-instruction
+	 * Like in the VonNeumannRechner, reaching the end of the ram only stops the machine like a breakpoint, the next step executes the last ramcell again.
+	 * @return true, if no more instructions can be executed
+	 */
+	protected boolean isHalted()
+	{
+		return status == STATUS_HALT;
+	}
+
+	/**
+	 * Enables or disables the compilation of frequently executed basic blocks
+	 * @param ntiered true to compile hot blocks, false to only interpret
+	 */
+	protected void setTiered(boolean ntiered)
+	{
+		tiered = ntiered;
+		if(!tiered)
+		{
+			invalidateBlocks();
+		}
+	}
+	
+	/**
+	 * Enables or disables the fusion of common instruction sequences into superinstructions
+	 * @param nfusion true to fuse sequences, false to execute every instruction on its own
+	 */
+	protected void setFusion(boolean nfusion)
+	{
+		fusion = nfusion;
+		invalidate();
+	}
+	/**
+	 * Sets the simulated caches. While caches are simulated, every instruction is executed on its own and reported to the caches,
+	 * so neither blocks nor superinstructions are used.
+	 * @param nmemory The caches, null to stop simulating caches
+	 */
+	protected void setMemoryHierarchy(MemoryHierarchy nmemory)
+	{
+		memory = nmemory;
+		traced = memory != null || branches != null || devices != null;
+	}
+	/**
+	 * Sets the simulated branch predictors. While branch predictors are simulated, every instruction is executed on its own,
+	 * so neither blocks nor superinstructions are used.
+	 * @param nbranches The branch predictors, null to stop simulating branch predictors
+	 */
+	protected void setBranchStatistics(BranchStatistics nbranches)
+	{
+		branches = nbranches;
+		traced = memory != null || branches != null || devices != null;
+	}
+	/**
+	 * Sets the devices mapped into the ram. While devices are mapped, every instruction is executed on its own,
+	 * so neither blocks nor superinstructions are used.
+	 * @param ndevices The devices, null to use the whole ram as plain ram
+	 */
+	protected void setDeviceBus(DeviceBus ndevices)
+	{
+		devices = ndevices;
+		traced = memory != null || branches != null || devices != null;
+	}
+	/**
+	 * Sets the detector of endless loops, which stops runUntil() with StopReason.LOOP when the machine returns to a state it was in before.
+	 * Blocks and superinstructions are still used, but not across the instructions at which the state is checked.
+	 * @param nloops The detector for a ram of the current size, null to stop detecting loops
+	 */
+	protected void setLoopDetector(LoopDetector nloops)
+	{
+		loops = nloops;
+		if(loops != null)
+		{
+			loops.reset(ram);
+		}
+	}
+	/**
+	 * Sets the dense ram sharing its array with this machine, which is told about every written ramcell
+	 * @param nbackend The ram whose array this machine executes, null for none
+	 */
+	protected void setBackend(Ram.Dense nbackend)
+	{
+		backend = nbackend;
+	}
+	/**
+	 * Returns a report of the fused instruction sequences and of the dispatches they saved since the last reset
+	 * @return The report, one line per fused sequence of opcodes, the sequences saving the most dispatches first
+	 */
+	protected String getFusionReport()
+	{
+		List<Map.Entry<String, long[]>> sequences = new ArrayList<Map.Entry<String, long[]>>(fusionStatistics.entrySet());
+		Collections.sort(sequences, new Comparator<Map.Entry<String, long[]>>()
+		{
+			public int compare(Map.Entry<String, long[]> a, Map.Entry<String, long[]> b)
+			{
+				long savedA = savedDispatches(a);
+				long savedB = savedDispatches(b);
+				return savedA < savedB ? 1 : (savedA > savedB ? -1 : a.getKey().compareTo(b.getKey()));
+			}
+		});
+		StringBuilder report = new StringBuilder();
+		long saved = 0;
+		for(Map.Entry<String, long[]> sequence : sequences)
+		{
+			long[] statistics = sequence.getValue();
+			saved += savedDispatches(sequence);
+			report.append(sequence.getKey()).append(": ").append(statistics[Superinstruction.STAT_FUSED]).append(" times fused, ");
+			report.append(statistics[Superinstruction.STAT_EXECUTIONS]).append(" executions, ").append(savedDispatches(sequence)).append(" dispatches saved\n");
+		}
+		report.append("Dispatches: ").append(instructionCount-saved).append(" for ").append(instructionCount).append(" instructions\n");
+		return report.toString();
+	}
+	/**
+	 * Calculates the number of dispatches saved by a fused sequence
+	 * @param sequence The opcodes of the sequence and its statistics
+	 * @return The number of saved dispatches since the last reset
+	 */
+	private static long savedDispatches(Map.Entry<String, long[]> sequence)
+	{
+		int length = sequence.getKey().split("/").length;
+		return sequence.getValue()[Superinstruction.STAT_EXECUTIONS]*(length-1);
+	}
+	
+	/**
+	 * Executes instructions until the machine halts, a breakpoint or the end of the ram is reached
+	 * @return The state of the machine afterwards
+	 */
+	protected int run()
+	{
+		if(status != STATUS_HALT)
+		{
+			status = STATUS_READY;
+		}
+		boolean blockStart = true;
+		while(status == STATUS_READY)
+		{
+			if(blockStart && tiered && !traced && enterBlock())
+			{
+				continue;
+			}
+			blockStart = dispatch(true);
+		}
+		return status;
+	}
+
+	/**
+	 * Executes instructions until the machine stops, the budget is used up, the deadline passed or the run is cancelled.
+	 * The budget is exact, the deadline and the cancellation are only checked every CHECK_INTERVAL instructions.
+	 * If a LoopDetector is set, the state of the machine is checked whenever the instruction count is a multiple of
+	 * LoopDetector.CHECK_INTERVAL, except while devices are mapped.
+	 * @param maxInstructions Maximum number of instructions to execute
+	 * @param deadline Time in milliseconds like System.currentTimeMillis(), after which the run stops, Long.MAX_VALUE for none
+	 * @return The reason why the run stopped
+	 */
+	protected StopReason runUntil(long maxInstructions, long deadline)
+	{
+		if(status != STATUS_HALT)
+		{
+			status = STATUS_READY;
+		}
+		long limit = instructionCount+Math.min(maxInstructions, Long.MAX_VALUE-instructionCount);
+		boolean blockStart = true;
+		while(status == STATUS_READY)
+		{
+			checkShared();
+			if(cancelled)
+			{
+				cancelled = false;
+				return StopReason.CANCELLED;
+			}
+			if(System.currentTimeMillis() >= deadline)
+			{
+				return StopReason.DEADLINE;
+			}
+			if(instructionCount >= limit)
+			{
+				return StopReason.BUDGET;
+			}
+			long checkpoint = instructionCount+Math.min(CHECK_INTERVAL, limit-instructionCount);
+			long end = limit;
+			if(loops != null && devices == null)
+			{
+				if(instructionCount%LoopDetector.CHECK_INTERVAL == 0 && loops.check(ram, programCounter, accumulator, indexRegister, returnStack, stackPointer))
+				{
+					return StopReason.LOOP;
+				}
+				//the states have to be checked exactly LoopDetector.CHECK_INTERVAL instructions apart to find every loop
+				end = Math.min(limit, (instructionCount/LoopDetector.CHECK_INTERVAL+1)*LoopDetector.CHECK_INTERVAL);
+				checkpoint = Math.min(checkpoint, end);
+			}
+			while(status == STATUS_READY && instructionCount < checkpoint)
+			{
+				//blocks and superinstructions execute several instructions at once, so they are not used at the end of the budget
+				if(end-instructionCount > CompiledBlock.MAX_LENGTH)
+				{
+					if(blockStart && tiered && !traced && enterBlock())
+					{
+						continue;
+					}
+					blockStart = dispatch(true);
+				}
+				else
+				{
+					blockStart = dispatch(false);
+				}
+			}
+		}
+		return stopReason(status);
+	}
+	/**
+	 * Returns the reason why a machine with a state stopped
+	 * @param nstatus One of the STATUS_ constants
+	 * @return The reason, null for STATUS_READY
+	 */
+	static StopReason stopReason(int nstatus)
+	{
+		switch(nstatus)
+		{
+		case STATUS_READY:
+			return null;
+		case STATUS_HALT:
+			return StopReason.HALT;
+		case STATUS_BREAK:
+			return StopReason.BREAK;
+		case STATUS_STACK_OVERFLOW:
+			return StopReason.STACK_OVERFLOW;
+		case STATUS_STACK_UNDERFLOW:
+			return StopReason.STACK_UNDERFLOW;
+		default:
+			return StopReason.END_OF_RAM;
+		}
+	}
+	/**
+	 * Stops a running runUntil() from another thread. If no run is active, the next run stops at once.
+	 */
+	protected void cancel()
+	{
+		cancelled = true;
+	}
+	/**
+	 * Called by runUntil() every CHECK_INTERVAL instructions, before the cancellation is checked, for machines sharing their ram
+	 * with other threads. Does nothing here.
+	 */
+	void checkShared()
+	{
+	}
+	/**
+	 * Forgets a cancel() which did not stop a run yet, so the next run is not stopped by it
+	 */
+	void clearCancel()
+	{
+		cancelled = false;
+	}
+
+	/**
+	 * Executes the next instruction on the VonNeumann-Machine
+	 */
+	protected void step()
+	{
+		if(status == STATUS_HALT)
+		{
+			return;
+		}
+		status = STATUS_READY;
+		dispatch(false);
+	}
+	/**
+	 * Fetches, decodes and executes the instruction the programcounter points to
+	 * @param fused true, if a superinstruction may be executed instead of a single instruction
+	 * @return true, if the instruction was a jump, so the next instruction starts a basic block
+	 */
+	private boolean dispatch(boolean fused)
+	{
+		//FETCH
+		int address = programCounter;
+		if(address < 0 || address >= ram.length)
+		{
+			//every instruction but a jump ends the program here, so the instructions must not be fused
+			address = address%ram.length;
+			fused = false;
+		}
+		if(traced)
+		{
+			fused = false;
+		}
+		addressRegister = address;
+		instructionRegister = ram[address];
+		//INDIRECT and EXECUTE
+		Handler handler = handlers[address];
+		if(handler == null)
+		{
+			handler = decode(address);
+		}
+		if(handler.length > 1 && !fused)
+		{
+			handler = HANDLERS[Opcodes.decode(instructionRegister).ordinal()];
+		}
+		if(devices != null)
+		{
+			input(address);
+		}
+		handler.execute(this, operands[address]);
+		if(!handler.jump)
+		{
+			increaseProgramCounter();
+		}
+		if(traced)
+		{
+			trace(address);
+		}
+		instructionCount += handler.length;
+		return handler.jump;
+	}
+	/**
+	 * Lets the device mapped at the operand of the instruction provide the value the instruction reads
+	 * @param address The ramcell the instruction was fetched from
+	 */
+	private void input(int address)
+	{
+		Opcodes command = Opcodes.decode(instructionRegister);
+		if(command.readsRam() && !command.isJump() && !command.isBulk())
+		{
+			int effective = operands[address];
+			if(command.isIndirect())
+			{
+				effective = ram[effective]%ram.length;
+			}
+			else if(command.isIndexed())
+			{
+				effective = (effective+indexRegister)%ram.length;
+			}
+			//a pointer pointing to itself has to be read before the device changes it, so it is not routed
+			if(devices.isMapped(effective) && !(command.isIndirect() && effective == operands[address]))
+			{
+				setRam(effective, devices.read(effective, instructionCount));
+			}
+		}
+	}
+	/**
+	 * Reports an executed instruction to the simulated caches, branch predictors and devices
+	 * @param address The ramcell the instruction was fetched from
+	 */
+	private void trace(int address)
+	{
+		Opcodes command = Opcodes.decode(instructionRegister);
+		if(devices != null && command.writesRam() && !command.isBulk() && devices.isMapped(addressRegister))
+		{
+			devices.write(addressRegister, ram[addressRegister], instructionCount);
+		}
+		if(memory != null)
+		{
+			memory.executed(address, instructionRegister, operands[address], addressRegister, accumulator);
+		}
+		if(memory != null && command.isBulk())
+		{
+			memory.bulk(command, operands[address], bulkFirst, bulkSecond, valueRegister);
+		}
+		if(branches != null && command.isConditionalJump())
+		{
+			int target = command.ordinal() >= Opcodes.JMPM.ordinal() && command.ordinal() <= Opcodes.JMPLEM.ordinal() ? operands[address] : ram[addressRegister];
+			branches.branch(address, target, command.isJumpTaken(accumulator));
+		}
+	}
+	/**
+	 * Executes the compiled block starting at the programcounter, counts the entry and compiles the block if it is not compiled yet
+	 * @return true, if a compiled block was executed
+	 */
+	private boolean enterBlock()
+	{
+		int address = programCounter;
+		if(address < 0 || address >= ram.length)
+		{
+			return false;
+		}
+		CompiledBlock block = blocks[address];
+		if(block == null)
+		{
+			if(++entryCounts[address] < COMPILE_THRESHOLD || deoptimizations[address] >= MAX_DEOPTIMIZATIONS)
+			{
+				return false;
+			}
+			entryCounts[address] = 0;
+			block = compile(address);
+			if(block == null)
+			{
+				return false;
+			}
+		}
+		block.execute(this);
+		return true;
+	}
+	/**
+	 * Compiles the basic block starting at the given address.
+	 * The block ends with the first jump, before a HALT or BREAK, before a ramcell contained in another block and before the last ramcell.
+	 * Superinstructions are only part of the block, if all their ramcells are.
+	 * @param start The start address of the block
+	 * @return The compiled block or null, if there is no block to compile at the address
+	 */
+	private CompiledBlock compile(int start)
+	{
+		int end = start;
+		while(end < ram.length-1 && end-start < CompiledBlock.MAX_LENGTH && blockAt[end] == null)
+		{
+			Handler handler = handlers[end];
+			if(handler == null)
+			{
+				handler = decode(end);
+			}
+			if(handler == HANDLERS[Opcodes.HALT.ordinal()] || handler == HANDLERS[Opcodes.BREAK.ordinal()])
+			{
+				break;
+			}
+			if(handler.length > 1 && !fits(end, handler.length, start))
+			{
+				handler = instructionHandler(end);
+			}
+			end += handler.length;
+			if(handler.jump)
+			{
+				break;
+			}
+		}
+		if(end == start)
+		{
+			return null;
+		}
+		CompiledBlock block = new CompiledBlock(this, start, end);
+		blocks[start] = block;
+		for(int i = start; i < end; i++)
+		{
+			blockAt[i] = block;
+		}
+		return block;
+	}
+	/**
+	 * Checks whether the ramcells of a superinstruction can be added to a block
+	 * @param address Adress of the superinstruction
+	 * @param length Number of fused instructions
+	 * @param start The start address of the block
+	 * @return true, if no ramcell of the superinstruction belongs to another block or exceeds the maximum block length
+	 */
+	private boolean fits(int address, int length, int start)
+	{
+		if(address+length-start > CompiledBlock.MAX_LENGTH)
+		{
+			return false;
+		}
+		for(int i = address; i < address+length; i++)
+		{
+			if(blockAt[i] != null)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+	/**
+	 * Removes a compiled block, because its code was overwritten
+	 * @param block The block to remove
+	 */
+	private void deoptimize(CompiledBlock block)
+	{
+		block.valid = false;
+		blocks[block.start] = null;
+		for(int i = block.start; i < block.end; i++)
+		{
+			blockAt[i] = null;
+		}
+		if(deoptimizations[block.start] < MAX_DEOPTIMIZATIONS)
+		{
+			deoptimizations[block.start]++;
+		}
+	}
+	/**
+	 * Removes all compiled blocks
+	 */
+	private void invalidateBlocks()
+	{
+		for(int i = 0; i < blocks.length; i++)
+		{
+			if(blocks[i] != null)
+			{
+				blocks[i].valid = false;
+			}
+		}
+		Arrays.fill(blocks, null);
+		Arrays.fill(blockAt, null);
+		Arrays.fill(entryCounts, 0);
+		Arrays.fill(deoptimizations, (byte)0);
+	}
+	/**
+	 * Decodes a ramcell into the handler and operand cache
+	 * @param address The ramcell to decode
+	 * @return The handler of the decoded instruction
+	 */
+	private Handler decode(int address)
+	{
+		Handler handler = HANDLERS[Opcodes.decode(ram[address]).ordinal()];
+		operands[address] = ram[address]&(handler.immediate ? 0xFFFFFF : addressMask);
+		if(fusion)
+		{
+			Superinstruction superinstruction = Superinstruction.create(this, address, fusionStatistics);
+			if(superinstruction != null)
+			{
+				handler = superinstruction;
+			}
+		}
+		handlers[address] = handler;
+		return handler;
+	}
+	/**
+	 * Decodes the operand of a ramcell without caching it
+	 * @param address The ramcell to decode
+	 * @return The adress or value the instruction in the ramcell uses
+	 */
+	int decodeOperand(int address)
+	{
+		return ram[address]&(handler(Opcodes.decode(ram[address])).immediate ? 0xFFFFFF : addressMask);
+	}
+	/**
+	 * Returns the handler of the single instruction in a decoded ramcell, even if a superinstruction starts there
+	 * @param address The decoded ramcell
+	 * @return The handler of the instruction
+	 */
+	Handler instructionHandler(int address)
+	{
+		if(handlers[address].length > 1)
+		{
+			return HANDLERS[Opcodes.decode(ram[address]).ordinal()];
+		}
+		return handlers[address];
+	}
+	/**
+	 * Returns the handler of an opcode
+	 * @param opcode The opcode
+	 * @return The handler executing the opcode
+	 */
+	static Handler handler(Opcodes opcode)
+	{
+		return HANDLERS[opcode.ordinal()];
+	}
+	/**
+	 * Stores a value in the ram and drops the decoded instruction of the ramcell, so self-modifying programs stay correct
+	 * @param index The ramcell to write to
+	 * @param value The new value of the ramcell
+	 */
+	protected void setRam(int index, int value)
+	{
+		if(loops != null)
+		{
+			loops.stored(index, ram[index], value);
+		}
+		ram[index] = value;
+		written(index, 1);
+	}
+	/**
+	 * Copies ramcells like System.arraycopy, used by MEMCPY
+	 * @param destination The first ramcell to write to
+	 * @param source The first ramcell to copy
+	 * @param length The number of ramcells to copy
+	 */
+	protected void copyRam(int destination, int source, int length)
+	{
+		if(loops != null)
+		{
+			loops.toggle(ram, destination, length);
+		}
+		System.arraycopy(ram, source, ram, destination, length);
+		if(loops != null)
+		{
+			loops.toggle(ram, destination, length);
+		}
+		written(destination, length);
+	}
+	/**
+	 * Sets ramcells to a value, used by MEMSET
+	 * @param destination The first ramcell to write to
+	 * @param value The new value of the ramcells
+	 * @param length The number of ramcells to write
+	 */
+	protected void fillRam(int destination, int value, int length)
+	{
+		if(loops != null)
+		{
+			loops.toggle(ram, destination, length);
+		}
+		Arrays.fill(ram, destination, destination+length, value);
+		if(loops != null)
+		{
+			loops.toggle(ram, destination, length);
+		}
+		written(destination, length);
+	}
+	/**
+	 * Drops the decoded instructions, superinstructions and compiled blocks containing written ramcells
+	 * @param start The first written ramcell
+	 * @param length The number of written ramcells
+	 */
+	private void written(int start, int length)
+	{
+		for(int page = start>>DIRTY_PAGE_BITS; page <= start+length-1>>DIRTY_PAGE_BITS; page++)
+		{
+			dirty[page>>6] |= 1L<<page;
+		}
+		if(backend != null)
+		{
+			backend.written(start, length);
+		}
+		dropDecoded(start, length);
+	}
+	/**
+	 * Drops the decoded instructions, superinstructions and compiled blocks containing ramcells
+	 * @param start The first ramcell
+	 * @param length The number of ramcells
+	 */
+	void dropDecoded(int start, int length)
+	{
+		for(int i = Math.max(0, start-Superinstruction.MAX_LENGTH+1); i < start; i++)
+		{
+			if(handlers[i] != null && handlers[i].length > start-i)
+			{
+				handlers[i] = null;
+			}
+		}
+		for(int i = start; i < start+length; i++)
+		{
+			handlers[i] = null;
+			if(blockAt[i] != null)
+			{
+				deoptimize(blockAt[i]);
+			}
+		}
+	}
+	/**
+	 * Stores a value in the ram like setRam() and returns the previous content of the ramcell
+	 * @param index The ramcell to write to
+	 * @param value The new value of the ramcell
+	 * @return The content of the ramcell before
+	 */
+	int exchange(int index, int value)
+	{
+		int previous = ram[index];
+		setRam(index, value);
+		return previous;
+	}
+	/**
+	 * Drops all decoded instructions and compiled blocks and marks the whole ram as written.
+	 * Has to be called after the array returned by getRam() was changed directly.
+	 */
+	protected void invalidate()
+	{
+		Arrays.fill(handlers, null);
+		Arrays.fill(dirty, -1L);
+		invalidateBlocks();
+		if(loops != null)
+		{
+			loops.rehash(ram);
+		}
+	}
+	/**
+	 * Increase the programmcounter by 1 and HALT, if the programmcounter points to the last line of the ram
+	 */
+	void increaseProgramCounter()
+	{
+		if(programCounter < (ram.length-1))
+		{
+			programCounter++;
+		}
+		else
+		{
+			status = STATUS_END_OF_RAM;
+		}
+	}
+	/**
+	 * Use the adress of the instruction to load the new adress from ram
+	 * @param operand The decoded adress of the instruction
+	 */
+	private void loadAddressIndirect(int operand)
+	{
+		addressRegister = ram[operand]%ram.length;
+	}
+	/**
+	 * Adds the index register to the adress of the instruction
+	 * @param operand The decoded adress of the instruction
+	 */
+	private void loadAddressIndexed(int operand)
+	{
+		addressRegister = (operand+indexRegister)%ram.length;
+	}
+	/**
+	 * Jumps to the adress stored in the ramcell pointed to by the adressregister, if the condition is fulfilled
+	 * @param condition The jump condition
+	 */
+	private void jump(boolean condition)
+	{
+		if(condition)
+		{
+			programCounter = ram[addressRegister];
+		}
+		else
+		{
+			skipJump();
+		}
+	}
+	/**
+	 * Jumps to the adress set in the instruction, if the condition is fulfilled
+	 * @param condition The jump condition
+	 * @param operand The decoded jump adress of the instruction
+	 */
+	private void jumpImmediate(boolean condition, int operand)
+	{
+		if(condition)
+		{
+			programCounter = operand;
+		}
+		else
+		{
+			skipJump();
+		}
+	}
+	/**
+	 * Continues with the next instruction after a jump condition was not fulfilled.
+	 * Unlike the other instructions, VonNeumannRechner.checkCond() halts the machine for good if this happens in the last ramcell.
+	 */
+	private void skipJump()
+	{
+		increaseProgramCounter();
+		if(status == STATUS_END_OF_RAM)
+		{
+			status = STATUS_HALT;
+		}
+	}
+	
+	/**
+	 * Executes a decoded instruction
+	 */
+	abstract static class Handler
+	{
+		/**
+		 * True, if the operand is a value (immediate addressing), false if it is an adress
+		 */
+		final boolean immediate;
+		/**
+		 * True, if the instruction sets the programcounter itself, false if the programcounter is increased after it
+		 */
+		final boolean jump;
+		/**
+		 * Number of executed instructions, more than 1 for superinstructions
+		 */
+		final int length;
+		Handler(boolean nimmediate, boolean njump)
+		{
+			this(nimmediate, njump, 1);
+		}
+		Handler(boolean nimmediate, boolean njump, int nlength)
+		{
+			immediate = nimmediate;
+			jump = njump;
+			length = nlength;
+		}
+		/**
+		 * Executes the INDIRECT- and EXECUTE-Cycle of the instruction, without increasing the programcounter
+		 * @param m The machine to execute the instruction on
+		 * @param operand The decoded operand of the instruction
+		 */
+		abstract void execute(HeadlessRechner m, int operand);
+	}
+	
+	/**
+	 * Handlers of all opcodes, indexed by their ordinal
+	 */
+	private static final Handler[] HANDLERS = new Handler[]
+	{
+		//NOP
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+			}
+		},
+		//HALT
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.status = STATUS_HALT;
+			}
+		},
+		//BREAK
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.status = STATUS_BREAK;
+			}
+		},
+		//LOAD
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.accumulator = m.ram[operand];
+			}
+		},
+		//STORE
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.setRam(operand, m.accumulator);
+			}
+		},
+		//ADD
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator + m.valueRegister;
+			}
+		},
+		//SUB
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator - m.valueRegister;
+			}
+		},
+		//DIV
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator / m.valueRegister;
+			}
+		},
+		//MULT
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator * m.valueRegister;
+			}
+		},
+		//MOD
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator % m.valueRegister;
+			}
+		},
+		//AND
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator & m.valueRegister;
+			}
+		},
+		//OR
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.ram[operand];
+				m.accumulator = m.accumulator | m.valueRegister;
+			}
+		},
+		//NOT
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.accumulator = ~m.accumulator;
+			}
+		},
+		//JMP
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.programCounter = m.ram[operand];
+			}
+		},
+		//JMPEQ
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator == 0);
+			}
+		},
+		//JMPNE
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator != 0);
+			}
+		},
+		//JMPGT
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator > 0);
+			}
+		},
+		//JMPLT
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator < 0);
+			}
+		},
+		//JMPGE
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator >= 0);
+			}
+		},
+		//JMPLE
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.jump(m.accumulator <= 0);
+			}
+		},
+		//LOADM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.accumulator = operand;
+			}
+		},
+		//ADDM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator + m.valueRegister;
+			}
+		},
+		//SUBM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator - m.valueRegister;
+			}
+		},
+		//DIVM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator / m.valueRegister;
+			}
+		},
+		//MULTM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator * m.valueRegister;
+			}
+		},
+		//MODM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator % m.valueRegister;
+			}
+		},
+		//ANDM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator & m.valueRegister;
+			}
+		},
+		//ORM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.valueRegister = operand;
+				m.accumulator = m.accumulator | m.valueRegister;
+			}
+		},
+		//JMPM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.programCounter = operand;
+			}
+		},
+		//JMPEQM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator == 0, operand);
+			}
+		},
+		//JMPNEM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator != 0, operand);
+			}
+		},
+		//JMPGTM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator > 0, operand);
+			}
+		},
+		//JMPLTM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator < 0, operand);
+			}
+		},
+		//JMPGEM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator >= 0, operand);
+			}
+		},
+		//JMPLEM
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.jumpImmediate(m.accumulator <= 0, operand);
+			}
+		},
+		//LOADI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.accumulator = m.ram[m.addressRegister];
+			}
+		},
+		//STOREI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.setRam(m.addressRegister, m.accumulator);
+			}
+		},
+		//ADDI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator + m.valueRegister;
+			}
+		},
+		//SUBI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator - m.valueRegister;
+			}
+		},
+		//DIVI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator / m.valueRegister;
+			}
+		},
+		//MULTI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator * m.valueRegister;
+			}
+		},
+		//MODI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator % m.valueRegister;
+			}
+		},
+		//ANDI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator & m.valueRegister;
+			}
+		},
+		//ORI
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator | m.valueRegister;
+			}
+		},
+		//JMPI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.programCounter = m.ram[m.addressRegister];
+			}
+		},
+		//JMPEQI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator == 0);
+			}
+		},
+		//JMPNEI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator != 0);
+			}
+		},
+		//JMPGTI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator > 0);
+			}
+		},
+		//JMPLTI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator < 0);
+			}
+		},
+		//JMPGEI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator >= 0);
+			}
+		},
+		//JMPLEI
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndirect(operand);
+				m.jump(m.accumulator <= 0);
+			}
+		},
+		//XCHG
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.valueRegister = m.exchange(operand, m.accumulator);
+				m.accumulator = m.valueRegister;
+			}
+		},
+		//MEMCPY
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				int length = m.accumulator;
+				if(length > 0)
+				{
+					int destination = BulkMemory.start(m.ram, operand, length);
+					int source = BulkMemory.start(m.ram, BulkMemory.second(m.ram, operand), length);
+					m.copyRam(destination, source, length);
+					m.bulkFirst = destination;
+					m.bulkSecond = source;
+				}
+				m.valueRegister = Math.max(length, 0);
+			}
+		},
+		//MEMSET
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				int length = m.accumulator;
+				if(length > 0)
+				{
+					int destination = BulkMemory.start(m.ram, operand, length);
+					int value = m.ram[BulkMemory.second(m.ram, operand)];
+					m.fillRam(destination, value, length);
+					m.bulkFirst = destination;
+					m.bulkSecond = value;
+				}
+				m.valueRegister = Math.max(length, 0);
+			}
+		},
+		//MEMCMP
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				int length = m.accumulator;
+				int compared = 0;
+				int result = 0;
+				if(length > 0)
+				{
+					int first = BulkMemory.start(m.ram, operand, length);
+					int second = BulkMemory.start(m.ram, BulkMemory.second(m.ram, operand), length);
+					int offset = BulkMemory.mismatch(m.ram, first, second, length);
+					compared = Math.min(offset+1, length);
+					if(offset < length)
+					{
+						result = m.ram[first+offset] < m.ram[second+offset] ? -1 : 1;
+					}
+					m.bulkFirst = first;
+					m.bulkSecond = second;
+				}
+				m.valueRegister = compared;
+				m.accumulator = result;
+			}
+		},
+		//LDX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.indexRegister = m.ram[operand];
+			}
+		},
+		//LDXM
+		new Handler(true, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.indexRegister = operand;
+			}
+		},
+		//STX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.addressRegister = operand;
+				m.setRam(operand, m.indexRegister);
+			}
+		},
+		//TAX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.indexRegister = m.accumulator;
+			}
+		},
+		//TXA
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.accumulator = m.indexRegister;
+			}
+		},
+		//INCX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.indexRegister++;
+			}
+		},
+		//DECX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.indexRegister--;
+			}
+		},
+		//LOADX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.accumulator = m.ram[m.addressRegister];
+			}
+		},
+		//STOREX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.setRam(m.addressRegister, m.accumulator);
+			}
+		},
+		//ADDX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator + m.valueRegister;
+			}
+		},
+		//SUBX
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.valueRegister = m.ram[m.addressRegister];
+				m.accumulator = m.accumulator - m.valueRegister;
+			}
+		},
+		//LOADXP
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.accumulator = m.ram[m.addressRegister];
+				m.indexRegister++;
+			}
+		},
+		//STOREXP
+		new Handler(false, false)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				m.loadAddressIndexed(operand);
+				m.setRam(m.addressRegister, m.accumulator);
+				m.indexRegister++;
+			}
+		},
+		//CALL
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				if(m.stackPointer < 0 || m.stackPointer >= RETURN_STACK_SIZE)
+				{
+					m.status = m.stackPointer < 0 ? STATUS_STACK_UNDERFLOW : STATUS_STACK_OVERFLOW;
+					return;
+				}
+				m.returnStack[m.stackPointer] = m.programCounter+1;
+				m.stackPointer++;
+				m.programCounter = operand;
+			}
+		},
+		//RET
+		new Handler(false, true)
+		{
+			void execute(HeadlessRechner m, int operand)
+			{
+				if(m.stackPointer <= 0 || m.stackPointer > RETURN_STACK_SIZE)
+				{
+					m.status = m.stackPointer <= 0 ? STATUS_STACK_UNDERFLOW : STATUS_STACK_OVERFLOW;
+					return;
+				}
+				m.programCounter = m.returnStack[m.stackPointer-1];
+				m.stackPointer--;
+			}
+		}
+	};
+}
@@ -0,0 +1,227 @@
+package assemblerSim;
+
+/**
+ * Records the changes a VonNeumannRechner makes, so it can execute its instructions backwards.
+ *
+ * Every change is one long in a ring buffer:
+ * <pre>
+ * bit 63 = 1   a write into the ram: the ramcell in bits 32 to 62, its previous content in bits 0 to 31
+ * bit 63 = 0   a changed value of the state: its index plus 1 in bits 32 to 39, its previous value in bits 0 to 31
+ * 0            the end of the changes of an instruction
+ * </pre>
+ * The writes into the ram are recorded while an instruction executes. The state of the machine (see VonNeumannRechner.STATE_SIZE)
+ * is saved as keyframe when an instruction starts and compared with the state when the next one starts, only the changed values are recorded.
+ * Going back undoes the changes from the end of the buffer, restoring the keyframe of the previous instruction.
+ *
+ * The buffer holds a fixed number of longs, when it is full the oldest instructions are discarded. An instruction with more changes
+ * than the buffer holds (a large MEMCPY or MEMSET) empties the history.
+ */
+public class History
+{
+	/**
+	 * End of the changes of an instruction
+	 */
+	private final static long MARK = 0;
+	/**
+	 * Bit of a write into the ram
+	 */
+	private final static long RAM = 1L<<63;
+
+	private final long[] entries;
+	/**
+	 * Position of the oldest change in the buffer
+	 */
+	private int first;
+	/**
+	 * Number of changes in the buffer
+	 */
+	private int count;
+	/**
+	 * Number of complete instructions in the buffer
+	 */
+	private int instructions;
+	/**
+	 * State of the machine at the start of the current instruction
+	 */
+	private final int[] keyframe = new int[VonNeumannRechner.STATE_SIZE];
+	/**
+	 * true, if the keyframe is valid
+	 */
+	private boolean started;
+	/**
+	 * true, if an instruction started at the keyframe and was not undone
+	 */
+	private boolean executing;
+	/**
+	 * true, if the changes of the current instruction did not fit into the buffer
+	 */
+	private boolean lost;
+
+	/**
+	 * Create a new empty history
+	 * @param ncapacity Number of changes the history holds, 8 bytes each
+	 */
+	public History(int ncapacity)
+	{
+		entries = new long[ncapacity];
+	}
+
+	/**
+	 * Forgets all recorded changes
+	 */
+	protected void clear()
+	{
+		first = 0;
+		count = 0;
+		instructions = 0;
+		started = false;
+		executing = false;
+		lost = false;
+	}
+	/**
+	 * Returns the number of instructions which can be undone, without the current one
+	 * @return The number of complete instructions recorded
+	 */
+	protected int getInstructions()
+	{
+		return instructions;
+	}
+	/**
+	 * Returns the number of recorded changes
+	 * @return The number of longs used in the buffer
+	 */
+	protected int getSize()
+	{
+		return count;
+	}
+
+	/**
+	 * Records a write into the ram
+	 * @param cell The written ramcell
+	 * @param previous The content of the ramcell before
+	 */
+	void stored(int cell, int previous)
+	{
+		add(RAM|((long)cell<<32)|(previous&0xFFFFFFFFL));
+	}
+	/**
+	 * Called when an instruction starts, ends the changes of the previous instruction and takes a new keyframe
+	 * @param state The state of the machine
+	 */
+	void begin(int[] state)
+	{
+		if(executing && !lost)
+		{
+			for(int i = 0; i < keyframe.length; i++)
+			{
+				if(keyframe[i] != state[i])
+				{
+					add(((long)(i+1)<<32)|(keyframe[i]&0xFFFFFFFFL));
+				}
+			}
+			add(MARK);
+			if(!lost)
+			{
+				instructions++;
+			}
+		}
+		lost = false;
+		System.arraycopy(state, 0, keyframe, 0, keyframe.length);
+		started = true;
+		executing = true;
+	}
+	/**
+	 * Adds a change at the end of the buffer, discarding the oldest instructions if it is full
+	 * @param entry The change
+	 */
+	private void add(long entry)
+	{
+		if(lost)
+		{
+			return;
+		}
+		if(count == entries.length)
+		{
+			discardOldest();
+			if(lost)
+			{
+				return;
+			}
+		}
+		entries[(first+count)%entries.length] = entry;
+		count++;
+	}
+	/**
+	 * Discards the oldest instruction, or all changes if the buffer only contains the current instruction
+	 */
+	private void discardOldest()
+	{
+		while(count > 0)
+		{
+			long entry = entries[first];
+			first = (first+1)%entries.length;
+			count--;
+			if(entry == MARK)
+			{
+				instructions--;
+				return;
+			}
+		}
+		lost = true;
+	}
+	/**
+	 * Returns the newest change
+	 * @return The change at the end of the buffer
+	 */
+	private long last()
+	{
+		return entries[(first+count-1)%entries.length];
+	}
+
+	/**
+	 * Undoes the current instruction or, if the last call already went back to its start, the previous one
+	 * @param ram The ram, its writes are undone without being recorded
+	 * @param state Replaced by the state of the machine at the start of the undone instruction
+	 * @return false, if there was nothing to undo
+	 */
+	boolean back(Ram ram, int[] state)
+	{
+		if(!started || lost)
+		{
+			return false;
+		}
+		boolean open = executing;
+		while(count > 0 && last() != MARK)
+		{
+			long entry = last();
+			count--;
+			ram.write((int)((entry&~RAM)>>>32), (int)entry);
+			open = true;
+		}
+		if(!open)
+		{
+			if(count == 0)
+			{
+				return false;
+			}
+			count--;
+			instructions--;
+			while(count > 0 && last() != MARK)
+			{
+				long entry = last();
+				count--;
+				if((entry&RAM) != 0)
+				{
+					ram.write((int)((entry&~RAM)>>>32), (int)entry);
+				}
+				else
+				{
+					keyframe[(int)(entry>>>32)-1] = (int)entry;
+				}
+			}
+		}
+		executing = false;
+		System.arraycopy(keyframe, 0, state, 0, keyframe.length);
+		return true;
+	}
+}
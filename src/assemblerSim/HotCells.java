@@ -0,0 +1,109 @@
+package assemblerSim;
+
+import java.awt.BorderLayout;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.File;
+import java.io.FileWriter;
+
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JFileChooser;
+import javax.swing.JFrame;
+import javax.swing.JOptionPane;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * This dialog shows the most accessed ramcells in a table, which can be sorted by every column, and exports all counters as CSV.
+ */
+public class HotCells extends JDialog
+{
+	private static final long serialVersionUID = 1L;
+	private static final String[] COLUMNS = {"Cell", "Accesses", "Reads", "Writes", "Fetches"};
+
+	private final AccessCounters counters;
+
+	/**
+	 * Constructor creates the table of the ramcells accessed at the moment and the export button
+	 * @param nowner the frame of the GUI
+	 * @param ncounters the counters of the accesses
+	 * @param nmaxCells maximum number of ramcells in the table, the most accessed ones
+	 */
+	public HotCells(JFrame nowner, AccessCounters ncounters, int nmaxCells)
+	{
+		super(nowner, "Most accessed ramcells");
+		counters = ncounters;
+		final int[] cells = ncounters.getHottest(nmaxCells);
+		final long[][] rows = new long[cells.length][];
+		for(int i = 0; i < cells.length; i++)
+		{
+			int cell = cells[i];
+			rows[i] = new long[]{cell, ncounters.getAccesses(cell), ncounters.getReads(cell), ncounters.getWrites(cell), ncounters.getFetches(cell)};
+		}
+		JTable table = new JTable(new AbstractTableModel()
+		{
+			private static final long serialVersionUID = 1L;
+
+			public int getRowCount()
+			{
+				return rows.length;
+			}
+			public int getColumnCount()
+			{
+				return COLUMNS.length;
+			}
+			public String getColumnName(int column)
+			{
+				return COLUMNS[column];
+			}
+			public Class<?> getColumnClass(int column)
+			{
+				return Long.class;
+			}
+			public Object getValueAt(int row, int column)
+			{
+				return rows[row][column];
+			}
+		});
+		table.setAutoCreateRowSorter(true);
+		add(new JScrollPane(table), BorderLayout.CENTER);
+
+		JButton export = new JButton("Export CSV");
+		export.addActionListener(new ActionListener()
+		{
+			public void actionPerformed(ActionEvent e)
+			{
+				exportCsv();
+			}
+		});
+		add(export, BorderLayout.SOUTH);
+		setSize(400, 500);
+		setLocationRelativeTo(nowner);
+	}
+
+	/**
+	 * Open FileChooser and write the counters of all accessed ramcells to the chosen file
+	 */
+	void exportCsv()
+	{
+		JFileChooser chooser = new JFileChooser();
+		chooser.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		if(chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION)
+		{
+			File out = chooser.getSelectedFile();
+			try
+			{
+				FileWriter writer = new FileWriter(out);
+				counters.writeCsv(writer);
+				writer.close();
+			}
+			catch(Exception e)
+			{
+				JOptionPane.showMessageDialog(this, "An Error has occured \n" + e.getMessage());
+				e.printStackTrace();
+			}
+		}
+	}
+}
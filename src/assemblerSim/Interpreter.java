@@ -1,6 +1,7 @@
 package assemblerSim;
 
 import java.util.HashMap;
+import java.util.List;
 
 
 /**
@@ -19,42 +20,56 @@ public class Interpreter
 	{
 		
 		int[] output = new int[nRamSize];
-		String[] lines = assemblerCode.split("\n");
-		HashMap<String, Integer> labels = new HashMap<String, Integer>();
-		//Find Labels and create HashMap:
-		for(int i = 0; i < lines.length; i++)
+		Assembler assembler = new Assembler(assemblerCode);
+		
+		for(int i = 0; i < assembler.getLines() && i < output.length; i++)
 		{
-			try{
-				lines[i] = lines[i].trim();
-				if(lines[i].charAt(0)== ':')
-				{
-					//Labelname
-					String labelName;
-					int leerzeichen =  lines[i].indexOf(' ');
-					if(leerzeichen != -1)
-					{
-						labelName  = lines[i].substring(1, lines[i].indexOf(' '));
-						lines[i] = lines[i].substring(lines[i].indexOf(' ')+1,lines[i].length());
-					}	
-					else
-					{
-						labelName  = lines[i].substring(1, lines[i].length());
-						lines[i] = "";
-					}
-					labels.put(labelName.toUpperCase(), i);
-				}	
-			}
-			catch(Exception e)
+			output[i] = assembler.getCode(i);
+		}
+		return output;
+	}
+	/**
+	 * Translates a program to its machinecode representation and writes it into a ram. Only ramcells whose content changes
+	 * are written, so lines translated to 0 do not allocate pages of a paged ram and a mapped ram already containing the program
+	 * may be read only. The ramcells after the program are set to 0 unless the ram is read only, so a persistent ram does not keep
+	 * the rest of a longer program or data written by a previous run.
+	 * @param assemblerCode The program to translate
+	 * @param nram The ram to write the machinecode into
+	 * @return The errors in the program, their lines contain Assembler.ERROR
+	 */
+	protected static List<Assembler.Diagnostic> stringToRam(String assemblerCode, Ram nram)
+	{
+		Assembler assembler = new Assembler(assemblerCode);
+		
+		int lines = Math.min(assembler.getLines(), nram.getSize());
+		for(int i = 0; i < lines; i++)
+		{
+			int code = assembler.getCode(i);
+			if(code != nram.read(i))
 			{
-				lines[i] = "";
+				nram.write(i, code);
 			}
 		}
-		
-		for(int i = 0; i < lines.length && i < output.length; i++)
+		if(!nram.isReadOnly())
 		{
-			output[i] = stringToOpcode(lines[i],labels);
+			for(int i = nram.nextUsed(lines); i < nram.getSize(); i = nram.nextUsed(i+1))
+			{
+				if(nram.read(i) != 0)
+				{
+					nram.write(i, 0);
+				}
+			}
 		}
-		return output;
+		return assembler.getDiagnostics();
+	}
+	/**
+	 * Finds the labels of a program
+	 * @param assemblerCode The program
+	 * @return The names of the labels in upper case and the adresses of their ramcells
+	 */
+	protected static HashMap<String, Integer> stringToLabels(String assemblerCode)
+	{
+		return new Assembler(assemblerCode).getLabels();
 	}
 	/**
 	 * Translates the whole ram to its assemblercode representations
@@ -88,63 +103,7 @@ public class Interpreter
 	 */
 	protected static int stringToOpcode(String assemblerCode, HashMap<String,Integer> nLabels)
 	{
-		int code;
-		int instruction;
-		int adresse;
-		assemblerCode = assemblerCode.trim();
-		String input[] = assemblerCode.split(";")[0].split(" ");
-		if(input.length == 1 && input[0].length() == 0)
-		{
-			code = 0;
-		}
-		else
-		{
-			try
-			{
-				try
-				{
-					instruction = Opcodes.valueOf(input[0].toUpperCase()).ordinal()*0x1000000;
-					if(input.length>1)
-					{
-						try
-						{
-							adresse = Integer.parseInt(input[1]);
-							if(adresse < 0 || adresse > 0xFFFFFF)
-							{
-								throw new Exception();
-							}
-						}
-						catch(NumberFormatException e)
-						{
-							adresse = nLabels.get(input[1].toUpperCase());					
-						}
-					}
-					else
-					{
-						adresse = 0;
-					}
-				}
-				catch(IllegalArgumentException e)
-				{
-					instruction = 0;
-					try
-					{
-						adresse = Integer.parseInt(input[0]);
-					}
-					catch(NumberFormatException e2)
-					{
-						adresse = nLabels.get(input[0].toUpperCase());					
-					}				
-				}
-				code = instruction+adresse;
-				
-			}
-			catch(Exception e)
-			{
-				code = 0xABADC0DE;			
-			}
-		}
-		return code;
+		return new Assembler(assemblerCode, nLabels).getCode(0);
 	}
 	/**
 	 * Translates a machinecode to its assemblercode representations
@@ -154,15 +113,7 @@ public class Interpreter
 	protected static String opcodeToString(int ramCell)
 
 	{
-		int instruction = Integer.rotateRight(ramCell, 24)&0xFF;
-		String instructionString;
-		try{
-			instructionString = Opcodes.values()[instruction].toString();			
-		}
-		catch(IndexOutOfBoundsException e)
-		{
-			instructionString = "NOP";
-		}
+		String instructionString = Opcodes.decode(ramCell).toString();
 		instructionString += " "+(ramCell&0xFFFFFF);
 		return instructionString;
 	}
@@ -0,0 +1,353 @@
+package assemblerSim;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+
+/**
+ * Keeps the machinecode of a program up to date while its document is edited and sends the changed ramcells to the controller.
+ *
+ * For every line the machinecode, the label it defines and the label its operand names are kept, and for every label the lines
+ * defining and using it. An edit within lines translates only the edited lines again, and the lines using a label whose adress
+ * changed. An edit adding or removing lines moves all following ramcells and labels, so the whole program is translated again,
+ * but still only the ramcells whose content changed are sent. Lines after the end of the program are ramcells containing 0.
+ * After the ram of the machine changed otherwise, e.g. by a reset or by the program itself, resync() makes the next edit translate
+ * the whole program again and send every ramcell whose content in the ram differs from its line, or is not 0 after the program.
+ */
+public class LiveAssembler implements DocumentListener
+{
+	private final Controller controller;
+	private final Document document;
+	/**
+	 * Number of lines of the document
+	 */
+	private int lines;
+	/**
+	 * Machinecode of every line
+	 */
+	private int[] codes = new int[16];
+	/**
+	 * Machinecode of every line without the adress of the label its operand names
+	 */
+	private int[] instructions = new int[16];
+	/**
+	 * Label defined by every line, null for none
+	 */
+	private String[] definitions = new String[16];
+	/**
+	 * Label named by the operand of every line, null for none
+	 */
+	private String[] uses = new String[16];
+	/**
+	 * The lines defining every label, the last one is its adress
+	 */
+	private final HashMap<String, TreeSet<Integer>> defined = new HashMap<String, TreeSet<Integer>>();
+	/**
+	 * The lines whose operand names every label
+	 */
+	private final HashMap<String, TreeSet<Integer>> used = new HashMap<String, TreeSet<Integer>>();
+	/**
+	 * The ramcells changed by the current edit and their new content
+	 */
+	private int[] changedCells = new int[16];
+	private int[] changedCodes = new int[16];
+	private int changedCount;
+	/**
+	 * true, if the ram may differ from the machinecode of the lines, set by resync()
+	 */
+	private volatile boolean stale;
+
+	/**
+	 * Translates the current content of a document and follows its edits
+	 * @param ncontroller Receives the ramcells changed by an edit
+	 * @param ndocument The document containing the program, one line per ramcell
+	 */
+	public LiveAssembler(Controller ncontroller, Document ndocument)
+	{
+		controller = ncontroller;
+		document = ndocument;
+		translateAll(null);
+		changedCount = 0;
+		document.addDocumentListener(this);
+	}
+
+	/**
+	 * Returns the machinecode of a line
+	 * @param nline The line, starting at 0
+	 * @return The content of its ramcell, 0 after the end of the document
+	 */
+	protected int getCode(int nline)
+	{
+		return nline < lines ? codes[nline] : 0;
+	}
+
+	/**
+	 * Marks the ram of the machine as possibly differing from the machinecode of the lines, called after the ram was changed
+	 * without an edit, e.g. when the machine was reset or executed the program. The next edit compares every line with the ram.
+	 */
+	protected void resync()
+	{
+		stale = true;
+	}
+
+	/**
+	 * Translates the lines changed by inserted text
+	 */
+	public void insertUpdate(DocumentEvent e)
+	{
+		update(e);
+	}
+	/**
+	 * Translates the lines changed by removed text
+	 */
+	public void removeUpdate(DocumentEvent e)
+	{
+		update(e);
+	}
+	/**
+	 * Ignored, only attributes changed
+	 */
+	public void changedUpdate(DocumentEvent e)
+	{
+	}
+
+	/**
+	 * Translates the lines changed by an edit and sends the changed ramcells to the controller
+	 * @param e The edit
+	 */
+	private void update(DocumentEvent e)
+	{
+		Element root = document.getDefaultRootElement();
+		DocumentEvent.ElementChange change = e.getChange(root);
+		changedCount = 0;
+		if(stale)
+		{
+			stale = false;
+			translateAll(controller.getRAM());
+		}
+		else if(change == null)
+		{
+			translateLines(root.getElementIndex(e.getOffset()), 1);
+		}
+		else if(change.getChildrenAdded().length == change.getChildrenRemoved().length)
+		{
+			translateLines(change.getIndex(), change.getChildrenAdded().length);
+		}
+		else
+		{
+			translateAll(null);
+		}
+		if(changedCount > 0)
+		{
+			controller.patchRAM(changedCells, changedCodes, changedCount);
+		}
+	}
+	/**
+	 * Translates the whole document
+	 * @param ram The ram to compare the lines with, null to compare them with their last machinecode
+	 */
+	private void translateAll(Ram ram)
+	{
+		Assembler assembler = new Assembler(getText(0, document.getLength()));
+		int count = document.getDefaultRootElement().getElementCount();
+		if(count > codes.length)
+		{
+			int size = Math.max(count, codes.length*2);
+			codes = Arrays.copyOf(codes, size);
+			instructions = Arrays.copyOf(instructions, size);
+			definitions = Arrays.copyOf(definitions, size);
+			uses = Arrays.copyOf(uses, size);
+		}
+		defined.clear();
+		used.clear();
+		for(int i = 0; i < count; i++)
+		{
+			boolean program = i < assembler.getLines();
+			definitions[i] = program ? assembler.getDefinition(i) : null;
+			uses[i] = program ? assembler.getUse(i) : null;
+			instructions[i] = program ? assembler.getInstruction(i) : 0;
+			add(defined, definitions[i], i);
+			add(used, uses[i], i);
+			int code = program ? assembler.getCode(i) : 0;
+			if(ram != null ? i < ram.getSize() && ram.read(i) != code : i >= lines || codes[i] != code)
+			{
+				changed(i, code);
+			}
+			else
+			{
+				codes[i] = code;
+			}
+		}
+		for(int i = count; i < lines; i++)
+		{
+			definitions[i] = null;
+			uses[i] = null;
+			if(ram != null ? i < ram.getSize() && ram.read(i) != 0 : codes[i] != 0)
+			{
+				changed(i, 0);
+			}
+		}
+		if(ram != null && !ram.isReadOnly())
+		{
+			for(int i = ram.nextUsed(Math.max(count, lines)); i < ram.getSize(); i = ram.nextUsed(i+1))
+			{
+				if(ram.read(i) != 0)
+				{
+					changed(i, 0);
+				}
+			}
+		}
+		lines = count;
+	}
+	/**
+	 * Translates edited lines and the lines using the labels whose adresses changed
+	 * @param first The first edited line
+	 * @param count The number of edited lines
+	 */
+	private void translateLines(int first, int count)
+	{
+		Element root = document.getDefaultRootElement();
+		HashMap<String, Integer> before = new HashMap<String, Integer>();
+		TreeSet<Integer> dirty = new TreeSet<Integer>();
+		for(int i = first; i < first+count; i++)
+		{
+			Element line = root.getElement(i);
+			int end = Math.min(line.getEndOffset(), document.getLength());
+			Assembler assembler = new Assembler(getText(line.getStartOffset(), end-line.getStartOffset()));
+			String definition = assembler.getDefinition(0);
+			String use = assembler.getUse(0);
+			remember(before, definitions[i]);
+			remember(before, definition);
+			remove(defined, definitions[i], i);
+			add(defined, definition, i);
+			remove(used, uses[i], i);
+			add(used, use, i);
+			definitions[i] = definition;
+			uses[i] = use;
+			instructions[i] = assembler.getInstruction(0);
+			dirty.add(i);
+		}
+		for(Map.Entry<String, Integer> label : before.entrySet())
+		{
+			Integer adress = adress(label.getKey());
+			TreeSet<Integer> lines = used.get(label.getKey());
+			if(lines != null && (adress == null ? label.getValue() != null : !adress.equals(label.getValue())))
+			{
+				dirty.addAll(lines);
+			}
+		}
+		for(int i : dirty)
+		{
+			int code = uses[i] == null ? instructions[i] : (adress(uses[i]) == null ? Assembler.ERROR : instructions[i]+adress(uses[i]));
+			if(codes[i] != code)
+			{
+				changed(i, code);
+			}
+		}
+	}
+
+	/**
+	 * Returns the adress of a label
+	 * @param name The name of the label in upper case
+	 * @return The last line defining it, null if it is not defined
+	 */
+	private Integer adress(String name)
+	{
+		TreeSet<Integer> lines = defined.get(name);
+		return lines == null ? null : lines.last();
+	}
+	/**
+	 * Remembers the adress of a label before the edit, if it is not remembered yet
+	 * @param adresses The adresses before the edit
+	 * @param name The name of the label, null for none
+	 */
+	private void remember(HashMap<String, Integer> adresses, String name)
+	{
+		if(name != null && !adresses.containsKey(name))
+		{
+			adresses.put(name, adress(name));
+		}
+	}
+	/**
+	 * Records a changed ramcell
+	 * @param cell The ramcell
+	 * @param code Its new content
+	 */
+	private void changed(int cell, int code)
+	{
+		if(cell < codes.length)
+		{
+			codes[cell] = code;
+		}
+		if(changedCount == changedCells.length)
+		{
+			changedCells = Arrays.copyOf(changedCells, changedCount*2);
+			changedCodes = Arrays.copyOf(changedCodes, changedCount*2);
+		}
+		changedCells[changedCount] = cell;
+		changedCodes[changedCount] = code;
+		changedCount++;
+	}
+	/**
+	 * Returns a part of the document
+	 * @param start Start of the part
+	 * @param length Length of the part
+	 * @return The text
+	 */
+	private String getText(int start, int length)
+	{
+		try
+		{
+			return document.getText(start, length);
+		}
+		catch(BadLocationException e)
+		{
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Adds a line to the lines of a label
+	 * @param labels The lines of all labels
+	 * @param name The name of the label, null for none
+	 * @param line The line
+	 */
+	private static void add(HashMap<String, TreeSet<Integer>> labels, String name, int line)
+	{
+		if(name != null)
+		{
+			TreeSet<Integer> lines = labels.get(name);
+			if(lines == null)
+			{
+				lines = new TreeSet<Integer>();
+				labels.put(name, lines);
+			}
+			lines.add(line);
+		}
+	}
+	/**
+	 * Removes a line from the lines of a label
+	 * @param labels The lines of all labels
+	 * @param name The name of the label, null for none
+	 * @param line The line
+	 */
+	private static void remove(HashMap<String, TreeSet<Integer>> labels, String name, int line)
+	{
+		if(name != null)
+		{
+			TreeSet<Integer> lines = labels.get(name);
+			lines.remove(line);
+			if(lines.isEmpty())
+			{
+				labels.remove(name);
+			}
+		}
+	}
+}
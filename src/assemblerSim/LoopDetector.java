@@ -0,0 +1,271 @@
+package assemblerSim;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Detects a machine which returned to a state it was in before and therefore runs forever.
+ * The state of the machine consists of the programcounter, the accumulator, the indexregister, the return stack and the ram,
+ * the other registers are always written before they are read. The hash of the ram is the XOR of a hash of every ramcell and its value (Zobrist hashing), so a write into the ram
+ * updates it with a few operations. The machine checks its state periodically, the states of the checks are compared with a saved state
+ * which is replaced after 1, 2, 4, 8, ... checks (Brent's algorithm), so a loop is found after at most about twice the checks
+ * it takes to enter and run it once. A matching hash is confirmed by comparing the whole state with a copy of the saved state.
+ *
+ * A HeadlessRechner checks its state in runUntil() every CHECK_INTERVAL instructions, a VonNeumannRechner
+ * before every instruction. Devices make the machine depend on its environment, so the state is not checked while devices are mapped.
+ */
+public class LoopDetector
+{
+	/**
+	 * Number of instructions between two checks of a HeadlessRechner
+	 */
+	public final static int CHECK_INTERVAL = 16384;
+	/**
+	 * Seed of the hashes of the ramcells, fixed so detectors of the same ram size hash equally
+	 */
+	private final static long SEED = 0x5DEECE66DL;
+	/**
+	 * Hash of each ramcell, combined with its value
+	 */
+	private final long[] keys;
+	/**
+	 * Hash of the ram, updated on every write
+	 */
+	private long hash;
+
+	/*
+	 * Saved state of Brent's algorithm
+	 */
+	private boolean saved;
+	private long savedState;
+	private int savedProgramCounter;
+	private int savedAccumulator;
+	private int savedIndexRegister;
+	private final int[] savedReturnStack = new int[HeadlessRechner.RETURN_STACK_SIZE];
+	private int savedStackPointer;
+	private final int[] snapshot;
+	/**
+	 * Number of checks after which the saved state is replaced
+	 */
+	private long power;
+	/**
+	 * Number of checks since the state was saved
+	 */
+	private long checks;
+	private boolean looping;
+	private long totalChecks;
+
+	/**
+	 * Create a new loop detector
+	 * @param nramSize Size of the ram
+	 */
+	public LoopDetector(int nramSize)
+	{
+		keys = new long[nramSize];
+		snapshot = new int[nramSize];
+		Random random = new Random(SEED);
+		for(int i = 0; i < nramSize; i++)
+		{
+			keys[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Starts the detection for a new ram content, forgetting all states checked before
+	 * @param ram The ram content
+	 */
+	protected void reset(int[] ram)
+	{
+		rehash(ram);
+		saved = false;
+		power = 1;
+		checks = 0;
+		looping = false;
+		totalChecks = 0;
+	}
+	/**
+	 * Calculates the hash of the ram again, after it was changed without being reported. The saved state is kept.
+	 * @param ram The ram content
+	 */
+	protected void rehash(int[] ram)
+	{
+		hash = 0;
+		for(int i = 0; i < ram.length; i++)
+		{
+			hash ^= hash(i, ram[i]);
+		}
+	}
+	/**
+	 * Updates the hash of the ram after a write into a ramcell
+	 * @param index The written ramcell
+	 * @param previous Content of the ramcell before
+	 * @param value Content of the ramcell afterwards
+	 */
+	void stored(int index, int previous, int value)
+	{
+		hash ^= hash(index, previous)^hash(index, value);
+	}
+	/**
+	 * Removes ramcells from the hash of the ram or adds them again. Called before and after the ramcells are written.
+	 * @param ram The ram
+	 * @param start The first ramcell
+	 * @param length The number of ramcells
+	 */
+	void toggle(int[] ram, int start, int length)
+	{
+		for(int i = start; i < start+length; i++)
+		{
+			hash ^= hash(i, ram[i]);
+		}
+	}
+	/**
+	 * Returns the hash of a ramcell and its value
+	 * @param index The ramcell
+	 * @param value The content of the ramcell
+	 * @return The hash
+	 */
+	private long hash(int index, int value)
+	{
+		return mix(keys[index]^(value&0xFFFFFFFFL));
+	}
+	/**
+	 * Scrambles the bits of a value, the finalizer of SplitMix64
+	 * @param value The value
+	 * @return The scrambled value
+	 */
+	private static long mix(long value)
+	{
+		value = (value^(value>>>30))*0xBF58476D1CE4E5B9L;
+		value = (value^(value>>>27))*0x94D049BB133111EBL;
+		return value^(value>>>31);
+	}
+	/**
+	 * Returns the hash of the state of the machine
+	 * @param programCounter The programcounter
+	 * @param accumulator The accumulator
+	 * @param indexRegister The indexregister
+	 * @param returnStack The return stack
+	 * @param stackPointer The number of adresses on the return stack
+	 * @return The hash of the registers and the ram
+	 */
+	private long state(int programCounter, int accumulator, int indexRegister, int[] returnStack, int stackPointer)
+	{
+		long registers = mix(((long)programCounter<<32)^(accumulator&0xFFFFFFFFL)^SEED);
+		registers = mix(registers^((long)indexRegister<<32)^(stackPointer&0xFFFFFFFFL));
+		for(int i = 0; i < stackPointer && i < returnStack.length; i++)
+		{
+			registers = mix(registers^(returnStack[i]&0xFFFFFFFFL));
+		}
+		return hash^registers;
+	}
+	/**
+	 * Compares the return stack with the saved one
+	 * @param returnStack The return stack
+	 * @param stackPointer The number of adresses on the return stack
+	 * @return true, if the adresses on both stacks are equal
+	 */
+	private boolean savedStack(int[] returnStack, int stackPointer)
+	{
+		if(stackPointer != savedStackPointer)
+		{
+			return false;
+		}
+		for(int i = 0; i < stackPointer && i < returnStack.length; i++)
+		{
+			if(returnStack[i] != savedReturnStack[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks whether the machine is in a state it was in at an earlier check
+	 * @param ram The ram, its writes have to be reported since the last reset() or rehash()
+	 * @param programCounter The programcounter
+	 * @param accumulator The accumulator
+	 * @param indexRegister The indexregister
+	 * @param returnStack The return stack
+	 * @param stackPointer The number of adresses on the return stack
+	 * @return true, if the machine runs forever
+	 */
+	protected boolean check(int[] ram, int programCounter, int accumulator, int indexRegister, int[] returnStack, int stackPointer)
+	{
+		if(looping)
+		{
+			return true;
+		}
+		totalChecks++;
+		long state = state(programCounter, accumulator, indexRegister, returnStack, stackPointer);
+		if(saved && state == savedState && programCounter == savedProgramCounter && accumulator == savedAccumulator
+				&& indexRegister == savedIndexRegister && savedStack(returnStack, stackPointer) && Arrays.equals(ram, snapshot))
+		{
+			looping = true;
+			return true;
+		}
+		checks++;
+		if(!saved || checks == power)
+		{
+			if(saved)
+			{
+				power <<= 1;
+			}
+			saved = true;
+			checks = 0;
+			savedState = state;
+			savedProgramCounter = programCounter;
+			savedAccumulator = accumulator;
+			savedIndexRegister = indexRegister;
+			savedStackPointer = stackPointer;
+			System.arraycopy(returnStack, 0, savedReturnStack, 0, savedReturnStack.length);
+			System.arraycopy(ram, 0, snapshot, 0, ram.length);
+		}
+		return false;
+	}
+	/**
+	 * Returns whether a loop was found
+	 * @return true, if check() found the machine in a state it was in before
+	 */
+	protected boolean isLooping()
+	{
+		return looping;
+	}
+	/**
+	 * Returns a diagnostic of the loop found. The loop is executed once more on a copy of the repeated state
+	 * to find its length and the adresses of its instructions.
+	 * @return The diagnostic in one line
+	 */
+	protected String getReport()
+	{
+		if(!looping)
+		{
+			return "No loop found in "+totalChecks+" checks\n";
+		}
+		HeadlessRechner replay = new HeadlessRechner(snapshot.clone());
+		replay.setRegister(VonNeumannRechner.ACCUMULATOR, savedAccumulator);
+		replay.setRegister(VonNeumannRechner.PROGRAMMCOUNTER, savedProgramCounter);
+		replay.setRegister(VonNeumannRechner.INDEXREGISTER, savedIndexRegister);
+		replay.setRegister(VonNeumannRechner.STACKPOINTER, savedStackPointer);
+		System.arraycopy(savedReturnStack, 0, replay.getReturnStack(), 0, savedReturnStack.length);
+		LoopDetector probe = new LoopDetector(snapshot.length);
+		replay.setLoopDetector(probe);
+		int first = Integer.MAX_VALUE;
+		int last = Integer.MIN_VALUE;
+		int[] ram = replay.getRam();
+		long length = 0;
+		do
+		{
+			int address = replay.getProgramCounter()%ram.length;
+			first = Math.min(first, address);
+			last = Math.max(last, address);
+			replay.step();
+			length++;
+		}
+		while(probe.state(replay.getProgramCounter(), replay.getAccumulator(), replay.getIndexRegister(), replay.getReturnStack(), replay.getStackPointer()) != savedState
+				|| replay.getProgramCounter() != savedProgramCounter || replay.getAccumulator() != savedAccumulator
+				|| replay.getIndexRegister() != savedIndexRegister || !savedStack(replay.getReturnStack(), replay.getStackPointer())
+				|| !Arrays.equals(ram, snapshot));
+		return "Endless loop: the machine returns to the same state every "+length+" instructions, executing the adresses "+first+" to "+last+"\n";
+	}
+}
@@ -0,0 +1,61 @@
+package assemblerSim;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out HeadlessRechners which execute the same program to any number of threads and takes them back for the next run.
+ * A machine taken back is reset to the program with reset(int[]), which only restores the pages the run wrote, so a short run
+ * is not dominated by allocating and clearing a ram. The decoded instructions and compiled blocks of the program stay valid,
+ * so later runs start with the code already compiled. Settings like caches or a loop detector set on a machine are kept.
+ */
+public class MachinePool
+{
+	/**
+	 * The program every machine starts with
+	 */
+	private final int[] image;
+	private final ConcurrentLinkedQueue<HeadlessRechner> idle = new ConcurrentLinkedQueue<HeadlessRechner>();
+	private final AtomicInteger created = new AtomicInteger();
+
+	/**
+	 * Create a new empty pool
+	 * @param nimage The ram content every machine starts with, e.g. created by Interpreter.stringToRam
+	 */
+	public MachinePool(int[] nimage)
+	{
+		image = nimage.clone();
+	}
+
+	/**
+	 * Takes a machine out of the pool, a new one if all machines are in use
+	 * @return A machine with the program in its ram and reset registers
+	 */
+	protected HeadlessRechner acquire()
+	{
+		HeadlessRechner rechner = idle.poll();
+		if(rechner == null)
+		{
+			created.incrementAndGet();
+			rechner = new HeadlessRechner(image.clone());
+		}
+		return rechner;
+	}
+	/**
+	 * Resets a machine and puts it back into the pool, the calling thread must not use it afterwards
+	 * @param nrechner A machine taken from this pool
+	 */
+	protected void release(HeadlessRechner nrechner)
+	{
+		nrechner.reset(image);
+		idle.offer(nrechner);
+	}
+	/**
+	 * Returns the number of machines the pool created
+	 * @return The number of machines created by acquire()
+	 */
+	protected int getCreated()
+	{
+		return created.get();
+	}
+}
@@ -0,0 +1,274 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Simulates the caches between a VonNeuman-machine and its ram: a L1 cache for the instructions, a L1 cache for the data
+ * and optionally a L2 cache shared by both as their next level.
+ * The machine reports every fetch, read and write of a ramcell, the hierarchy counts the hits and misses of every level
+ * and the accesses and L1 misses of every ramcell, which can be summed up for the labels of the program.
+ */
+public class MemoryHierarchy
+{
+	private final Cache instructionCache;
+	private final Cache dataCache;
+	private final int ramSize;
+	/**
+	 * Number of accesses of each ramcell
+	 */
+	private final long[] accesses;
+	/**
+	 * Number of L1 misses of each ramcell
+	 */
+	private final long[] misses;
+
+	/**
+	 * Create a new memory hierarchy
+	 * @param nramSize Size of the ram
+	 * @param ninstructionCache L1 cache for fetching instructions
+	 * @param ndataCache L1 cache for reading and writing operands, it may share its next level with the instruction cache
+	 */
+	public MemoryHierarchy(int nramSize, Cache ninstructionCache, Cache ndataCache)
+	{
+		instructionCache = ninstructionCache;
+		dataCache = ndataCache;
+		ramSize = nramSize;
+		accesses = new long[nramSize];
+		misses = new long[nramSize];
+	}
+	/**
+	 * Create a memory hierarchy without caches, for subclasses which record the accesses themselves
+	 * and override fetch(), read(), write(), reset() and getReport()
+	 * @param nramSize Size of the ram
+	 */
+	protected MemoryHierarchy(int nramSize)
+	{
+		instructionCache = null;
+		dataCache = null;
+		ramSize = nramSize;
+		accesses = null;
+		misses = null;
+	}
+
+	/**
+	 * Empties all caches and resets the statistics
+	 */
+	protected void reset()
+	{
+		for(Cache cache = instructionCache; cache != null; cache = cache.getNext())
+		{
+			cache.reset();
+		}
+		for(Cache cache = dataCache; cache != null; cache = cache.getNext())
+		{
+			cache.reset();
+		}
+		Arrays.fill(accesses, 0);
+		Arrays.fill(misses, 0);
+	}
+
+	/**
+	 * Records the fetch of an instruction
+	 * @param address The ramcell containing the instruction
+	 */
+	protected void fetch(int address)
+	{
+		accesses[address]++;
+		if(!instructionCache.access(address, false))
+		{
+			misses[address]++;
+		}
+	}
+	/**
+	 * Records the reading of an operand, an adress or a jump adress
+	 * @param address The ramcell read
+	 */
+	protected void read(int address)
+	{
+		accesses[address]++;
+		if(!dataCache.access(address, false))
+		{
+			misses[address]++;
+		}
+	}
+	/**
+	 * Records the writing of a ramcell
+	 * @param address The ramcell written
+	 */
+	protected void write(int address)
+	{
+		accesses[address]++;
+		if(!dataCache.access(address, true))
+		{
+			misses[address]++;
+		}
+	}
+	/**
+	 * Records all accesses of an executed instruction, in the order the VonNeumannRechner makes them.
+	 * The accesses of the regions of bulk instructions have to be recorded with bulk().
+	 * @param address The ramcell the instruction was fetched from
+	 * @param instruction The executed instruction
+	 * @param operand The decoded operand of the instruction
+	 * @param effective The adressregister after the execution, the adress of the operand for instructions accessing the ram
+	 * @param accumulator The accumulator after the execution, which jumps check their condition with
+	 */
+	void executed(int address, int instruction, int operand, int effective, int accumulator)
+	{
+		fetch(address);
+		Opcodes command = Opcodes.decode(instruction);
+		if(command.isBulk())
+		{
+			return;
+		}
+		if(command.isIndirect())
+		{
+			read(operand);
+		}
+		if(command.readsRam() && (!command.isJump() || command.isJumpTaken(accumulator)))
+		{
+			read(effective);
+		}
+		if(command.writesRam())
+		{
+			write(effective);
+		}
+	}
+	/**
+	 * Records the accesses of a bulk instruction: the descriptor and then the regions ramcell by ramcell
+	 * @param command MEMCPY, MEMSET or MEMCMP
+	 * @param cell The first ramcell of the descriptor
+	 * @param first The destination or the first region
+	 * @param second The source or the second region, ignored for MEMSET
+	 * @param count The number of processed ramcells, nothing is accessed if it is 0
+	 */
+	protected void bulk(Opcodes command, int cell, int first, int second, int count)
+	{
+		if(count <= 0)
+		{
+			return;
+		}
+		read(cell);
+		read(cell+1 < ramSize ? cell+1 : 0);
+		for(int i = 0; i < count; i++)
+		{
+			switch(command)
+			{
+			case MEMCPY:
+				read(second+i);
+				write(first+i);
+				break;
+			case MEMSET:
+				write(first+i);
+				break;
+			default:
+				read(first+i);
+				read(second+i);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns a report of the statistics of all cache levels, of the labels and of the ramcells with the most misses
+	 * @param labels Labels of the program and their adresses, e.g. from Interpreter.stringToLabels, may be null
+	 * @param maxCells Maximum number of ramcells in the report
+	 * @return The report
+	 */
+	protected String getReport(Map<String, Integer> labels, int maxCells)
+	{
+		StringBuilder report = new StringBuilder();
+		report.append(instructionCache.getReport());
+		report.append(dataCache.getReport());
+		Cache level = instructionCache.getNext();
+		while(level != null)
+		{
+			report.append(level.getReport());
+			level = level.getNext();
+		}
+		if(labels != null && !labels.isEmpty())
+		{
+			appendLabels(report, labels, new long[][]{accesses, misses}, new String[]{"accesses", "L1 misses"}, 1);
+		}
+		List<Integer> cells = new ArrayList<Integer>();
+		for(int i = 0; i < misses.length; i++)
+		{
+			if(misses[i] > 0)
+			{
+				cells.add(i);
+			}
+		}
+		Collections.sort(cells, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return misses[b] < misses[a] ? -1 : (misses[b] > misses[a] ? 1 : a-b);
+			}
+		});
+		for(int i = 0; i < cells.size() && i < maxCells; i++)
+		{
+			int address = cells.get(i);
+			report.append("Ramcell ").append(address).append(": ").append(accesses[address]).append(" accesses, ");
+			report.append(misses[address]).append(" L1 misses\n");
+		}
+		return report.toString();
+	}
+	/**
+	 * Sums up the statistics of the ramcells for the labels, every label covers the ramcells up to the next label
+	 * @param report The report to append the statistics of the labels to, the labels with the highest sum of the sorted statistic first
+	 * @param labels Labels of the program and their adresses
+	 * @param statistics The statistics of every ramcell, each of the size of the ram
+	 * @param names The names of the statistics in the report
+	 * @param sortBy The index of the statistic to sort the labels by
+	 */
+	static void appendLabels(StringBuilder report, Map<String, Integer> labels, long[][] statistics, String[] names, int sortBy)
+	{
+		List<Map.Entry<String, Integer>> sorted = new ArrayList<Map.Entry<String, Integer>>(labels.entrySet());
+		Collections.sort(sorted, new Comparator<Map.Entry<String, Integer>>()
+		{
+			public int compare(Map.Entry<String, Integer> a, Map.Entry<String, Integer> b)
+			{
+				return a.getValue()-b.getValue();
+			}
+		});
+		int size = statistics[0].length;
+		final long[][] sums = new long[statistics.length][sorted.size()];
+		for(int i = 0; i < sorted.size(); i++)
+		{
+			int end = i+1 < sorted.size() ? sorted.get(i+1).getValue() : size;
+			for(int address = Math.max(sorted.get(i).getValue(), 0); address < end && address < size; address++)
+			{
+				for(int j = 0; j < statistics.length; j++)
+				{
+					sums[j][i] += statistics[j][address];
+				}
+			}
+		}
+		final long[] key = sums[sortBy];
+		List<Integer> order = new ArrayList<Integer>();
+		for(int i = 0; i < sorted.size(); i++)
+		{
+			order.add(i);
+		}
+		Collections.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return key[b] < key[a] ? -1 : (key[b] > key[a] ? 1 : a-b);
+			}
+		});
+		for(int i : order)
+		{
+			report.append("Label ").append(sorted.get(i).getKey()).append(":");
+			for(int j = 0; j < statistics.length; j++)
+			{
+				report.append(j == 0 ? " " : ", ").append(sums[j][i]).append(' ').append(names[j]);
+			}
+			report.append('\n');
+		}
+	}
+}
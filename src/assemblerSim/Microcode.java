@@ -0,0 +1,221 @@
+package assemblerSim;
+
+/**
+ * The microcode ROM of the VonNeumannRechner: for every opcode a microprogram of the INDIRECT- and of the EXECUTE-cycle,
+ * and one microprogram of the FETCH-cycle. A microprogram is a sequence of micro-operations, STEP ends a step of the machine,
+ * so the next step continues after it. The last step of a microprogram ends with the microprogram.
+ * The GOTO_ micro-operations choose the cycle of the next step, the others are executed by VonNeumannRechner.microOperation().
+ */
+public class Microcode
+{
+	/*
+	 * Sequencing
+	 */
+	final static byte STEP = 0;
+	final static byte GOTO_FETCH = 1;
+	final static byte GOTO_INDIRECT = 2;
+	final static byte GOTO_EXECUTE = 3;
+	/*
+	 * Registers and ram
+	 */
+	/** Adressregister = Programcounter */
+	final static byte AR_PC = 4;
+	/** Instructionregister = ram[Adressregister] */
+	final static byte IR_RAM = 5;
+	/** Adressregister = adress of the Instructionregister */
+	final static byte AR_IR = 6;
+	/** Adressregister = ram[Adressregister] */
+	final static byte AR_RAM = 7;
+	/** Accumulator = ram[Adressregister] */
+	final static byte ACC_RAM = 8;
+	/** Accumulator = value of the Instructionregister */
+	final static byte ACC_IR = 9;
+	/** Valueregister = ram[Adressregister] */
+	final static byte VR_RAM = 10;
+	/** Valueregister = value of the Instructionregister */
+	final static byte VR_IR = 11;
+	/** ram[Adressregister] = Accumulator */
+	final static byte RAM_ACC = 12;
+	/** Accumulator = Valueregister */
+	final static byte ACC_VR = 13;
+	/*
+	 * ALU, the result is stored in the accumulator
+	 */
+	final static byte ADD = 14;
+	final static byte SUB = 15;
+	final static byte MULT = 16;
+	final static byte DIV = 17;
+	final static byte MOD = 18;
+	final static byte AND = 19;
+	final static byte OR = 20;
+	final static byte NOT = 21;
+	/*
+	 * Bulk memory, see BulkMemory
+	 */
+	final static byte COPY = 22;
+	final static byte FILL = 23;
+	final static byte COMPARE = 24;
+	/*
+	 * Programcounter and jumps
+	 */
+	/** Programcounter + 1, halts at the end of the ram */
+	final static byte INC_PC = 25;
+	/** Programcounter = adress of the Instructionregister */
+	final static byte PC_IR = 26;
+	/** Programcounter = ram[Adressregister] */
+	final static byte PC_RAM = 27;
+	/** Jumpflag = condition of the accumulator */
+	final static byte IF_EQ = 28;
+	final static byte IF_NE = 29;
+	final static byte IF_GT = 30;
+	final static byte IF_LT = 31;
+	final static byte IF_GE = 32;
+	final static byte IF_LE = 33;
+	/** Jumps to ram[Adressregister] if the jumpflag is set, otherwise Programcounter + 1 */
+	final static byte BRANCH = 34;
+	/** Jumps to the adress of the Instructionregister if the jumpflag is set, otherwise Programcounter + 1 */
+	final static byte BRANCH_IR = 35;
+	/*
+	 * Control
+	 */
+	final static byte NOP = 36;
+	final static byte HALT = 37;
+	final static byte BREAK = 38;
+	/** Resets the highlighted line of the View */
+	final static byte LINE_0 = 39;
+	/*
+	 * Index register and return stack
+	 */
+	/** Adressregister = adress of the Instructionregister + Indexregister */
+	final static byte AR_IX = 40;
+	/** Indexregister = ram[Adressregister] */
+	final static byte X_RAM = 41;
+	/** Indexregister = value of the Instructionregister */
+	final static byte X_IR = 42;
+	/** ram[Adressregister] = Indexregister */
+	final static byte RAM_X = 43;
+	/** Indexregister = Accumulator */
+	final static byte X_ACC = 44;
+	/** Accumulator = Indexregister */
+	final static byte ACC_X = 45;
+	final static byte INC_X = 46;
+	final static byte DEC_X = 47;
+	/** Pushes Programcounter + 1 on the return stack */
+	final static byte PUSH_PC = 48;
+	/** Programcounter = adress popped from the return stack */
+	final static byte POP_PC = 49;
+
+	/**
+	 * Microprogram of the FETCH-cycle
+	 */
+	final static byte[] FETCH = {AR_PC, STEP, IR_RAM, GOTO_INDIRECT};
+	/*
+	 * Microprograms of the INDIRECT-cycle
+	 */
+	private final static byte[] OPERAND_IMMEDIATE = {GOTO_EXECUTE};
+	private final static byte[] OPERAND_DIRECT = {AR_IR, GOTO_EXECUTE};
+	private final static byte[] OPERAND_INDIRECT = {AR_IR, STEP, AR_RAM, GOTO_EXECUTE};
+	private final static byte[] OPERAND_INDEXED = {AR_IX, GOTO_EXECUTE};
+
+	/**
+	 * Microprograms of the INDIRECT-cycle, indexed by the ordinal of the opcode
+	 */
+	final static byte[][] INDIRECT = new byte[Opcodes.values().length][];
+	/**
+	 * Microprograms of the EXECUTE-cycle, indexed by the ordinal of the opcode
+	 */
+	final static byte[][] EXECUTE = new byte[Opcodes.values().length][];
+
+	static
+	{
+		row(Opcodes.NOP, OPERAND_IMMEDIATE, NOP, INC_PC, GOTO_FETCH, LINE_0);
+		row(Opcodes.HALT, OPERAND_DIRECT, HALT);
+		row(Opcodes.BREAK, OPERAND_IMMEDIATE, BREAK, INC_PC, GOTO_FETCH);
+		row(Opcodes.LOAD, OPERAND_DIRECT, ACC_RAM, INC_PC, GOTO_FETCH);
+		row(Opcodes.LOADI, OPERAND_INDIRECT, ACC_RAM, INC_PC, GOTO_FETCH);
+		row(Opcodes.LOADM, OPERAND_IMMEDIATE, ACC_IR, INC_PC, GOTO_FETCH);
+		row(Opcodes.STORE, OPERAND_DIRECT, RAM_ACC, INC_PC, GOTO_FETCH);
+		row(Opcodes.STOREI, OPERAND_INDIRECT, RAM_ACC, INC_PC, GOTO_FETCH);
+		arithmetic(Opcodes.ADD, Opcodes.ADDM, Opcodes.ADDI, ADD);
+		arithmetic(Opcodes.SUB, Opcodes.SUBM, Opcodes.SUBI, SUB);
+		arithmetic(Opcodes.MULT, Opcodes.MULTM, Opcodes.MULTI, MULT);
+		arithmetic(Opcodes.DIV, Opcodes.DIVM, Opcodes.DIVI, DIV);
+		arithmetic(Opcodes.MOD, Opcodes.MODM, Opcodes.MODI, MOD);
+		arithmetic(Opcodes.AND, Opcodes.ANDM, Opcodes.ANDI, AND);
+		arithmetic(Opcodes.OR, Opcodes.ORM, Opcodes.ORI, OR);
+		row(Opcodes.NOT, OPERAND_IMMEDIATE, NOT, INC_PC, GOTO_FETCH);
+		row(Opcodes.JMP, OPERAND_DIRECT, PC_RAM);
+		row(Opcodes.JMPI, OPERAND_INDIRECT, PC_RAM);
+		row(Opcodes.JMPM, OPERAND_IMMEDIATE, PC_IR);
+		jump(Opcodes.JMPEQ, Opcodes.JMPEQM, Opcodes.JMPEQI, IF_EQ);
+		jump(Opcodes.JMPNE, Opcodes.JMPNEM, Opcodes.JMPNEI, IF_NE);
+		jump(Opcodes.JMPGT, Opcodes.JMPGTM, Opcodes.JMPGTI, IF_GT);
+		jump(Opcodes.JMPLT, Opcodes.JMPLTM, Opcodes.JMPLTI, IF_LT);
+		jump(Opcodes.JMPGE, Opcodes.JMPGEM, Opcodes.JMPGEI, IF_GE);
+		jump(Opcodes.JMPLE, Opcodes.JMPLEM, Opcodes.JMPLEI, IF_LE);
+		row(Opcodes.XCHG, OPERAND_DIRECT, VR_RAM, STEP, RAM_ACC, STEP, ACC_VR, INC_PC, GOTO_FETCH);
+		row(Opcodes.MEMCPY, OPERAND_DIRECT, COPY, INC_PC, GOTO_FETCH);
+		row(Opcodes.MEMSET, OPERAND_DIRECT, FILL, INC_PC, GOTO_FETCH);
+		row(Opcodes.MEMCMP, OPERAND_DIRECT, COMPARE, INC_PC, GOTO_FETCH);
+		row(Opcodes.LDX, OPERAND_DIRECT, X_RAM, INC_PC, GOTO_FETCH);
+		row(Opcodes.LDXM, OPERAND_IMMEDIATE, X_IR, INC_PC, GOTO_FETCH);
+		row(Opcodes.STX, OPERAND_DIRECT, RAM_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.TAX, OPERAND_IMMEDIATE, X_ACC, INC_PC, GOTO_FETCH);
+		row(Opcodes.TXA, OPERAND_IMMEDIATE, ACC_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.INCX, OPERAND_IMMEDIATE, INC_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.DECX, OPERAND_IMMEDIATE, DEC_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.LOADX, OPERAND_INDEXED, ACC_RAM, INC_PC, GOTO_FETCH);
+		row(Opcodes.STOREX, OPERAND_INDEXED, RAM_ACC, INC_PC, GOTO_FETCH);
+		row(Opcodes.ADDX, OPERAND_INDEXED, VR_RAM, STEP, ADD, INC_PC, GOTO_FETCH);
+		row(Opcodes.SUBX, OPERAND_INDEXED, VR_RAM, STEP, SUB, INC_PC, GOTO_FETCH);
+		row(Opcodes.LOADXP, OPERAND_INDEXED, ACC_RAM, INC_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.STOREXP, OPERAND_INDEXED, RAM_ACC, INC_X, INC_PC, GOTO_FETCH);
+		row(Opcodes.CALL, OPERAND_IMMEDIATE, PUSH_PC, PC_IR);
+		row(Opcodes.RET, OPERAND_IMMEDIATE, POP_PC);
+		for(Opcodes opcode : Opcodes.values())
+		{
+			if(EXECUTE[opcode.ordinal()] == null)
+			{
+				throw new IllegalStateException("No microcode for "+opcode);
+			}
+		}
+	}
+
+	/**
+	 * Adds the microprograms of an opcode to the ROM
+	 * @param opcode The opcode
+	 * @param operand Microprogram of the INDIRECT-cycle
+	 * @param execute Microprogram of the EXECUTE-cycle
+	 */
+	private static void row(Opcodes opcode, byte[] operand, byte... execute)
+	{
+		INDIRECT[opcode.ordinal()] = operand;
+		EXECUTE[opcode.ordinal()] = execute;
+	}
+	/**
+	 * Adds the microprograms of the direct, immediate and indirect variant of an arithmetic or logic instruction to the ROM
+	 * @param direct The opcode with a direct adress
+	 * @param immediate The opcode with an immediate value
+	 * @param indirect The opcode with an indirect adress
+	 * @param operation The ALU micro-operation
+	 */
+	private static void arithmetic(Opcodes direct, Opcodes immediate, Opcodes indirect, byte operation)
+	{
+		row(direct, OPERAND_DIRECT, VR_RAM, STEP, operation, INC_PC, GOTO_FETCH);
+		row(immediate, OPERAND_IMMEDIATE, VR_IR, STEP, operation, INC_PC, GOTO_FETCH);
+		row(indirect, OPERAND_INDIRECT, VR_RAM, STEP, operation, INC_PC, GOTO_FETCH);
+	}
+	/**
+	 * Adds the microprograms of the direct, immediate and indirect variant of a conditional jump to the ROM
+	 * @param direct The opcode with a direct adress
+	 * @param immediate The opcode with an immediate adress
+	 * @param indirect The opcode with an indirect adress
+	 * @param condition The micro-operation checking the condition
+	 */
+	private static void jump(Opcodes direct, Opcodes immediate, Opcodes indirect, byte condition)
+	{
+		row(direct, OPERAND_DIRECT, condition, BRANCH);
+		row(immediate, OPERAND_IMMEDIATE, condition, BRANCH_IR);
+		row(indirect, OPERAND_INDIRECT, condition, BRANCH);
+	}
+}
@@ -0,0 +1,496 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Simulates several VonNeuman-machines (cores) sharing one ram. Every core is a HeadlessRechner running on its own thread.
+ * All cores start at address 0 with their number in the accumulator, so a program can split its work between them.
+ *
+ * Memory model:
+ * Every write into a ramcell (STORE, STOREI, STOREX, STOREXP, STX, XCHG, MEMCPY, MEMSET) holds the lock of the ramcell, so the writes into one ramcell are totally ordered
+ * and XCHG exchanges the accumulator with the ramcell atomically. Holding the lock gives a write release semantics and a XCHG acquire
+ * and release semantics: after a core read a value with XCHG, it sees all writes the writing core made before writing that value.
+ * MEMCPY and MEMSET hold the locks of all ramcells of the destination while writing, they acquire them in ascending order
+ * of the locks, so they can not deadlock. Other cores may see the ramcells of the destination change one after another.
+ * Only XCHG synchronizes: LOAD and the other reading instructions are plain reads of the shared array without acquire semantics,
+ * so they may see an old value of a ramcell written by another core for any time, e.g. a loop polling a flag with LOAD may never end.
+ * A value written by another core is only guaranteed to be visible after a XCHG on a ramcell that core wrote afterwards, e.g. a spinlock:
+ * <pre>
+ * :lock LOADM 1
+ * XCHG mutex
+ * JMPNEM lock
+ * ...
+ * LOADM 0
+ * STORE mutex
+ * </pre>
+ * Every core decodes the ram on its own. A write marks the page of the ramcell as stale on all other cores, while the lock is held.
+ * A core drops its decoded instructions of the stale pages in every XCHG and every HeadlessRechner.CHECK_INTERVAL instructions,
+ * so code written by another core is executed like other written values are read: at the latest after a XCHG.
+ */
+public class MultiCoreRechner
+{
+	/**
+	 * Maximum number of cores, limited by the bitmask of the writing cores of a ramcell
+	 */
+	public final static int MAX_CORES = 32;
+	/**
+	 * Number of locks shared by the ramcells
+	 */
+	public final static int LOCK_STRIPES = 64;
+
+	private final int[] ram;
+	private final Core[] cores;
+	private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+	/*
+	 * Contention statistics, only changed while holding the lock of the ramcell
+	 */
+	/**
+	 * Bitmask of the cores which wrote into the ramcell
+	 */
+	private final int[] writers;
+	/**
+	 * Core which wrote into the ramcell last, -1 if it was not written yet
+	 */
+	private final int[] lastWriter;
+	/**
+	 * Number of writes into the ramcell by a different core than the previous write
+	 */
+	private final int[] handoffs;
+
+	/**
+	 * Create a new instance of MultiCoreRechner
+	 * @param nram The shared ram content, e.g. created by Interpreter.stringToRam
+	 * @param ncores Number of cores
+	 */
+	public MultiCoreRechner(int[] nram, int ncores)
+	{
+		if(ncores < 1 || ncores > MAX_CORES)
+		{
+			throw new IllegalArgumentException("The number of cores has to be between 1 and "+MAX_CORES);
+		}
+		ram = nram;
+		for(int i = 0; i < locks.length; i++)
+		{
+			locks[i] = new ReentrantLock();
+		}
+		writers = new int[ram.length];
+		lastWriter = new int[ram.length];
+		handoffs = new int[ram.length];
+		Arrays.fill(lastWriter, -1);
+		cores = new Core[ncores];
+		for(int i = 0; i < cores.length; i++)
+		{
+			cores[i] = new Core(i);
+			cores[i].setRegister(VonNeumannRechner.ACCUMULATOR, i);
+		}
+	}
+
+	/**
+	 * Returns the shared ram
+	 * @return The content of the ram
+	 */
+	protected int[] getRam()
+	{
+		return ram;
+	}
+	/**
+	 * Returns the number of cores
+	 * @return The number of cores
+	 */
+	protected int getCoreCount()
+	{
+		return cores.length;
+	}
+	/**
+	 * Returns a core, e.g. to read its registers and its instruction count
+	 * @param ncore Number of the core
+	 * @return The core
+	 */
+	protected HeadlessRechner getCore(int ncore)
+	{
+		return cores[ncore];
+	}
+	/**
+	 * Returns the number of times a core had to wait for the lock of a ramcell
+	 * @param ncore Number of the core
+	 * @return The number of contended writes of the core
+	 */
+	protected long getContendedWrites(int ncore)
+	{
+		return cores[ncore].contendedWrites;
+	}
+
+	/**
+	 * Runs all cores on their own threads until every core stopped.
+	 * If a core fails, the other cores are cancelled and the exception of the core is thrown.
+	 * A cancel() of a previous run, which reached cores after they had stopped, does not stop this run.
+	 * @param maxInstructions Maximum number of instructions every core executes
+	 * @param deadline Time in milliseconds like System.currentTimeMillis(), after which the cores stop, Long.MAX_VALUE for none
+	 * @return The reasons why the cores stopped, indexed by the number of the core
+	 * @throws InterruptedException If the calling thread is interrupted while waiting for the cores
+	 */
+	protected StopReason[] run(final long maxInstructions, final long deadline) throws InterruptedException
+	{
+		final StopReason[] reasons = new StopReason[cores.length];
+		final RuntimeException[] errors = new RuntimeException[cores.length];
+		Thread[] threads = new Thread[cores.length];
+		for(Core core : cores)
+		{
+			core.clearCancel();
+		}
+		for(int i = 0; i < cores.length; i++)
+		{
+			final int core = i;
+			threads[i] = new Thread("Core "+i)
+			{
+				public void run()
+				{
+					try
+					{
+						reasons[core] = cores[core].runUntil(maxInstructions, deadline);
+					}
+					catch(RuntimeException e)
+					{
+						errors[core] = e;
+						cancel();
+					}
+				}
+			};
+			threads[i].start();
+		}
+		try
+		{
+			for(Thread thread : threads)
+			{
+				thread.join();
+			}
+		}
+		catch(InterruptedException e)
+		{
+			cancel();
+			throw e;
+		}
+		for(RuntimeException error : errors)
+		{
+			if(error != null)
+			{
+				throw error;
+			}
+		}
+		return reasons;
+	}
+	/**
+	 * Stops all running cores from another thread
+	 */
+	protected void cancel()
+	{
+		for(Core core : cores)
+		{
+			core.cancel();
+		}
+	}
+
+	/**
+	 * Returns a report of the executed instructions of the cores and of the ramcells written by several cores
+	 * @return The report, the ramcells with the most writes by changing cores first
+	 */
+	protected String getContentionReport()
+	{
+		StringBuilder report = new StringBuilder();
+		for(int i = 0; i < cores.length; i++)
+		{
+			report.append("Core ").append(i).append(": ").append(cores[i].getInstructionCount()).append(" instructions, ");
+			report.append(cores[i].contendedWrites).append(" contended writes\n");
+		}
+		List<Integer> shared = new ArrayList<Integer>();
+		for(int i = 0; i < ram.length; i++)
+		{
+			if(Integer.bitCount(writers[i]) > 1)
+			{
+				shared.add(i);
+			}
+		}
+		Collections.sort(shared, new Comparator<Integer>()
+		{
+			public int compare(Integer a, Integer b)
+			{
+				return handoffs[b]-handoffs[a];
+			}
+		});
+		for(int address : shared)
+		{
+			report.append("Ramcell ").append(address).append(": written by ").append(Integer.bitCount(writers[address]));
+			report.append(" cores, ").append(handoffs[address]).append(" handoffs\n");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * A core of the machine, which writes into the shared ram while holding the lock of the ramcell
+	 */
+	private class Core extends HeadlessRechner
+	{
+		private final int number;
+		/**
+		 * Number of writes which had to wait for the lock of the ramcell
+		 */
+		long contendedWrites;
+		/**
+		 * Pages of ramcells written by other cores, whose decoded instructions this core has not dropped yet.
+		 * One bit per page of 1<<HeadlessRechner.DIRTY_PAGE_BITS ramcells.
+		 */
+		private final AtomicLongArray stale;
+		/**
+		 * true, if another core marked a page as stale since the core dropped the stale pages last
+		 */
+		private volatile boolean hasStale;
+
+		/**
+		 * Create a new core
+		 * @param nnumber Number of the core
+		 */
+		Core(int nnumber)
+		{
+			super(MultiCoreRechner.this.ram);
+			number = nnumber;
+			stale = new AtomicLongArray(((ram.length-1>>DIRTY_PAGE_BITS)>>6)+1);
+		}
+
+		/**
+		 * Stores a value in the shared ram while holding the lock of the ramcell
+		 * @param index The ramcell to write to
+		 * @param value The new value of the ramcell
+		 */
+		protected void setRam(int index, int value)
+		{
+			ReentrantLock lock = lock(index);
+			try
+			{
+				super.setRam(index, value);
+				shared(index, 1);
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		/**
+		 * Exchanges a value with the shared ram atomically
+		 * @param index The ramcell to write to
+		 * @param value The new value of the ramcell
+		 * @return The content of the ramcell before
+		 */
+		int exchange(int index, int value)
+		{
+			ReentrantLock lock = lock(index);
+			try
+			{
+				dropStale();
+				int previous = ram[index];
+				super.setRam(index, value);
+				shared(index, 1);
+				return previous;
+			}
+			finally
+			{
+				lock.unlock();
+			}
+		}
+		/**
+		 * Copies ramcells of the shared ram while holding the locks of all ramcells of the destination
+		 * @param destination The first ramcell to write to
+		 * @param source The first ramcell to copy
+		 * @param length The number of ramcells to copy
+		 */
+		protected void copyRam(int destination, int source, int length)
+		{
+			boolean[] locked = lockRange(destination, length);
+			try
+			{
+				super.copyRam(destination, source, length);
+				shared(destination, length);
+			}
+			finally
+			{
+				unlockRange(locked);
+			}
+		}
+		/**
+		 * Sets ramcells of the shared ram while holding the locks of all ramcells of the destination
+		 * @param destination The first ramcell to write to
+		 * @param value The new value of the ramcells
+		 * @param length The number of ramcells to write
+		 */
+		protected void fillRam(int destination, int value, int length)
+		{
+			boolean[] locked = lockRange(destination, length);
+			try
+			{
+				super.fillRam(destination, value, length);
+				shared(destination, length);
+			}
+			finally
+			{
+				unlockRange(locked);
+			}
+		}
+		/**
+		 * Drops the decoded instructions of the stale pages at the end of every CHECK_INTERVAL instructions
+		 */
+		void checkShared()
+		{
+			dropStale();
+		}
+		/**
+		 * Marks written ramcells as stale on all other cores, the locks of the ramcells have to be held
+		 * @param start The first written ramcell
+		 * @param length The number of written ramcells
+		 */
+		private void shared(int start, int length)
+		{
+			if(length <= 0)
+			{
+				return;
+			}
+			for(Core core : cores)
+			{
+				if(core != this)
+				{
+					core.markStale(start, length);
+				}
+			}
+		}
+		/**
+		 * Marks the pages of ramcells written by another core as stale, called by the writing core.
+		 * Setting a bit is a volatile write even if it was set, so the core sees the written values when it drops the page.
+		 * @param start The first written ramcell
+		 * @param length The number of written ramcells
+		 */
+		private void markStale(int start, int length)
+		{
+			for(int page = start>>DIRTY_PAGE_BITS; page <= start+length-1>>DIRTY_PAGE_BITS; page++)
+			{
+				long bits;
+				do
+				{
+					bits = stale.get(page>>6);
+				}
+				while(!stale.compareAndSet(page>>6, bits, bits|1L<<page));
+			}
+			hasStale = true;
+		}
+		/**
+		 * Drops the decoded instructions of the pages marked as stale by other cores, called by the core itself
+		 */
+		private void dropStale()
+		{
+			if(!hasStale)
+			{
+				return;
+			}
+			hasStale = false;
+			for(int word = 0; word < stale.length(); word++)
+			{
+				if(stale.get(word) == 0)
+				{
+					continue;
+				}
+				long bits = stale.getAndSet(word, 0);
+				while(bits != 0)
+				{
+					int start = (word<<6|Long.numberOfTrailingZeros(bits))<<DIRTY_PAGE_BITS;
+					dropDecoded(start, Math.min(1<<DIRTY_PAGE_BITS, ram.length-start));
+					bits &= bits-1;
+				}
+			}
+		}
+		/**
+		 * Acquires the lock of a ramcell and records the write in the contention statistics
+		 * @param index The ramcell to write to
+		 * @return The acquired lock
+		 */
+		private ReentrantLock lock(int index)
+		{
+			ReentrantLock lock = acquire(index%LOCK_STRIPES);
+			record(index);
+			return lock;
+		}
+		/**
+		 * Acquires the locks of a region of ramcells in ascending order and records the writes in the contention statistics
+		 * @param start The first ramcell to write to
+		 * @param length The number of ramcells to write
+		 * @return The acquired locks, indexed by the lock
+		 */
+		private boolean[] lockRange(int start, int length)
+		{
+			boolean[] locked = new boolean[LOCK_STRIPES];
+			for(int i = 0; i < length && i < LOCK_STRIPES; i++)
+			{
+				locked[(start+i)%LOCK_STRIPES] = true;
+			}
+			for(int i = 0; i < LOCK_STRIPES; i++)
+			{
+				if(locked[i])
+				{
+					acquire(i);
+				}
+			}
+			for(int i = start; i < start+length; i++)
+			{
+				record(i);
+			}
+			return locked;
+		}
+		/**
+		 * Releases the locks acquired by lockRange()
+		 * @param locked The acquired locks, indexed by the lock
+		 */
+		private void unlockRange(boolean[] locked)
+		{
+			for(int i = 0; i < LOCK_STRIPES; i++)
+			{
+				if(locked[i])
+				{
+					locks[i].unlock();
+				}
+			}
+		}
+		/**
+		 * Acquires a lock and counts it, if the core has to wait for it
+		 * @param stripe The index of the lock
+		 * @return The acquired lock
+		 */
+		private ReentrantLock acquire(int stripe)
+		{
+			ReentrantLock lock = locks[stripe];
+			if(!lock.tryLock())
+			{
+				contendedWrites++;
+				lock.lock();
+			}
+			return lock;
+		}
+		/**
+		 * Records a write in the contention statistics, the lock of the ramcell has to be held
+		 * @param index The ramcell written
+		 */
+		private void record(int index)
+		{
+			writers[index] |= 1<<number;
+			if(lastWriter[index] != number)
+			{
+				if(lastWriter[index] >= 0)
+				{
+					handoffs[index]++;
+				}
+				lastWriter[index] = number;
+			}
+		}
+	}
+}
@@ -64,5 +64,183 @@ public enum Opcodes {
 	JMPGTI,
 	JMPLTI,
 	JMPGEI,
-	JMPLEI
+	JMPLEI,
+	/**
+	 * direct addressing, exchanges the accumulator with the ramcell atomically
+	 */
+	XCHG,
+	/**
+	 * direct addressing of a descriptor, bulk operations on the ram, see BulkMemory
+	 */
+	MEMCPY,
+	MEMSET,
+	MEMCMP,
+	/**
+	 * index register: direct addressing (LDX/STX), immediate addressing (LDXM) or no addressing
+	 */
+	LDX,
+	LDXM,
+	STX,
+	TAX,
+	TXA,
+	INCX,
+	DECX,
+	/**
+	 * indexed addressing, the adress is the operand plus the index register, the P-variants increase the index register afterwards
+	 */
+	LOADX,
+	STOREX,
+	ADDX,
+	SUBX,
+	LOADXP,
+	STOREXP,
+	/**
+	 * subroutines: CALL pushes the adress of the next instruction on the return stack and jumps to the immediate adress,
+	 * RET jumps to the adress popped from the return stack
+	 */
+	CALL,
+	RET;
+	
+	/**
+	 * Cached copy of values(), which creates a new array on every call
+	 */
+	private static final Opcodes[] OPCODES = values();
+	
+	/**
+	 * Returns the opcode encoded in the upper 8 bit of a ramcell
+	 * @param ramCell The machinecode to decode
+	 * @return The encoded opcode or NOP, if the ramcell does not contain a valid opcode
+	 */
+	protected static Opcodes decode(int ramCell)
+	{
+		int instruction = ramCell>>>24;
+		if(instruction < OPCODES.length)
+		{
+			return OPCODES[instruction];
+		}
+		return NOP;
+	}
+	
+	/**
+	 * Checks whether the opcode uses indirect addressing
+	 * @return true, if the operand is the adress of the ramcell containing the adress
+	 */
+	protected boolean isIndirect()
+	{
+		return ordinal() >= LOADI.ordinal() && ordinal() <= JMPLEI.ordinal();
+	}
+	/**
+	 * Checks whether the opcode uses indexed addressing
+	 * @return true, if the adress is the operand plus the index register
+	 */
+	protected boolean isIndexed()
+	{
+		return ordinal() >= LOADX.ordinal() && ordinal() <= STOREXP.ordinal();
+	}
+	/**
+	 * Checks whether the opcode is a jump
+	 * @return true, if the opcode can change the programcounter
+	 */
+	protected boolean isJump()
+	{
+		return (ordinal() >= JMP.ordinal() && ordinal() <= JMPLE.ordinal()) || (ordinal() >= JMPM.ordinal() && ordinal() <= JMPLEM.ordinal())
+				|| (ordinal() >= JMPI.ordinal() && ordinal() <= JMPLEI.ordinal()) || this == CALL || this == RET;
+	}
+	/**
+	 * Checks whether the opcode is a jump with a condition
+	 * @return true, if the opcode only jumps depending on the accumulator
+	 */
+	protected boolean isConditionalJump()
+	{
+		return isJump() && this != JMP && this != JMPM && this != JMPI && this != CALL && this != RET;
+	}
+	/**
+	 * Checks whether the opcode reads the ramcell its adress points to, conditional jumps only read it when they jump
+	 * @return true, if the opcode reads an operand or a jump adress from the ram
+	 */
+	protected boolean readsRam()
+	{
+		switch(this)
+		{
+		case NOP:
+		case HALT:
+		case BREAK:
+		case STORE:
+		case STOREI:
+		case NOT:
+		case LDXM:
+		case STX:
+		case TAX:
+		case TXA:
+		case INCX:
+		case DECX:
+		case STOREX:
+		case STOREXP:
+		case CALL:
+		case RET:
+			return false;
+		default:
+			return ordinal() < LOADM.ordinal() || ordinal() > JMPLEM.ordinal();
+		}
+	}
+	/**
+	 * Checks whether the opcode writes into the ram, the bulk opcodes into the region of their descriptor, all others into the ramcell
+	 * their adress points to
+	 * @return true, if the opcode stores the accumulator or the index register or copies or sets ramcells
+	 */
+	protected boolean writesRam()
+	{
+		return this == STORE || this == STOREI || this == XCHG || this == MEMCPY || this == MEMSET || this == STX || this == STOREX || this == STOREXP;
+	}
+	/**
+	 * Checks whether the opcode is a bulk operation on a region of the ram
+	 * @return true for MEMCPY, MEMSET and MEMCMP
+	 */
+	protected boolean isBulk()
+	{
+		return this == MEMCPY || this == MEMSET || this == MEMCMP;
+	}
+	/**
+	 * Checks whether the opcode jumps for the given accumulator
+	 * @param accumulator The accumulator the jump condition is checked with
+	 * @return true for unconditional jumps and for conditional jumps with a fulfilled condition, false for all other opcodes
+	 */
+	protected boolean isJumpTaken(int accumulator)
+	{
+		switch(this)
+		{
+		case JMP:
+		case JMPM:
+		case JMPI:
+		case CALL:
+		case RET:
+			return true;
+		case JMPEQ:
+		case JMPEQM:
+		case JMPEQI:
+			return accumulator == 0;
+		case JMPNE:
+		case JMPNEM:
+		case JMPNEI:
+			return accumulator != 0;
+		case JMPGT:
+		case JMPGTM:
+		case JMPGTI:
+			return accumulator > 0;
+		case JMPLT:
+		case JMPLTM:
+		case JMPLTI:
+			return accumulator < 0;
+		case JMPGE:
+		case JMPGEM:
+		case JMPGEI:
+			return accumulator >= 0;
+		case JMPLE:
+		case JMPLEM:
+		case JMPLEI:
+			return accumulator <= 0;
+		default:
+			return false;
+		}
+	}
 }
@@ -0,0 +1,465 @@
+package assemblerSim;
+
+import java.util.Arrays;
+
+/**
+ * Estimates the execution time of a program on a 5-stage pipelined VonNeuman-machine.
+ * The program is executed by a HeadlessRechner, every executed instruction is then scheduled in an in-order pipeline with the stages
+ * IF (fetch), ID (decode, read the accumulator), OF (read the operand from the ram, two cycles for indirect addressing),
+ * EX (ALU, jump conditions, one cycle per ramcell of a bulk instruction) and WB (write the accumulator or the ram).
+ *
+ * Data hazards on the accumulator are resolved by forwarding from EX to EX, hazards on the ram by forwarding stores from WB to OF.
+ * Without forwarding, an instruction waits in ID until the accumulator is written and in OF until the ramcell is written.
+ * Bulk instructions only wait for the ramcells of their descriptor.
+ * Jumps are predicted as not taken: conditional jumps are resolved in EX, JMPM, CALL and RET in ID and jumps to an adress read from the ram after OF,
+ * all instructions fetched after a taken jump are flushed.
+ *
+ * Indexed addressing adds the indexregister to the adress in ID, INCX, DECX and the auto-increment of LOADXP and STOREXP change it there.
+ * These instructions wait in ID until LDX, LDXM or TAX wrote the indexregister in WB, STX and TXA read it like the accumulator.
+ */
+public class PipelineModel
+{
+	/*
+	 * Stages
+	 */
+	public final static int STAGE_IF = 0;
+	public final static int STAGE_ID = 1;
+	public final static int STAGE_OF = 2;
+	public final static int STAGE_EX = 3;
+	public final static int STAGE_WB = 4;
+	public final static int STAGES = 5;
+
+	private final HeadlessRechner rechner;
+	private final int addressMask;
+	private boolean forwarding = true;
+
+	/*
+	 * Schedule of the last instruction
+	 */
+	/**
+	 * Cycle in which the last instruction entered each stage
+	 */
+	private final long[] entered = new long[STAGES];
+	/**
+	 * Cycle in which the instruction being scheduled enters each stage
+	 */
+	private final long[] stage = new long[STAGES];
+	/**
+	 * Cycle in which the next instruction can be fetched after a taken jump
+	 */
+	private long redirect;
+	/**
+	 * Cycles the fetch after the last taken jump is delayed by resolving the jump
+	 */
+	private long flushCycles;
+	/**
+	 * Cycle in which the last instruction had read its operands, it may stay in OF longer while EX is busy
+	 */
+	private long operandsRead;
+	/**
+	 * Cycle in which the last instruction writing the accumulator is in WB
+	 */
+	private long accumulatorWritten;
+	/**
+	 * Cycle in which the last instruction writing the indexregister (LDX, LDXM or TAX) is in WB
+	 */
+	private long indexWritten;
+	/**
+	 * Cycle in which the last instruction writing the ramcell is in WB, indexed by the ramcell
+	 */
+	private final long[] ramWritten;
+
+	/*
+	 * Statistics
+	 */
+	private long instructions;
+	private long accumulatorStalls;
+	private long indexStalls;
+	private long ramStalls;
+	private long indirectStalls;
+	private long controlStalls;
+	private long bulkStalls;
+	private long accumulatorHazards;
+	private long indexHazards;
+	private long ramHazards;
+	private long forwardingHits;
+	private long jumps;
+	private long takenJumps;
+
+	/**
+	 * Create a new instance of PipelineModel
+	 * @param nram The ram content, e.g. created by Interpreter.stringToRam
+	 */
+	public PipelineModel(int[] nram)
+	{
+		rechner = new HeadlessRechner(nram);
+		addressMask = 0xFFFFFF%nram.length;
+		ramWritten = new long[nram.length];
+		reset();
+	}
+
+	/**
+	 * Resets the machine and the statistics, the ram is left untouched
+	 */
+	protected void reset()
+	{
+		rechner.reset();
+		Arrays.fill(entered, -1);
+		Arrays.fill(ramWritten, Long.MIN_VALUE);
+		redirect = 0;
+		flushCycles = 0;
+		operandsRead = -1;
+		accumulatorWritten = Long.MIN_VALUE;
+		indexWritten = Long.MIN_VALUE;
+		instructions = 0;
+		accumulatorStalls = 0;
+		indexStalls = 0;
+		ramStalls = 0;
+		indirectStalls = 0;
+		controlStalls = 0;
+		bulkStalls = 0;
+		accumulatorHazards = 0;
+		indexHazards = 0;
+		ramHazards = 0;
+		forwardingHits = 0;
+		jumps = 0;
+		takenJumps = 0;
+	}
+	/**
+	 * Enables or disables forwarding between the stages
+	 * @param nforwarding true to forward results, false to wait until they are written
+	 */
+	protected void setForwarding(boolean nforwarding)
+	{
+		forwarding = nforwarding;
+	}
+	/**
+	 * Returns the machine executing the program
+	 * @return The machine
+	 */
+	protected HeadlessRechner getRechner()
+	{
+		return rechner;
+	}
+
+	/**
+	 * Executes and schedules instructions until the machine stops or the budget is used up
+	 * @param maxInstructions Maximum number of instructions to execute
+	 * @return The reason why the run stopped
+	 */
+	protected StopReason run(long maxInstructions)
+	{
+		for(long i = 0; i < maxInstructions; i++)
+		{
+			if(rechner.isHalted())
+			{
+				return StopReason.HALT;
+			}
+			rechner.step();
+			schedule();
+			StopReason reason = HeadlessRechner.stopReason(rechner.getStatus());
+			if(reason != null)
+			{
+				return reason;
+			}
+		}
+		return StopReason.BUDGET;
+	}
+
+	/**
+	 * Schedules the instruction the machine just executed in the pipeline
+	 */
+	private void schedule()
+	{
+		int instruction = rechner.getInstructionRegister();
+		Opcodes command = Opcodes.decode(instruction);
+		int operand = instruction&addressMask;
+		int effective = rechner.getAddressRegister();
+		boolean indirect = command.isIndirect();
+		instructions++;
+
+		//IF: after the previous instruction moved to ID and after a taken jump was resolved
+		long sequential = Math.max(entered[STAGE_IF]+1, entered[STAGE_ID]);
+		stage[STAGE_IF] = Math.max(sequential, redirect);
+		controlStalls += flushCycles;
+		flushCycles = 0;
+
+		//ID: the accumulator is read here, in the same cycle it is written in WB
+		stage[STAGE_ID] = Math.max(stage[STAGE_IF]+1, entered[STAGE_OF]);
+		if(readsAccumulator(command) && accumulatorWritten > stage[STAGE_ID])
+		{
+			accumulatorHazards++;
+			if(forwarding)
+			{
+				//forwarded from the output of EX to the input of EX
+				forwardingHits++;
+			}
+			else
+			{
+				accumulatorStalls += accumulatorWritten-stage[STAGE_ID];
+				stage[STAGE_ID] = accumulatorWritten;
+			}
+		}
+		if(readsIndexRegister(command) && indexWritten > stage[STAGE_ID])
+		{
+			indexHazards++;
+			if(forwarding && (command == Opcodes.STX || command == Opcodes.TXA))
+			{
+				forwardingHits++;
+			}
+			else
+			{
+				//the adress is calculated in ID, so the indexregister can not be forwarded from EX
+				indexStalls += indexWritten-stage[STAGE_ID];
+				stage[STAGE_ID] = indexWritten;
+			}
+		}
+
+		//OF: the ram is read here, the pointer of indirect addressing in an additional cycle
+		stage[STAGE_OF] = stage[STAGE_ID]+1;
+		if(entered[STAGE_EX] > stage[STAGE_OF])
+		{
+			//the previous instruction needed a second cycle in OF for indirect addressing, waiting for a busy EX is counted there
+			indirectStalls += Math.max(Math.min(entered[STAGE_EX], operandsRead)-stage[STAGE_OF], 0);
+			stage[STAGE_OF] = entered[STAGE_EX];
+		}
+		if(indirect)
+		{
+			stage[STAGE_OF] = waitForRam(stage[STAGE_OF], operand);
+		}
+		//bulk instructions read their descriptor and process one ramcell per cycle in EX
+		int bulkCount = command.isBulk() ? rechner.getValueRegister() : 0;
+		if(command.isBulk())
+		{
+			if(bulkCount > 0)
+			{
+				stage[STAGE_OF] = waitForRam(stage[STAGE_OF], effective);
+				stage[STAGE_OF] = waitForRam(stage[STAGE_OF], BulkMemory.second(rechner.ram, effective));
+			}
+		}
+		else if(command.readsRam())
+		{
+			stage[STAGE_OF] = waitForRam(stage[STAGE_OF]+(indirect ? 1 : 0), effective)-(indirect ? 1 : 0);
+		}
+		int operandCycles = indirect ? 2 : 1;
+
+		//EX
+		operandsRead = stage[STAGE_OF]+operandCycles;
+		stage[STAGE_EX] = operandsRead;
+		if(entered[STAGE_WB] > stage[STAGE_EX])
+		{
+			//the previous instruction was a bulk instruction needing several cycles in EX
+			bulkStalls += entered[STAGE_WB]-stage[STAGE_EX];
+			stage[STAGE_EX] = entered[STAGE_WB];
+		}
+		//WB
+		stage[STAGE_WB] = Math.max(stage[STAGE_EX]+Math.max(bulkCount, 1), entered[STAGE_WB]+1);
+		if(writesAccumulator(command))
+		{
+			accumulatorWritten = stage[STAGE_WB];
+		}
+		if(command == Opcodes.LDX || command == Opcodes.LDXM || command == Opcodes.TAX)
+		{
+			indexWritten = stage[STAGE_WB];
+		}
+		if(command.isBulk())
+		{
+			if(command != Opcodes.MEMCMP)
+			{
+				Arrays.fill(ramWritten, rechner.bulkFirst, rechner.bulkFirst+bulkCount, stage[STAGE_WB]);
+			}
+		}
+		else if(command.writesRam())
+		{
+			ramWritten[effective] = stage[STAGE_WB];
+		}
+
+		//jumps
+		if(command.isJump())
+		{
+			jumps++;
+			if(command.isJumpTaken(rechner.getAccumulator()))
+			{
+				takenJumps++;
+				//the fetch is delayed by the cycles from ID until the jump is resolved, stalls of the jump itself are counted as such
+				switch(command)
+				{
+				case JMPM:
+				case CALL:
+				case RET:
+					redirect = stage[STAGE_ID]+1;
+					flushCycles = 1;
+					break;
+				case JMP:
+				case JMPI:
+					redirect = stage[STAGE_OF]+operandCycles;
+					flushCycles = 1+operandCycles;
+					break;
+				default:
+					redirect = stage[STAGE_EX]+1;
+					flushCycles = 2+operandCycles;
+					break;
+				}
+			}
+		}
+		System.arraycopy(stage, 0, entered, 0, STAGES);
+	}
+	/**
+	 * Delays the reading of a ramcell until a previous instruction wrote it
+	 * @param cycle Cycle in which the ramcell is read without a hazard
+	 * @param ramcell The ramcell to read
+	 * @return Cycle in which the ramcell can be read
+	 */
+	private long waitForRam(long cycle, int ramcell)
+	{
+		long written = ramWritten[ramcell];
+		if(written == Long.MIN_VALUE || written < cycle)
+		{
+			return cycle;
+		}
+		ramHazards++;
+		//a store can be forwarded in the cycle it is in WB, otherwise the ramcell can be read in the cycle after
+		long ready = forwarding ? written : written+1;
+		if(forwarding)
+		{
+			forwardingHits++;
+		}
+		if(ready <= cycle)
+		{
+			return cycle;
+		}
+		ramStalls += ready-cycle;
+		return ready;
+	}
+
+	/**
+	 * Checks whether an instruction reads the accumulator
+	 * @param command The instruction
+	 * @return true, if the accumulator is an operand of the instruction
+	 */
+	private static boolean readsAccumulator(Opcodes command)
+	{
+		switch(command)
+		{
+		case NOP:
+		case HALT:
+		case BREAK:
+		case LOAD:
+		case LOADM:
+		case LOADI:
+		case JMP:
+		case JMPM:
+		case JMPI:
+		case LDX:
+		case LDXM:
+		case STX:
+		case TXA:
+		case INCX:
+		case DECX:
+		case LOADX:
+		case LOADXP:
+		case CALL:
+		case RET:
+			return false;
+		default:
+			return true;
+		}
+	}
+	/**
+	 * Checks whether an instruction reads the indexregister
+	 * @param command The instruction
+	 * @return true, if the instruction uses indexed addressing or reads or changes the indexregister
+	 */
+	private static boolean readsIndexRegister(Opcodes command)
+	{
+		return command.isIndexed() || command == Opcodes.STX || command == Opcodes.TXA || command == Opcodes.INCX || command == Opcodes.DECX;
+	}
+	/**
+	 * Checks whether an instruction writes the accumulator
+	 * @param command The instruction
+	 * @return true, if the instruction changes the accumulator
+	 */
+	private static boolean writesAccumulator(Opcodes command)
+	{
+		switch(command)
+		{
+		case NOP:
+		case HALT:
+		case BREAK:
+		case STORE:
+		case STOREI:
+		case MEMCPY:
+		case MEMSET:
+		case LDX:
+		case LDXM:
+		case STX:
+		case TAX:
+		case INCX:
+		case DECX:
+		case STOREX:
+		case STOREXP:
+			return false;
+		default:
+			return !command.isJump();
+		}
+	}
+
+	/**
+	 * Returns the number of cycles until the last instruction left the pipeline
+	 * @return The number of cycles
+	 */
+	protected long getCycles()
+	{
+		return instructions == 0 ? 0 : entered[STAGE_WB]+1;
+	}
+	/**
+	 * Returns the number of scheduled instructions
+	 * @return The number of instructions
+	 */
+	protected long getInstructionCount()
+	{
+		return instructions;
+	}
+	/**
+	 * Returns the average number of cycles per instruction
+	 * @return The cycles per instruction
+	 */
+	protected double getCPI()
+	{
+		return instructions == 0 ? 0 : (double)getCycles()/instructions;
+	}
+	/**
+	 * Returns the number of cycles the pipeline did not finish an instruction, without the cycles to fill the pipeline
+	 * @return The number of stall cycles
+	 */
+	protected long getStallCycles()
+	{
+		return instructions == 0 ? 0 : getCycles()-instructions-(STAGES-1);
+	}
+	/**
+	 * Returns the number of operands forwarded between the stages
+	 * @return The number of forwarding hits
+	 */
+	protected long getForwardingHits()
+	{
+		return forwardingHits;
+	}
+	/**
+	 * Returns a report of the pipeline statistics
+	 * @return The report
+	 */
+	protected String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		report.append("Instructions: ").append(instructions).append("\n");
+		report.append("Cycles: ").append(getCycles()).append("\n");
+		report.append("CPI: ").append(String.format("%.3f", getCPI())).append("\n");
+		report.append("Stall cycles: ").append(getStallCycles()).append(" (accumulator ").append(accumulatorStalls).append(", indexregister ").append(indexStalls);
+		report.append(", ram ").append(ramStalls).append(", indirect addressing ").append(indirectStalls);
+		report.append(", jumps ").append(controlStalls).append(", bulk instructions ").append(bulkStalls).append(")\n");
+		report.append("Data hazards: accumulator ").append(accumulatorHazards).append(", indexregister ").append(indexHazards).append(", ram ").append(ramHazards).append("\n");
+		report.append("Forwarding hits: ").append(forwardingHits).append(forwarding ? "" : " (forwarding disabled)").append("\n");
+		report.append("Control hazards: ").append(takenJumps).append(" taken of ").append(jumps).append(" jumps\n");
+		return report.toString();
+	}
+}
@@ -0,0 +1,971 @@
+package assemblerSim;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ram of a VonNeumannRechner. Dense stores all ramcells in one array like the other engines do, Paged stores them in pages of
+ * PAGE_SIZE ramcells, which are allocated when a value other than 0 is first written into one of their ramcells.
+ * A paged ram can therefore cover the whole 24 bit adress space of the operands with memory for the pages a program uses.
+ * Mapped stores the ramcells outside of the java heap in a file mapped into memory, which keeps the content of the ram.
+ *
+ * A wrapping ram reduces adresses modulo its size like the other engines do: operands are masked with 0xFFFFFF%size, calculated adresses
+ * (indirect and indexed adresses, the programcounter) are taken modulo the size. A ram which does not wrap uses operands as they are,
+ * an access outside of the ram throws an ArrayIndexOutOfBoundsException.
+ */
+public abstract class Ram
+{
+	/**
+	 * Number of ramcells adressable by an operand
+	 */
+	public final static int ADDRESS_SPACE = 0x1000000;
+	/**
+	 * Number of ramcells
+	 */
+	protected final int size;
+	private final boolean wrapping;
+	/**
+	 * Mask of the operand bits used as direct adress
+	 */
+	private final int operandMask;
+
+	/**
+	 * Create a new ram
+	 * @param nsize Number of ramcells
+	 * @param nwrapping true, if adresses are reduced modulo the size
+	 */
+	Ram(int nsize, boolean nwrapping)
+	{
+		size = nsize;
+		wrapping = nwrapping;
+		operandMask = wrapping ? 0xFFFFFF/**16777215**/%size : 0xFFFFFF/**16777215**/;
+	}
+
+	/**
+	 * Returns the number of ramcells
+	 * @return The number of ramcells
+	 */
+	protected int getSize()
+	{
+		return size;
+	}
+	/**
+	 * Returns whether adresses are reduced modulo the size
+	 * @return true, if adresses wrap around
+	 */
+	protected boolean isWrapping()
+	{
+		return wrapping;
+	}
+	/**
+	 * Returns the direct adress of an instruction
+	 * @param instruction The instruction
+	 * @return The adress given by the operand
+	 */
+	int operand(int instruction)
+	{
+		return instruction&operandMask;
+	}
+	/**
+	 * Reduces a calculated adress to the ram, if the ram wraps
+	 * @param address The adress
+	 * @return The adress modulo the size or the adress itself
+	 */
+	int reduce(int address)
+	{
+		return wrapping ? address%size : address;
+	}
+	/**
+	 * Returns whether the ram keeps its content when the machine is reset
+	 * @return true for a ram stored in a file
+	 */
+	protected boolean isPersistent()
+	{
+		return false;
+	}
+	/**
+	 * Returns whether writing into the ram throws an exception
+	 * @return true for a file mapped read only
+	 */
+	protected boolean isReadOnly()
+	{
+		return false;
+	}
+	/**
+	 * Throws an exception for a ramcell outside of the ram
+	 * @param cell The ramcell
+	 */
+	void check(int cell)
+	{
+		if(cell < 0 || cell >= size)
+		{
+			throw new ArrayIndexOutOfBoundsException("Ramcell "+cell+" is outside of the ram of "+size+" ramcells");
+		}
+	}
+	/**
+	 * Returns the content of a ramcell
+	 * @param cell The ramcell
+	 * @return The content of the ramcell
+	 * @throws ArrayIndexOutOfBoundsException If the ramcell is outside of the ram
+	 */
+	abstract int read(int cell);
+	/**
+	 * Sets the content of a ramcell
+	 * @param cell The ramcell
+	 * @param value The new content of the ramcell
+	 * @throws ArrayIndexOutOfBoundsException If the ramcell is outside of the ram
+	 */
+	abstract void write(int cell, int value);
+	/**
+	 * Copies ramcells, the regions may overlap
+	 * @param source The first ramcell to copy
+	 * @param destination The first ramcell to write
+	 * @param length The number of ramcells
+	 */
+	void copy(int source, int destination, int length)
+	{
+		if(destination < source)
+		{
+			for(int i = 0; i < length; i++)
+			{
+				write(destination+i, read(source+i));
+			}
+		}
+		else
+		{
+			for(int i = length-1; i >= 0; i--)
+			{
+				write(destination+i, read(source+i));
+			}
+		}
+	}
+	/**
+	 * Sets ramcells to a value
+	 * @param destination The first ramcell to write
+	 * @param length The number of ramcells
+	 * @param value The new content of the ramcells
+	 */
+	void fill(int destination, int length, int value)
+	{
+		for(int i = destination; i < destination+length; i++)
+		{
+			write(i, value);
+		}
+	}
+	/**
+	 * Returns the first ramcell at or after a ramcell, which may hold a value other than 0
+	 * @param cell The ramcell to start at
+	 * @return The ramcell or the size, if all following ramcells are 0
+	 */
+	abstract int nextUsed(int cell);
+	/**
+	 * Returns the array the ramcells are stored in
+	 * @return The array of a dense ram, null for another ram
+	 */
+	abstract int[] array();
+	/**
+	 * Creates an empty ram of the same kind and size
+	 * @return The empty ram
+	 */
+	protected abstract Ram createEmpty();
+	/**
+	 * Creates a ram with the current content, which is independent of this ram: writes into one of them do not change the other one
+	 * @return The copy of the ram
+	 */
+	protected abstract Ram snapshot();
+	/**
+	 * Sets the content of the ram to the content of a snapshot, e.g. of a checkpoint, so the ram keeps its kind.
+	 * Only the ramcells whose content differs are written.
+	 * @param nsnapshot The ram whose content is copied, it is not changed
+	 * @return false, if the snapshot has another size or the ram is read only, the ram is not changed then
+	 */
+	boolean restore(Ram nsnapshot)
+	{
+		if(nsnapshot.size != size || isReadOnly())
+		{
+			return false;
+		}
+		for(int i = Math.min(nextUsed(0), nsnapshot.nextUsed(0)); i < size; i = Math.min(nextUsed(i+1), nsnapshot.nextUsed(i+1)))
+		{
+			int value = nsnapshot.read(i);
+			if(read(i) != value)
+			{
+				write(i, value);
+			}
+		}
+		return true;
+	}
+	/**
+	 * Returns a description of the ram and its used memory
+	 * @return The description in one line
+	 */
+	protected abstract String getReport();
+
+	/**
+	 * Ram storing all ramcells in one array.
+	 *
+	 * The first snapshot copies the array into the pages of a paged ram, the base, and hands out a snapshot of the base.
+	 * Afterwards the ram records which pages of Paged.PAGE_SIZE ramcells are written, also by an engine sharing the array,
+	 * so the next snapshot only copies the written pages into the base and shares the other ones.
+	 */
+	public static class Dense extends Ram
+	{
+		private final int[] cells;
+		/**
+		 * Content of the ram at the last snapshot or restore, null before the first one
+		 */
+		private Paged base;
+		/**
+		 * Pages written since the last snapshot or restore, one bit per page, null before the first one
+		 */
+		private long[] changed;
+
+		/**
+		 * Create a new dense ram
+		 * @param ncells The array of the ramcells, used by the ram
+		 * @param nwrapping true, if adresses are reduced modulo the size
+		 */
+		public Dense(int[] ncells, boolean nwrapping)
+		{
+			super(ncells.length, nwrapping);
+			cells = ncells;
+		}
+
+		@Override
+		int read(int cell)
+		{
+			return cells[cell];
+		}
+		@Override
+		void write(int cell, int value)
+		{
+			cells[cell] = value;
+			if(changed != null)
+			{
+				changed[cell>>>Paged.PAGE_BITS+6] |= 1L<<(cell>>>Paged.PAGE_BITS);
+			}
+		}
+		@Override
+		void copy(int source, int destination, int length)
+		{
+			System.arraycopy(cells, source, cells, destination, length);
+			written(destination, length);
+		}
+		@Override
+		void fill(int destination, int length, int value)
+		{
+			Arrays.fill(cells, destination, destination+length, value);
+			written(destination, length);
+		}
+		/**
+		 * Records ramcells written into the array directly, called by an engine sharing the array
+		 * @param start The first written ramcell
+		 * @param length The number of written ramcells
+		 */
+		void written(int start, int length)
+		{
+			if(changed != null && length > 0)
+			{
+				for(int index = start>>>Paged.PAGE_BITS; index <= start+length-1>>>Paged.PAGE_BITS; index++)
+				{
+					changed[index>>6] |= 1L<<index;
+				}
+			}
+		}
+		@Override
+		int nextUsed(int cell)
+		{
+			return cell;
+		}
+		@Override
+		int[] array()
+		{
+			return cells;
+		}
+		@Override
+		protected Ram createEmpty()
+		{
+			return new Dense(new int[size], isWrapping());
+		}
+		/**
+		 * Copies the pages written since the last snapshot into the base and shares the base with the returned paged ram,
+		 * the first snapshot copies all pages
+		 * @return The copy of the ram
+		 */
+		@Override
+		protected Ram snapshot()
+		{
+			if(base == null)
+			{
+				base = new Paged(size, isWrapping());
+				changed = new long[(base.getPages()-1>>6)+1];
+				Arrays.fill(changed, -1L);
+			}
+			for(int word = 0; word < changed.length; word++)
+			{
+				for(long bits = changed[word]; bits != 0; bits &= bits-1)
+				{
+					int index = word<<6|Long.numberOfTrailingZeros(bits);
+					if(index < base.getPages())
+					{
+						base.setPage(index, copyPage(index));
+					}
+				}
+				changed[word] = 0;
+			}
+			return base.snapshot();
+		}
+		/**
+		 * Copies a paged ram into the array. If the paged ram was taken by snapshot() from this ram or restored into it, only the pages
+		 * written since and the pages the paged ram does not share with the base are copied.
+		 */
+		@Override
+		boolean restore(Ram nsnapshot)
+		{
+			if(!(nsnapshot instanceof Paged) || nsnapshot.size != size || ((Paged)nsnapshot).overlay != null)
+			{
+				return super.restore(nsnapshot);
+			}
+			Paged paged = (Paged)nsnapshot.snapshot();
+			for(int index = 0; index < paged.getPages(); index++)
+			{
+				if(base == null || (changed[index>>6] & 1L<<index) != 0 || base.getPage(index) != paged.getPage(index))
+				{
+					int start = index<<Paged.PAGE_BITS;
+					int length = Math.min(Paged.PAGE_SIZE, size-start);
+					int[] page = paged.getPage(index);
+					if(page == null)
+					{
+						Arrays.fill(cells, start, start+length, 0);
+					}
+					else
+					{
+						System.arraycopy(page, 0, cells, start, length);
+					}
+				}
+			}
+			if(base == null)
+			{
+				changed = new long[(paged.getPages()-1>>6)+1];
+			}
+			else
+			{
+				Arrays.fill(changed, 0);
+			}
+			base = paged;
+			return true;
+		}
+		/**
+		 * Copies a page of the array
+		 * @param index The page
+		 * @return The copy of its ramcells, null if they are all 0
+		 */
+		private int[] copyPage(int index)
+		{
+			int start = index<<Paged.PAGE_BITS;
+			int end = Math.min(start+Paged.PAGE_SIZE, size);
+			for(int i = start; i < end; i++)
+			{
+				if(cells[i] != 0)
+				{
+					int[] page = new int[Paged.PAGE_SIZE];
+					System.arraycopy(cells, start, page, 0, end-start);
+					return page;
+				}
+			}
+			return null;
+		}
+		@Override
+		protected String getReport()
+		{
+			return "Dense ram: "+size+" ramcells, "+(isWrapping() ? "wrapping" : "not wrapping")+"\n";
+		}
+	}
+
+	/**
+	 * Ram storing its ramcells in pages, which are allocated when a value other than 0 is first written into them.
+	 *
+	 * A snapshot shares the pages and the page table with the ram (copy on write), so it takes constant time.
+	 * Every ram has a generation, which is stamped on the pages it allocated or copied since its last snapshot.
+	 * A snapshot gives both rams new generations, so all pages are shared afterwards: the first write into a page
+	 * copies it, the first write after a snapshot also copies the page table.
+	 * A snapshot of a mapped ram is a paged ram without allocated pages, which reads the other pages through the overlay
+	 * of the mapped ram and copies them when they are first written.
+	 */
+	public static class Paged extends Ram
+	{
+		/**
+		 * Source of the generations, every ram gets a new one for every snapshot
+		 */
+		private final static AtomicInteger GENERATIONS = new AtomicInteger();
+		/**
+		 * Number of bits of the adress within a page
+		 */
+		public final static int PAGE_BITS = 12;
+		/**
+		 * Number of ramcells of a page
+		 */
+		public final static int PAGE_SIZE = 1<<PAGE_BITS;
+		private int[][] pages;
+		/**
+		 * Generation of the ram which may write into each page without copying it
+		 */
+		private int[] stamps;
+		private int generation;
+		/**
+		 * true, if the page table is shared with a snapshot and has to be copied before it is changed
+		 */
+		private boolean shared;
+		private int allocated;
+		/**
+		 * Content of the mapped ram this ram is a snapshot of, for the pages which are not allocated, null for none
+		 */
+		private Mapped.Overlay overlay;
+
+		/**
+		 * Create a new paged ram without allocated pages
+		 * @param nsize Number of ramcells
+		 * @param nwrapping true, if adresses are reduced modulo the size
+		 */
+		public Paged(int nsize, boolean nwrapping)
+		{
+			super(nsize, nwrapping);
+			pages = new int[(int)(((long)nsize+PAGE_SIZE-1)>>>PAGE_BITS)][];
+			stamps = new int[pages.length];
+			generation = GENERATIONS.incrementAndGet();
+		}
+		/**
+		 * Create a new paged ram sharing the pages of another one
+		 * @param nram The ram whose pages are shared
+		 */
+		private Paged(Paged nram)
+		{
+			super(nram.size, nram.isWrapping());
+			pages = nram.pages;
+			stamps = nram.stamps;
+			allocated = nram.allocated;
+			shared = true;
+			generation = GENERATIONS.incrementAndGet();
+			overlay = nram.overlay;
+		}
+		/**
+		 * Create a new paged ram without allocated pages, which reads the content of a mapped ram
+		 * @param nsize Number of ramcells
+		 * @param nwrapping true, if adresses are reduced modulo the size
+		 * @param noverlay The overlay of the mapped ram
+		 * @param npages An empty page table, shared with other snapshots of the mapped ram
+		 * @param nstamps The stamps of the empty page table
+		 */
+		private Paged(int nsize, boolean nwrapping, Mapped.Overlay noverlay, int[][] npages, int[] nstamps)
+		{
+			super(nsize, nwrapping);
+			pages = npages;
+			stamps = nstamps;
+			shared = true;
+			generation = GENERATIONS.incrementAndGet();
+			overlay = noverlay;
+		}
+
+		@Override
+		int read(int cell)
+		{
+			check(cell);
+			int[] page = pages[cell>>>PAGE_BITS];
+			if(page == null)
+			{
+				return overlay == null ? 0 : overlay.read(cell);
+			}
+			return page[cell&(PAGE_SIZE-1)];
+		}
+		@Override
+		void write(int cell, int value)
+		{
+			check(cell);
+			int index = cell>>>PAGE_BITS;
+			int[] page = pages[index];
+			if(page == null || stamps[index] != generation)
+			{
+				if(page == null && value == 0 && overlay == null)
+				{
+					return;
+				}
+				if(shared)
+				{
+					pages = pages.clone();
+					stamps = stamps.clone();
+					shared = false;
+				}
+				if(page == null)
+				{
+					page = overlay == null ? new int[PAGE_SIZE] : overlay.copyPage(index);
+					allocated++;
+				}
+				else
+				{
+					page = page.clone();
+				}
+				pages[index] = page;
+				stamps[index] = generation;
+			}
+			page[cell&(PAGE_SIZE-1)] = value;
+		}
+		@Override
+		int nextUsed(int cell)
+		{
+			if(overlay != null)
+			{
+				return cell;
+			}
+			for(int index = cell>>>PAGE_BITS; index < pages.length; index++)
+			{
+				if(pages[index] != null)
+				{
+					return Math.max(cell, index<<PAGE_BITS);
+				}
+			}
+			return size;
+		}
+		@Override
+		int[] array()
+		{
+			return null;
+		}
+		/**
+		 * Returns the number of allocated pages
+		 * @return The number of allocated pages
+		 */
+		protected int getAllocatedPages()
+		{
+			return allocated;
+		}
+		/**
+		 * Returns the number of pages covering the ram
+		 * @return The length of the page table
+		 */
+		int getPages()
+		{
+			return pages.length;
+		}
+		/**
+		 * Returns a page, which must not be changed
+		 * @param index The page
+		 * @return The ramcells of the page, null if it is not allocated
+		 */
+		int[] getPage(int index)
+		{
+			return pages[index];
+		}
+		/**
+		 * Replaces a page. The page is not stamped with the generation of the ram, so the ram copies it before writing into it
+		 * and it may be shared with other rams.
+		 * @param index The page
+		 * @param page The ramcells of the page, null to free it
+		 */
+		void setPage(int index, int[] page)
+		{
+			if(shared)
+			{
+				pages = pages.clone();
+				stamps = stamps.clone();
+				shared = false;
+			}
+			if(pages[index] == null && page != null)
+			{
+				allocated++;
+			}
+			else if(pages[index] != null && page == null)
+			{
+				allocated--;
+			}
+			pages[index] = page;
+			stamps[index] = 0;
+		}
+		@Override
+		protected Ram createEmpty()
+		{
+			return new Paged(size, isWrapping());
+		}
+		/**
+		 * Creates a ram sharing the pages with this ram, which takes constant time
+		 * @return The copy of the ram
+		 */
+		@Override
+		protected Ram snapshot()
+		{
+			shared = true;
+			generation = GENERATIONS.incrementAndGet();
+			return new Paged(this);
+		}
+		/**
+		 * Shares the pages of another paged ram like a snapshot of it, which takes constant time
+		 */
+		@Override
+		boolean restore(Ram nsnapshot)
+		{
+			if(!(nsnapshot instanceof Paged) || nsnapshot.size != size)
+			{
+				return super.restore(nsnapshot);
+			}
+			Paged paged = (Paged)nsnapshot.snapshot();
+			pages = paged.pages;
+			stamps = paged.stamps;
+			allocated = paged.allocated;
+			shared = true;
+			generation = GENERATIONS.incrementAndGet();
+			overlay = paged.overlay;
+			return true;
+		}
+		@Override
+		protected String getReport()
+		{
+			return "Paged ram: "+size+" ramcells, "+(isWrapping() ? "wrapping" : "not wrapping")+", "+allocated+" of "+pages.length
+					+" pages of "+PAGE_SIZE+" ramcells allocated"+(overlay == null ? "" : ", the other pages are read from "+overlay.ram.file)+"\n";
+		}
+	}
+
+	/**
+	 * Ram stored in a file, which is mapped into memory in segments of SEGMENT_SIZE ramcells, so a ram of several gigabytes
+	 * is available at once without being read. The operating system reads the pages of the file when they are accessed and writes
+	 * changed pages back, so the content persists after the process ended. Several processes can share a file mapped read only,
+	 * writing into a read only ram throws a java.nio.ReadOnlyBufferException.
+	 * The ramcells are stored as 4 byte big endian integers like DataOutputStream writes them. A mapping stays valid until
+	 * the ram is garbage collected, the file can not be deleted before on some systems.
+	 *
+	 * A snapshot shares the file: it is a paged ram reading the pages it has not written through an overlay. Before the ram writes
+	 * into a page for the first time after a snapshot, it preserves the content of the page in the overlay of the snapshot, so only
+	 * the pages written while a snapshot is in use are copied.
+	 */
+	public static class Mapped extends Ram
+	{
+		/**
+		 * Number of bits of the adress within a segment
+		 */
+		public final static int SEGMENT_BITS = 26;
+		/**
+		 * Number of ramcells of a segment, a mapping of java is limited to 2 gigabytes
+		 */
+		public final static int SEGMENT_SIZE = 1<<SEGMENT_BITS;
+		private final File file;
+		private final boolean readOnly;
+		private final MappedByteBuffer[] mappings;
+		/**
+		 * The mappings as ramcells
+		 */
+		private final IntBuffer[] segments;
+		/**
+		 * Overlay of the last snapshot, the ram preserves the pages it writes into it while the snapshot is in use
+		 */
+		private WeakReference<Overlay> overlay;
+		/**
+		 * Empty page table of the snapshots and its stamps, created by the first snapshot
+		 */
+		private int[][] emptyPages;
+		private int[] emptyStamps;
+
+		/**
+		 * Create a new ram by mapping a file. A writable file is extended to the size with ramcells containing 0,
+		 * a read only file has to contain the whole ram.
+		 * @param nfile The file containing the ram
+		 * @param nsize Number of ramcells
+		 * @param nreadOnly true to map the file read only
+		 * @param nwrapping true, if adresses are reduced modulo the size
+		 * @throws IOException If the file can not be opened or mapped or is too short for a read only ram
+		 */
+		public Mapped(File nfile, int nsize, boolean nreadOnly, boolean nwrapping) throws IOException
+		{
+			super(nsize, nwrapping);
+			file = nfile;
+			readOnly = nreadOnly;
+			int count = (int)(((long)nsize+SEGMENT_SIZE-1)>>>SEGMENT_BITS);
+			mappings = new MappedByteBuffer[count];
+			segments = new IntBuffer[count];
+			RandomAccessFile access = new RandomAccessFile(file, readOnly ? "r" : "rw");
+			try
+			{
+				FileChannel channel = access.getChannel();
+				if(readOnly && channel.size() < 4L*nsize)
+				{
+					throw new IOException(file+" contains "+channel.size()/4+" ramcells, "+nsize+" are needed");
+				}
+				for(int index = 0; index < count; index++)
+				{
+					long start = (long)index<<SEGMENT_BITS;
+					long length = Math.min(SEGMENT_SIZE, nsize-start);
+					mappings[index] = channel.map(readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE, 4*start, 4*length);
+					segments[index] = mappings[index].asIntBuffer();
+				}
+			}
+			finally
+			{
+				access.close();
+			}
+		}
+		/**
+		 * Create a new ram by mapping a whole file
+		 * @param nfile The file containing the ram
+		 * @param nreadOnly true to map the file read only
+		 * @param nwrapping true, if adresses are reduced modulo the size
+		 * @throws IOException If the file can not be opened or mapped or contains more than Integer.MAX_VALUE ramcells
+		 */
+		public Mapped(File nfile, boolean nreadOnly, boolean nwrapping) throws IOException
+		{
+			this(nfile, sizeOf(nfile), nreadOnly, nwrapping);
+		}
+		/**
+		 * Returns the number of ramcells contained in a file
+		 * @param nfile The file
+		 * @return The number of ramcells
+		 * @throws IOException If the file contains more than Integer.MAX_VALUE ramcells
+		 */
+		private static int sizeOf(File nfile) throws IOException
+		{
+			long cells = nfile.length()/4;
+			if(cells > Integer.MAX_VALUE)
+			{
+				throw new IOException(nfile+" contains more than "+Integer.MAX_VALUE+" ramcells");
+			}
+			return (int)cells;
+		}
+
+		@Override
+		int read(int cell)
+		{
+			check(cell);
+			return segments[cell>>>SEGMENT_BITS].get(cell&(SEGMENT_SIZE-1));
+		}
+		@Override
+		void write(int cell, int value)
+		{
+			check(cell);
+			Overlay current = overlay == null ? null : overlay.get();
+			if(current == null)
+			{
+				segments[cell>>>SEGMENT_BITS].put(cell&(SEGMENT_SIZE-1), value);
+				return;
+			}
+			synchronized(this)
+			{
+				Integer index = cell>>>Paged.PAGE_BITS;
+				if(!current.pages.containsKey(index))
+				{
+					current.pages.put(index, readPage(index));
+				}
+				segments[cell>>>SEGMENT_BITS].put(cell&(SEGMENT_SIZE-1), value);
+			}
+		}
+		/**
+		 * Reads a page of Paged.PAGE_SIZE ramcells from the file
+		 * @param index The page
+		 * @return The ramcells of the page, after the end of the ram 0
+		 */
+		private int[] readPage(int index)
+		{
+			int[] page = new int[Paged.PAGE_SIZE];
+			int start = index<<Paged.PAGE_BITS;
+			IntBuffer segment = segments[start>>>SEGMENT_BITS].duplicate();
+			segment.clear();
+			segment.position(start&(SEGMENT_SIZE-1));
+			segment.get(page, 0, Math.min(Paged.PAGE_SIZE, size-start));
+			return page;
+		}
+		@Override
+		int nextUsed(int cell)
+		{
+			return cell;
+		}
+		@Override
+		int[] array()
+		{
+			return null;
+		}
+		@Override
+		protected boolean isPersistent()
+		{
+			return true;
+		}
+		/**
+		 * Returns whether the file is mapped read only
+		 * @return true, if writes throw a java.nio.ReadOnlyBufferException
+		 */
+		@Override
+		protected boolean isReadOnly()
+		{
+			return readOnly;
+		}
+		/**
+		 * Writes the changed ramcells into the file, without this they are written when the operating system decides to
+		 */
+		protected void flush()
+		{
+			if(!readOnly)
+			{
+				for(MappedByteBuffer mapping : mappings)
+				{
+					mapping.force();
+				}
+			}
+		}
+		/**
+		 * Creates a paged ram reading the current content of the file through a new overlay, which takes constant time.
+		 * The file is not changed by writing into the copy.
+		 * @return The copy of the ram
+		 */
+		@Override
+		protected synchronized Ram snapshot()
+		{
+			Overlay previous = overlay == null ? null : overlay.get();
+			Overlay next = new Overlay(this);
+			if(previous != null)
+			{
+				previous.newer = next;
+			}
+			if(!readOnly)
+			{
+				overlay = new WeakReference<Overlay>(next);
+			}
+			if(emptyPages == null)
+			{
+				emptyPages = new int[(int)(((long)size+Paged.PAGE_SIZE-1)>>>Paged.PAGE_BITS)][];
+				emptyStamps = new int[emptyPages.length];
+			}
+			return new Paged(size, isWrapping(), next, emptyPages, emptyStamps);
+		}
+		/**
+		 * Writes the content of a snapshot into the file. For a snapshot of this ram only the pages written since the snapshot,
+		 * by this ram or by the snapshot, are compared, a read only ram can only restore a snapshot it does not differ from.
+		 */
+		@Override
+		synchronized boolean restore(Ram nsnapshot)
+		{
+			Overlay saved = nsnapshot instanceof Paged ? ((Paged)nsnapshot).overlay : null;
+			if(saved == null || saved.ram != this)
+			{
+				return super.restore(nsnapshot);
+			}
+			Paged paged = (Paged)nsnapshot;
+			TreeSet<Integer> indices = new TreeSet<Integer>();
+			for(Overlay newer = saved; newer != null; newer = newer.newer)
+			{
+				indices.addAll(newer.pages.keySet());
+			}
+			for(int index = 0; index < paged.getPages(); index++)
+			{
+				if(paged.getPage(index) != null)
+				{
+					indices.add(index);
+				}
+			}
+			if(readOnly)
+			{
+				return indices.isEmpty();
+			}
+			for(int index : indices)
+			{
+				int[] page = paged.getPage(index) != null ? paged.getPage(index) : saved.find(index);
+				int start = index<<Paged.PAGE_BITS;
+				for(int i = 0; i < Paged.PAGE_SIZE && start+i < size; i++)
+				{
+					if(read(start+i) != page[i])
+					{
+						write(start+i, page[i]);
+					}
+				}
+			}
+			return true;
+		}
+		/**
+		 * Creates an empty paged ram of the same size, the file is not changed
+		 * @return The empty ram
+		 */
+		@Override
+		protected Ram createEmpty()
+		{
+			return new Paged(size, isWrapping());
+		}
+		@Override
+		protected String getReport()
+		{
+			return "Mapped ram: "+size+" ramcells in "+file+", "+(readOnly ? "read only" : "writable")+", "
+					+(isWrapping() ? "wrapping" : "not wrapping")+", "+segments.length+" segments of "+SEGMENT_SIZE+" ramcells\n";
+		}
+
+		/**
+		 * Content of a mapped ram at the time of a snapshot, for the pages the ram wrote since. A page is read from the first overlay
+		 * which preserved it, starting with the overlay of the snapshot and following the newer ones, or from the file.
+		 */
+		static class Overlay
+		{
+			private final Mapped ram;
+			/**
+			 * The preserved pages of Paged.PAGE_SIZE ramcells by their index
+			 */
+			private final HashMap<Integer, int[]> pages = new HashMap<Integer, int[]>();
+			/**
+			 * Overlay of the next snapshot, null for the last one
+			 */
+			private Overlay newer;
+
+			/**
+			 * Create a new overlay without preserved pages
+			 * @param nram The mapped ram
+			 */
+			private Overlay(Mapped nram)
+			{
+				ram = nram;
+			}
+
+			/**
+			 * Returns the preserved content of a page, the caller holds the lock of the mapped ram
+			 * @param index The page
+			 * @return The ramcells of the page, null if it is read from the file
+			 */
+			private int[] find(int index)
+			{
+				for(Overlay overlay = this; overlay != null; overlay = overlay.newer)
+				{
+					int[] page = overlay.pages.get(index);
+					if(page != null)
+					{
+						return page;
+					}
+				}
+				return null;
+			}
+			/**
+			 * Returns the content of a ramcell at the time of the snapshot
+			 * @param cell The ramcell
+			 * @return The content of the ramcell
+			 */
+			int read(int cell)
+			{
+				synchronized(ram)
+				{
+					int[] page = find(cell>>>Paged.PAGE_BITS);
+					return page == null ? ram.segments[cell>>>SEGMENT_BITS].get(cell&(SEGMENT_SIZE-1)) : page[cell&(Paged.PAGE_SIZE-1)];
+				}
+			}
+			/**
+			 * Copies the content of a page at the time of the snapshot
+			 * @param index The page
+			 * @return The copy of its ramcells
+			 */
+			int[] copyPage(int index)
+			{
+				synchronized(ram)
+				{
+					int[] page = find(index);
+					return page == null ? ram.readPage(index) : page.clone();
+				}
+			}
+		}
+	}
+}
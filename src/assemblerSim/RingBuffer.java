@@ -0,0 +1,153 @@
+package assemblerSim;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded queue of ints between exactly one producer thread and one consumer thread, e.g. the machine and a thread of the host.
+ * Neither side ever blocks or takes a lock: offering to a full buffer and polling an empty one just return without success.
+ * The producer publishes its elements with an ordered write of the tail, the consumer frees the slots with an ordered write of the head,
+ * both sides cache the index of the other side and only read it again when the buffer seems full or empty.
+ */
+public class RingBuffer
+{
+	private final int[] buffer;
+	private final int mask;
+	/**
+	 * Number of elements polled so far, only written by the consumer
+	 */
+	private final AtomicLong head = new AtomicLong();
+	/**
+	 * Number of elements offered so far, only written by the producer
+	 */
+	private final AtomicLong tail = new AtomicLong();
+	/**
+	 * The head as last seen by the producer
+	 */
+	private long cachedHead;
+	/**
+	 * The tail as last seen by the consumer
+	 */
+	private long cachedTail;
+
+	/**
+	 * Create a new ring buffer
+	 * @param ncapacity Maximum number of elements, has to be a power of two
+	 */
+	public RingBuffer(int ncapacity)
+	{
+		if(ncapacity < 1 || Integer.bitCount(ncapacity) != 1)
+		{
+			throw new IllegalArgumentException("The capacity of a ring buffer has to be a power of two");
+		}
+		buffer = new int[ncapacity];
+		mask = ncapacity-1;
+	}
+
+	/**
+	 * Appends an element, only called by the producer
+	 * @param value The element
+	 * @return false, if the buffer is full
+	 */
+	protected boolean offer(int value)
+	{
+		long position = tail.get();
+		if(position-cachedHead >= buffer.length)
+		{
+			cachedHead = head.get();
+			if(position-cachedHead >= buffer.length)
+			{
+				return false;
+			}
+		}
+		buffer[(int)position&mask] = value;
+		tail.lazySet(position+1);
+		return true;
+	}
+	/**
+	 * Appends as many elements of an array as fit into the buffer, only called by the producer
+	 * @param values The elements
+	 * @param offset Index of the first element
+	 * @param length Number of elements
+	 * @return The number of appended elements
+	 */
+	protected int offer(int[] values, int offset, int length)
+	{
+		long position = tail.get();
+		cachedHead = head.get();
+		int count = (int)Math.min(length, buffer.length-(position-cachedHead));
+		for(int i = 0; i < count; i++)
+		{
+			buffer[(int)(position+i)&mask] = values[offset+i];
+		}
+		tail.lazySet(position+count);
+		return count;
+	}
+	/**
+	 * Checks whether there are elements to poll, only called by the consumer
+	 * @return true, if poll() returns an element
+	 */
+	protected boolean isEmpty()
+	{
+		long position = head.get();
+		if(position >= cachedTail)
+		{
+			cachedTail = tail.get();
+		}
+		return position >= cachedTail;
+	}
+	/**
+	 * Removes the oldest element, only called by the consumer after isEmpty() returned false
+	 * @return The element
+	 * @throws IllegalStateException If the buffer is empty
+	 */
+	protected int poll()
+	{
+		long position = head.get();
+		if(position >= cachedTail)
+		{
+			cachedTail = tail.get();
+			if(position >= cachedTail)
+			{
+				throw new IllegalStateException("The ring buffer is empty");
+			}
+		}
+		int value = buffer[(int)position&mask];
+		head.lazySet(position+1);
+		return value;
+	}
+	/**
+	 * Removes as many elements as available into an array, only called by the consumer
+	 * @param values The array to store the elements in
+	 * @param offset Index of the first element in the array
+	 * @param length Maximum number of elements
+	 * @return The number of removed elements
+	 */
+	protected int poll(int[] values, int offset, int length)
+	{
+		long position = head.get();
+		cachedTail = tail.get();
+		int count = (int)Math.min(length, cachedTail-position);
+		for(int i = 0; i < count; i++)
+		{
+			values[offset+i] = buffer[(int)(position+i)&mask];
+		}
+		head.lazySet(position+count);
+		return count;
+	}
+	/**
+	 * Returns the number of elements in the buffer, which may already be outdated if called by neither side
+	 * @return The number of elements
+	 */
+	protected int size()
+	{
+		return (int)Math.max(tail.get()-head.get(), 0);
+	}
+	/**
+	 * Returns the maximum number of elements
+	 * @return The capacity
+	 */
+	protected int getCapacity()
+	{
+		return buffer.length;
+	}
+}
@@ -0,0 +1,671 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executes the steps of a VonNeumannRechner ahead of the GUI, so showing the next step does not wait for the machine.
+ *
+ * A worker thread runs a copy of the machine, restored from a checkpoint, and records what every step shows in the GUI
+ * (the changed registers, the cycle, the line of the animation, the events and the formatted ram) as a Frame in a bounded queue.
+ * Every frame also records what the step changed: the ramcells it wrote, the accesses of the ram and the registers and position
+ * in the microprogram afterwards. step() only shows the next frame. The machine itself stays at the last state it was synchronized to
+ * and follows the shown frames in sync() by applying their changes without executing the steps again, before anything else changes it.
+ * Its history and simulated caches, e.g. the access counters of the heatmap, are updated like by the steps. After the machine was changed,
+ * restart() discards the frames and runs ahead from its new state.
+ *
+ * Endless loops are detected by the copy, the machine follows its halt without checking for loops itself. As the copy forgets
+ * the checked states in restart(), a loop may be found a few instructions later than without running ahead. A step which throws
+ * an exception is not shown but executed by the machine itself, so the exception is thrown like without running ahead.
+ * Devices would be read twice and branch predictors are not told about followed steps, so the machine must not have devices
+ * or branch predictors.
+ */
+public class RunAhead
+{
+	/**
+	 * Number of registers shown by the GUI
+	 */
+	private final static int REGISTERS = VonNeumannRechner.STACKPOINTER+1;
+	/**
+	 * Milliseconds the worker waits for a free place in the queue before it checks whether its frames are still wanted
+	 */
+	private final static long OFFER_WAIT = 50;
+
+	private final VonNeumannRechner rechner;
+	private final Controller controller;
+	/**
+	 * The copy of the machine, only used by the worker
+	 */
+	private final VonNeumannRechner shadow;
+	private final Recorder recorder = new Recorder();
+	/**
+	 * Records the ramcells written and accessed by the copy of the machine
+	 */
+	private final Journal journal;
+	private final Accesses accesses;
+	/**
+	 * Receives the GUI updates of the machine while it follows the shown frames
+	 */
+	private final Recorder silent = new Recorder();
+	private final ArrayBlockingQueue<Frame> frames;
+	/**
+	 * Maximum number of frames in the queue
+	 */
+	private final int capacity;
+	/**
+	 * Held while frames are shown or followed, so the GUI thread can call sync() while the clock shows steps
+	 */
+	private final Object shown = new Object();
+	/**
+	 * Incremented by restart(), frames of an older generation are discarded
+	 */
+	private volatile int generation;
+	/**
+	 * true, while the worker runs the current generation or has not started it yet
+	 */
+	private volatile boolean working;
+	/**
+	 * State the worker runs ahead from next, null if it waits
+	 */
+	private VonNeumannRechner.Checkpoint start;
+	/**
+	 * The shown frames the machine has not followed yet
+	 */
+	private final ArrayList<Frame> behind = new ArrayList<Frame>();
+
+	/**
+	 * Create a new run ahead and start its worker, it waits until restart() is called
+	 * @param nrechner The machine, without devices
+	 * @param ncontroller The controller which shows the steps
+	 * @param ncapacity Maximum number of steps executed ahead
+	 */
+	public RunAhead(VonNeumannRechner nrechner, Controller ncontroller, int ncapacity)
+	{
+		rechner = nrechner;
+		controller = ncontroller;
+		frames = new ArrayBlockingQueue<Frame>(ncapacity);
+		capacity = ncapacity;
+		shadow = new VonNeumannRechner(recorder, nrechner.getBackend().createEmpty());
+		journal = new Journal();
+		shadow.setHistory(journal);
+		accesses = new Accesses(nrechner.getRamSize());
+		shadow.setMemoryHierarchy(accesses);
+		Thread worker = new Thread("run ahead")
+		{
+			public void run()
+			{
+				work();
+			}
+		};
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	/**
+	 * Sets the detector of endless loops used by the copy of the machine, before the first restart()
+	 * @param nloops The detector for a ram of the size of the machine, null to stop detecting loops
+	 */
+	protected void setLoopDetector(LoopDetector nloops)
+	{
+		shadow.setLoopDetector(nloops);
+	}
+
+	/**
+	 * Shows the next step. If it was not executed ahead yet, the machine executes it like without running ahead.
+	 */
+	protected void step()
+	{
+		synchronized(shown)
+		{
+			Frame frame = next(false);
+			if(frame != null && !frame.failed)
+			{
+				frame.show(controller);
+				show(frame);
+				return;
+			}
+			sync();
+			try
+			{
+				rechner.step();
+			}
+			finally
+			{
+				restart();
+			}
+		}
+	}
+	/**
+	 * Shows the state after a number of instructions without showing the steps in between, it waits for the worker if necessary.
+	 * The jump stops early at a breakpoint or when the machine halts, the events of the skipped instructions are not shown.
+	 * @param ninstructions Number of instructions to jump over
+	 * @return The number of instructions jumped over, less if the machine halted
+	 */
+	protected long jump(long ninstructions)
+	{
+		synchronized(shown)
+		{
+			Frame combined = null;
+			long jumped = 0;
+			while(jumped < ninstructions)
+			{
+				Frame frame = next(true);
+				if(frame == null || frame.failed)
+				{
+					break;
+				}
+				if(combined == null)
+				{
+					combined = new Frame(frame.generation);
+				}
+				combined.add(frame);
+				show(frame);
+				if(frame.instructionEnd)
+				{
+					jumped++;
+				}
+				if(frame.halted)
+				{
+					break;
+				}
+			}
+			if(combined != null)
+			{
+				combined.show(controller);
+			}
+			return jumped;
+		}
+	}
+	/**
+	 * Lets the machine follow the shown steps without updating the GUI, called before the machine is used or changed otherwise
+	 */
+	protected void sync()
+	{
+		synchronized(shown)
+		{
+			Controller gui = rechner.controller;
+			rechner.controller = silent;
+			try
+			{
+				for(Frame frame : behind)
+				{
+					frame.follow(rechner);
+				}
+			}
+			finally
+			{
+				rechner.controller = gui;
+				behind.clear();
+			}
+		}
+	}
+	/**
+	 * Discards the steps executed ahead and the shown steps the machine has not executed,
+	 * and runs ahead from the current state of the machine. Called after the machine was changed.
+	 */
+	protected void restart()
+	{
+		VonNeumannRechner.Checkpoint checkpoint = rechner.checkpoint();
+		synchronized(this)
+		{
+			generation++;
+			frames.clear();
+			behind.clear();
+			start = checkpoint;
+			working = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Remembers a shown frame as a step the machine has to follow, without its formatted ram. The machine follows the remembered frames
+	 * when there are as many as the queue holds, so they do not pile up while the clock shows steps.
+	 * @param frame The shown frame
+	 */
+	private void show(Frame frame)
+	{
+		frame.ram = null;
+		behind.add(frame);
+		if(behind.size() >= capacity)
+		{
+			sync();
+		}
+	}
+	/**
+	 * Takes the next frame of the current generation
+	 * @param wait true, to wait while the worker is still running ahead
+	 * @return The frame, null if there is none
+	 */
+	private Frame next(boolean wait)
+	{
+		while(true)
+		{
+			Frame frame;
+			try
+			{
+				frame = wait && working ? frames.poll(OFFER_WAIT, TimeUnit.MILLISECONDS) : frames.poll();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return null;
+			}
+			if(frame == null)
+			{
+				if(wait && working)
+				{
+					continue;
+				}
+				return null;
+			}
+			if(frame.generation == generation)
+			{
+				return frame;
+			}
+		}
+	}
+	/**
+	 * Runs the copy of the machine ahead from every state passed to restart(), until it halts or fails
+	 */
+	private void work()
+	{
+		while(true)
+		{
+			int current;
+			synchronized(this)
+			{
+				while(start == null)
+				{
+					try
+					{
+						wait();
+					}
+					catch(InterruptedException e)
+					{
+						return;
+					}
+				}
+				current = generation;
+				recorder.frame = null;
+				journal.frame = null;
+				accesses.frame = null;
+				shadow.restore(start);
+				start = null;
+			}
+			while(current == generation && shadow.nextStep != VonNeumannRechner.STEP_HALT)
+			{
+				Frame frame = new Frame(current);
+				recorder.frame = frame;
+				journal.frame = frame;
+				accesses.frame = frame;
+				try
+				{
+					shadow.step();
+				}
+				catch(RuntimeException e)
+				{
+					frame.failed = true;
+				}
+				journal.frame = null;
+				accesses.frame = null;
+				frame.looping = shadow.isLooping();
+				frame.instructionEnd = shadow.isAtInstructionStart();
+				if(!frame.failed)
+				{
+					frame.record(shadow);
+				}
+				boolean offered = false;
+				try
+				{
+					while(!offered && current == generation)
+					{
+						offered = frames.offer(frame, OFFER_WAIT, TimeUnit.MILLISECONDS);
+					}
+				}
+				catch(InterruptedException e)
+				{
+					return;
+				}
+				if(frame.failed)
+				{
+					break;
+				}
+			}
+			synchronized(this)
+			{
+				working = start != null;
+			}
+		}
+	}
+
+	/**
+	 * What a step shows in the GUI
+	 */
+	static class Frame
+	{
+		private final int generation;
+		private final int[] registers = new int[REGISTERS];
+		/**
+		 * Bit i is set, if register i changed
+		 */
+		private int changed;
+		private String cycle;
+		private int line = -1;
+		private final StringBuilder events = new StringBuilder();
+		/**
+		 * The formatted ram, null if it did not change
+		 */
+		private String ram;
+		private boolean halted;
+		private boolean looping;
+		/**
+		 * true, if the step completed an instruction
+		 */
+		private boolean instructionEnd;
+		/**
+		 * true, if the step threw an exception, the frame is not complete
+		 */
+		private boolean failed;
+		/**
+		 * The ramcells written by the step and their content afterwards
+		 */
+		private int[] cells = new int[4];
+		private int[] values;
+		private int written;
+		/**
+		 * The accesses of the ram reported to the simulated caches, as pairs of kind (FETCH, READ or WRITE) and ramcell
+		 */
+		private int[] accessed = new int[8];
+		private int accessCount;
+		/**
+		 * The state of the machine after the step, null for a step which is not complete
+		 */
+		private VonNeumannRechner.Checkpoint state;
+
+		/**
+		 * Create a new empty frame
+		 * @param ngeneration The generation of the worker
+		 */
+		Frame(int ngeneration)
+		{
+			generation = ngeneration;
+		}
+
+		/**
+		 * Records a ramcell written by the step
+		 * @param cell The ramcell
+		 */
+		void written(int cell)
+		{
+			if(written == cells.length)
+			{
+				cells = Arrays.copyOf(cells, written*2);
+			}
+			cells[written++] = cell;
+		}
+		/**
+		 * Records an access of the ram
+		 * @param kind FETCH, READ or WRITE
+		 * @param cell The accessed ramcell
+		 */
+		void accessed(int kind, int cell)
+		{
+			if(accessCount+2 > accessed.length)
+			{
+				accessed = Arrays.copyOf(accessed, accessed.length*2);
+			}
+			accessed[accessCount++] = kind;
+			accessed[accessCount++] = cell;
+		}
+		/**
+		 * Records the state of the copy after the step and the content of the written ramcells
+		 * @param nshadow The copy of the machine
+		 */
+		void record(VonNeumannRechner nshadow)
+		{
+			state = nshadow.checkpointRegisters();
+			values = new int[written];
+			Ram ram = nshadow.getBackend();
+			for(int i = 0; i < written; i++)
+			{
+				values[i] = ram.read(cells[i]);
+			}
+		}
+		/**
+		 * Applies the changes of the step to the machine, which is at the state before the step
+		 * @param nrechner The machine
+		 */
+		void follow(VonNeumannRechner nrechner)
+		{
+			if(looping)
+			{
+				nrechner.haltLoop();
+				return;
+			}
+			MemoryHierarchy memory = nrechner.getMemoryHierarchy();
+			if(memory != null)
+			{
+				for(int i = 0; i < accessCount; i += 2)
+				{
+					switch(accessed[i])
+					{
+					case Accesses.FETCH:
+						memory.fetch(accessed[i+1]);
+						break;
+					case Accesses.READ:
+						memory.read(accessed[i+1]);
+						break;
+					default:
+						memory.write(accessed[i+1]);
+						break;
+					}
+				}
+			}
+			nrechner.follow(state, cells, values, written);
+		}
+		/**
+		 * Adds the changes of a later step, only the events since the last completed instruction are kept
+		 * @param later The frame of the later step
+		 */
+		void add(Frame later)
+		{
+			for(int i = 0; i < REGISTERS; i++)
+			{
+				if((later.changed & 1<<i) != 0)
+				{
+					registers[i] = later.registers[i];
+				}
+			}
+			changed |= later.changed;
+			if(later.cycle != null)
+			{
+				cycle = later.cycle;
+			}
+			if(later.line >= 0)
+			{
+				line = later.line;
+			}
+			if(later.ram != null)
+			{
+				ram = later.ram;
+			}
+			if(instructionEnd)
+			{
+				events.setLength(0);
+			}
+			events.append(later.events);
+			halted |= later.halted;
+			looping = later.looping;
+			instructionEnd = later.instructionEnd;
+		}
+		/**
+		 * Shows the step in the GUI
+		 * @param controller The controller of the GUI
+		 */
+		void show(Controller controller)
+		{
+			for(int i = 0; i < REGISTERS; i++)
+			{
+				if((changed & 1<<i) != 0)
+				{
+					controller.setRegister(i, registers[i]);
+				}
+			}
+			if(cycle != null)
+			{
+				controller.setCycleDisplay(cycle);
+			}
+			if(line >= 0)
+			{
+				controller.setLine(line);
+			}
+			if(ram != null)
+			{
+				controller.updateRAMAnimation(ram);
+			}
+			if(events.length() > 0)
+			{
+				controller.appendEvent(events.toString());
+			}
+			if(halted)
+			{
+				controller.halt();
+			}
+		}
+	}
+
+	/**
+	 * Receives the writes of a machine into its ram, instead of recording them for going back, and records the written ramcells in a frame
+	 */
+	private static class Journal extends History
+	{
+		/**
+		 * The frame of the current step, null to ignore the writes
+		 */
+		private Frame frame;
+
+		/**
+		 * Create a new journal, it does not hold changes
+		 */
+		Journal()
+		{
+			super(0);
+		}
+
+		void stored(int cell, int previous)
+		{
+			if(frame != null)
+			{
+				frame.written(cell);
+			}
+		}
+		void begin(int[] state)
+		{
+		}
+	}
+
+	/**
+	 * Receives the accesses of the ram of a machine, instead of simulating caches, and records them in a frame
+	 */
+	private static class Accesses extends MemoryHierarchy
+	{
+		final static int FETCH = 0;
+		final static int READ = 1;
+		final static int WRITE = 2;
+		/**
+		 * The frame of the current step, null to ignore the accesses
+		 */
+		private Frame frame;
+
+		/**
+		 * Create a new recorder of the accesses
+		 * @param nramSize Size of the ram
+		 */
+		Accesses(int nramSize)
+		{
+			super(nramSize);
+		}
+
+		protected void reset()
+		{
+		}
+		protected void fetch(int address)
+		{
+			if(frame != null)
+			{
+				frame.accessed(FETCH, address);
+			}
+		}
+		protected void read(int address)
+		{
+			if(frame != null)
+			{
+				frame.accessed(READ, address);
+			}
+		}
+		protected void write(int address)
+		{
+			if(frame != null)
+			{
+				frame.accessed(WRITE, address);
+			}
+		}
+	}
+
+	/**
+	 * Receives the GUI updates of a machine and records them in a frame
+	 */
+	private static class Recorder extends Controller
+	{
+		/**
+		 * The frame of the current step, null to ignore the updates
+		 */
+		private Frame frame;
+
+		protected void setRegister(int nregister, int nvalue)
+		{
+			if(frame != null)
+			{
+				frame.registers[nregister] = nvalue;
+				frame.changed |= 1<<nregister;
+			}
+		}
+		protected void setLine(int nLine)
+		{
+			if(frame != null)
+			{
+				frame.line = nLine;
+			}
+		}
+		protected void setCycleDisplay(String nCycle)
+		{
+			if(frame != null)
+			{
+				frame.cycle = nCycle;
+			}
+		}
+		protected void appendEvent(String nEvent)
+		{
+			if(frame != null)
+			{
+				frame.events.append(nEvent);
+			}
+		}
+		protected void updateRAMAnimation(Ram nRAM)
+		{
+			if(frame != null)
+			{
+				frame.ram = formatRAM(nRAM);
+			}
+		}
+		protected void halt()
+		{
+			if(frame != null)
+			{
+				frame.halted = true;
+			}
+		}
+	}
+}
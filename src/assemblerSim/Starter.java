@@ -2,6 +2,17 @@ package assemblerSim;
 
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JOptionPane;
 
@@ -11,12 +22,136 @@ import javax.swing.JOptionPane;
  */
 public class Starter 
 {
+	/**
+	 * Size of the ram if no size is given
+	 */
+	private final static int RAM_SIZE = 512;
 
 	/**
 	 * @param args 
 	 * Creates an object of the Controller class, which the takes over control.
+	 * If a file is given as first argument, the program in it is executed without GUI instead.
+	 * The optional second argument sets the size of the ram, the optional third and fourth argument limit the number
+	 * of executed instructions and the execution time in milliseconds.
+	 * With -translate file classname [ramsize] the program is translated into a java class instead.
+	 * With -cores n file [ramsize] the program is executed on n cores sharing the ram.
+	 * With -pipeline file [ramsize] [noforwarding] the program is executed on a pipeline model and its statistics are printed.
+	 * With -cache file [ramsize] [l1] [l2] [random] the program is executed with simulated caches and their statistics are printed,
+	 * l1 and l2 are given as size:associativity:linesize in ramcells, l2 can be none.
+	 * With -heat file [ramsize] [csvfile] the program is executed with counters of the reads, writes and fetches of every ramcell,
+	 * the most accessed labels and ramcells are printed and all counters are written to the csvfile.
+	 * With -branches file [ramsize] [penalty] the program is executed with simulated branch predictors and their statistics are printed.
+	 * With -io file [ramsize] the program is executed with devices at the end of the ram: a character output at ramsize-6,
+	 * an input queue of the numbers read from the standard input at ramsize-4 and a timer at ramsize-2.
+	 * With -batch file datafile [ramsize] the program is executed on one instance per line of the datafile, each line contains an adress
+	 * or label and the numbers written there before the run.
+	 * With -jobs file datafile [ramsize] [threads] the program is executed once per line of the datafile like with -batch, but one run
+	 * after another on machines of a MachinePool shared by the threads, which restore only the written ramcells between two runs.
+	 * With -loops file [ramsize] [maxinstructions] the program is executed with a loop detector, which stops it if it runs forever.
+	 * With -gui [ramsize] [paged] [nowrap] the GUI is started with a ram of the given size, paged stores the ram in pages allocated on
+	 * first write, so the ram can cover all 16777216 adresses of the operands, nowrap makes adresses outside of the ram an error instead
+	 * of taking them modulo the size.
+	 * With -image file [ramsize] [readonly] [nowrap] the GUI is started with a ram stored in the file, which is mapped into memory
+	 * and keeps its content, ramsize defaults to the size of the file. A read only image can be shared by several processes.
+	 * The keywords of a mode may be given anywhere after its name, a missing argument or a value that is not a number stops with
+	 * the usage of the mode, see Arguments.
+	 * @throws Exception Throws exceptions from the file access and the execution
 	 */
-	public static void main(String[] args) 
+	public static void main(String[] args) throws Exception
+	{
+		if(args.length == 0)
+		{
+			startGUI();
+			return;
+		}
+		String mode = args[0];
+		Arguments arguments;
+		if(mode.equals("-translate"))
+		{
+			arguments = new Arguments(args, 1, "-translate file classname [ramsize]");
+			translate(arguments.get(0), arguments.get(1), arguments.getInt(2, RAM_SIZE));
+		}
+		else if(mode.equals("-cores"))
+		{
+			arguments = new Arguments(args, 1, "-cores n file [ramsize]");
+			runMultiCore(arguments.get(1), arguments.getInt(2, RAM_SIZE), arguments.getInt(0));
+		}
+		else if(mode.equals("-pipeline"))
+		{
+			arguments = new Arguments(args, 1, "-pipeline file [ramsize] [noforwarding]", "noforwarding");
+			runPipeline(arguments.get(0), arguments.getInt(1, RAM_SIZE), !arguments.has("noforwarding"));
+		}
+		else if(mode.equals("-cache"))
+		{
+			arguments = new Arguments(args, 1, "-cache file [ramsize] [l1] [l2] [random]", "random");
+			runCached(arguments.get(0), arguments.getInt(1, RAM_SIZE), arguments.get(2, "64:2:4"), arguments.get(3, "256:4:8"),
+					arguments.has("random") ? Cache.REPLACEMENT_RANDOM : Cache.REPLACEMENT_LRU);
+		}
+		else if(mode.equals("-heat"))
+		{
+			arguments = new Arguments(args, 1, "-heat file [ramsize] [csvfile]");
+			runCounted(arguments.get(0), arguments.getInt(1, RAM_SIZE), arguments.get(2, null));
+		}
+		else if(mode.equals("-branches"))
+		{
+			arguments = new Arguments(args, 1, "-branches file [ramsize] [penalty]");
+			runBranches(arguments.get(0), arguments.getInt(1, RAM_SIZE), arguments.getInt(2, BranchStatistics.DEFAULT_PENALTY));
+		}
+		else if(mode.equals("-io"))
+		{
+			arguments = new Arguments(args, 1, "-io file [ramsize]");
+			runDevices(arguments.get(0), arguments.getInt(1, RAM_SIZE));
+		}
+		else if(mode.equals("-batch"))
+		{
+			arguments = new Arguments(args, 1, "-batch file datafile [ramsize]");
+			runBatch(arguments.get(0), arguments.get(1), arguments.getInt(2, RAM_SIZE));
+		}
+		else if(mode.equals("-jobs"))
+		{
+			arguments = new Arguments(args, 1, "-jobs file datafile [ramsize] [threads]");
+			runJobs(arguments.get(0), arguments.get(1), arguments.getInt(2, RAM_SIZE), arguments.getInt(3, Runtime.getRuntime().availableProcessors()));
+		}
+		else if(mode.equals("-loops"))
+		{
+			arguments = new Arguments(args, 1, "-loops file [ramsize] [maxinstructions]");
+			runLoops(arguments.get(0), arguments.getInt(1, RAM_SIZE), arguments.getLong(2, Long.MAX_VALUE));
+		}
+		else if(mode.equals("-gui"))
+		{
+			arguments = new Arguments(args, 1, "-gui [ramsize] [paged] [nowrap]", "paged", "nowrap");
+			new Controller(createRam(arguments.getInt(0, RAM_SIZE), arguments.has("paged"), !arguments.has("nowrap")));
+		}
+		else if(mode.equals("-image"))
+		{
+			arguments = new Arguments(args, 1, "-image file [ramsize] [readonly] [nowrap]", "readonly", "nowrap");
+			File image = new File(arguments.get(0));
+			boolean wrapping = !arguments.has("nowrap");
+			boolean readOnly = arguments.has("readonly");
+			if(arguments.size() > 1)
+			{
+				new Controller(new Ram.Mapped(image, arguments.getInt(1), readOnly, wrapping));
+			}
+			else
+			{
+				new Controller(image.length() >= 4 ? new Ram.Mapped(image, readOnly, wrapping) : new Ram.Mapped(image, RAM_SIZE, readOnly, wrapping));
+			}
+		}
+		else if(mode.startsWith("-"))
+		{
+			throw new IllegalArgumentException("Unknown mode "+mode);
+		}
+		else
+		{
+			arguments = new Arguments(args, 0, "file [ramsize] [maxinstructions] [timeout]");
+			runHeadless(arguments.get(0), arguments.getInt(1, RAM_SIZE), arguments.getLong(2, Long.MAX_VALUE), arguments.getLong(3, 0));
+		}
+	}
+	
+	/**
+	 * Starts the GUI with the default ram, after asking whether to continue on a screen smaller than supported
+	 */
+	private static void startGUI()
 	{
 		Dimension scrnsize = Toolkit.getDefaultToolkit().getScreenSize();
 		if(scrnsize.height<768||scrnsize.width<1024)
@@ -24,7 +159,7 @@ public class Starter
 			int ans = JOptionPane.showConfirmDialog(null, "Your Resolution is not supported. If you continue there might be graphical errors. Do you want to continue?", null, JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE);
 			if (ans == JOptionPane.OK_OPTION)
 			{
-				new Controller(512);
+				new Controller(RAM_SIZE);
 			}
 			else
 			{
@@ -33,8 +168,537 @@ public class Starter
 		}
 		else
 		{
-			new Controller(512);
+			new Controller(RAM_SIZE);
+		}
+	}
+	
+	/**
+	 * Creates an empty ram for the GUI
+	 * @param nramSize Size of the ram
+	 * @param npaged true for a paged ram, false for a dense one
+	 * @param nwrapping true, if adresses are taken modulo the size
+	 * @return The ram
+	 */
+	private static Ram createRam(int nramSize, boolean npaged, boolean nwrapping)
+	{
+		return npaged ? new Ram.Paged(nramSize, nwrapping) : new Ram.Dense(new int[nramSize], nwrapping);
+	}
+	
+	/**
+	 * Runs a HeadlessRechner until it stops for another reason than a breakpoint and reports every breakpoint reached
+	 * @param nrechner The machine to run
+	 * @param nmaxInstructions Maximum number of instructions the machine executes in total
+	 * @param ndeadline System.currentTimeMillis() at which the machine stops, Long.MAX_VALUE for none
+	 * @param nout The stream to report the breakpoints to
+	 * @return The reason the machine stopped
+	 */
+	private static StopReason runToStop(HeadlessRechner nrechner, long nmaxInstructions, long ndeadline, PrintStream nout)
+	{
+		StopReason reason;
+		while((reason = nrechner.runUntil(nmaxInstructions == Long.MAX_VALUE ? Long.MAX_VALUE : nmaxInstructions-nrechner.getInstructionCount(),
+				ndeadline)) == StopReason.BREAK)
+		{
+			nout.println("Breakpoint reached at "+nrechner.getProgramCounter());
+		}
+		return reason;
+	}
+	/**
+	 * Prints why a machine stopped and how many instructions it executed
+	 * @param nout The stream to print to
+	 * @param nreason The reason the machine stopped
+	 * @param ninstructions Number of executed instructions, negative to leave it out
+	 * @param ntime Execution time in nanoseconds, negative to leave it out
+	 */
+	private static void printStopped(PrintStream nout, StopReason nreason, long ninstructions, long ntime)
+	{
+		nout.println("Stopped: "+nreason);
+		if(ninstructions >= 0)
+		{
+			nout.println("Executed "+ninstructions+" instructions"+(ntime >= 0 ? " in "+(ntime/1000000)+" ms" : ""));
+		}
+	}
+	
+	/**
+	 * Assembles the given file, executes it on a HeadlessRechner and prints the registers and the ram afterwards
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param nmaxInstructions Maximum number of instructions to execute
+	 * @param ntimeout Maximum execution time in milliseconds, 0 for none
+	 * @throws Exception Throws exceptions from FileReader and BufferedReader
+	 */
+	private static void runHeadless(String nfile, int nramSize, long nmaxInstructions, long ntimeout) throws Exception
+	{
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(readFile(nfile), nramSize));
+		long deadline = ntimeout > 0 ? System.currentTimeMillis()+ntimeout : Long.MAX_VALUE;
+		long start = System.nanoTime();
+		StopReason reason = runToStop(rechner, nmaxInstructions, deadline, System.out);
+		printStopped(System.out, reason, rechner.getInstructionCount(), System.nanoTime()-start);
+		System.out.println("Accumulator: "+rechner.getAccumulator());
+		System.out.println("Programcounter: "+rechner.getProgramCounter());
+		System.out.print(rechner.getFusionReport());
+		System.out.print(Interpreter.ramToString(rechner.getRam()));
+	}
+	
+	/**
+	 * Assembles the given file, executes it on a HeadlessRechner with a loop detector and prints the loop found
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param nmaxInstructions Maximum number of instructions to execute
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runLoops(String nfile, int nramSize, long nmaxInstructions) throws Exception
+	{
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(readFile(nfile), nramSize));
+		LoopDetector loops = new LoopDetector(nramSize);
+		rechner.setLoopDetector(loops);
+		long start = System.nanoTime();
+		StopReason reason = runToStop(rechner, nmaxInstructions, Long.MAX_VALUE, System.out);
+		printStopped(System.out, reason, rechner.getInstructionCount(), System.nanoTime()-start);
+		System.out.print(loops.getReport());
+	}
+	
+	/**
+	 * Assembles the given file, executes it on a MultiCoreRechner and prints the statistics of the cores and the ram afterwards
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param ncores Number of cores
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runMultiCore(String nfile, int nramSize, int ncores) throws Exception
+	{
+		MultiCoreRechner rechner = new MultiCoreRechner(Interpreter.stringToRam(readFile(nfile), nramSize), ncores);
+		long start = System.nanoTime();
+		StopReason[] reasons = rechner.run(Long.MAX_VALUE, Long.MAX_VALUE);
+		long time = System.nanoTime()-start;
+		
+		for(int i = 0; i < reasons.length; i++)
+		{
+			System.out.println("Core "+i+" stopped: "+reasons[i]+", Accumulator: "+rechner.getCore(i).getAccumulator());
+		}
+		System.out.println("Executed in "+(time/1000000)+" ms");
+		System.out.print(rechner.getContentionReport());
+		System.out.print(Interpreter.ramToString(rechner.getRam()));
+	}
+	
+	/**
+	 * Assembles the given file, executes it on a PipelineModel and prints the pipeline statistics afterwards
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param nforwarding true to forward results between the stages of the pipeline
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runPipeline(String nfile, int nramSize, boolean nforwarding) throws Exception
+	{
+		PipelineModel model = new PipelineModel(Interpreter.stringToRam(readFile(nfile), nramSize));
+		model.setForwarding(nforwarding);
+		StopReason reason;
+		while((reason = model.run(Long.MAX_VALUE)) == StopReason.BREAK)
+		{
+			System.out.println("Breakpoint reached at "+model.getRechner().getProgramCounter());
+		}
+		
+		printStopped(System.out, reason, -1, -1);
+		System.out.print(model.getReport());
+	}
+	
+	/**
+	 * Assembles the given file, executes it on a HeadlessRechner with simulated caches and prints the statistics of the caches afterwards
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param nl1 Size, associativity and line size of each L1 cache, separated by colons
+	 * @param nl2 Size, associativity and line size of the L2 cache, separated by colons, or none
+	 * @param nreplacement Cache.REPLACEMENT_LRU or Cache.REPLACEMENT_RANDOM
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runCached(String nfile, int nramSize, String nl1, String nl2, int nreplacement) throws Exception
+	{
+		String program = readFile(nfile);
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(program, nramSize));
+		Cache l2 = nl2.equals("none") ? null : createCache("L2", nl2, nreplacement, null);
+		MemoryHierarchy memory = new MemoryHierarchy(nramSize, createCache("L1I", nl1, nreplacement, l2), createCache("L1D", nl1, nreplacement, l2));
+		rechner.setMemoryHierarchy(memory);
+		StopReason reason = runToStop(rechner, Long.MAX_VALUE, Long.MAX_VALUE, System.out);
+		printStopped(System.out, reason, rechner.getInstructionCount(), -1);
+		System.out.print(memory.getReport(Interpreter.stringToLabels(program), 10));
+	}
+	/**
+	 * Assembles the given file, executes it on a HeadlessRechner counting the accesses of every ramcell and prints the most accessed ones
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param ncsvFile Path of the file to write the counters of all accessed ramcells to, null for none
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runCounted(String nfile, int nramSize, String ncsvFile) throws Exception
+	{
+		String program = readFile(nfile);
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(program, nramSize));
+		AccessCounters counters = new AccessCounters(nramSize);
+		rechner.setMemoryHierarchy(counters);
+		StopReason reason = runToStop(rechner, Long.MAX_VALUE, Long.MAX_VALUE, System.out);
+		printStopped(System.out, reason, rechner.getInstructionCount(), -1);
+		System.out.print(counters.getReport(Interpreter.stringToLabels(program), 10));
+		if(ncsvFile != null)
+		{
+			FileWriter writer = new FileWriter(ncsvFile);
+			counters.writeCsv(writer);
+			writer.close();
+		}
+	}
+	/**
+	 * Assembles the given file, executes it on a HeadlessRechner with simulated branch predictors and prints their statistics afterwards
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @param npenalty Cycles lost by a misprediction
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runBranches(String nfile, int nramSize, int npenalty) throws Exception
+	{
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(readFile(nfile), nramSize));
+		BranchPredictor[] predictors = new BranchPredictor[]{BranchPredictor.create("static", 0), BranchPredictor.create("1bit", 10),
+				BranchPredictor.create("2bit", 10), BranchPredictor.create("gshare", 10)};
+		BranchStatistics branches = new BranchStatistics(nramSize, predictors, npenalty);
+		rechner.setBranchStatistics(branches);
+		StopReason reason = runToStop(rechner, Long.MAX_VALUE, Long.MAX_VALUE, System.out);
+		printStopped(System.out, reason, rechner.getInstructionCount(), -1);
+		System.out.print(branches.getReport(10));
+	}
+	/**
+	 * Assembles the given file and executes it on a HeadlessRechner with devices mapped at the end of the ram.
+	 * One thread of the host feeds the numbers of the standard input to the input queue, another one prints the output as characters.
+	 * @param nfile Path of the file to execute
+	 * @param nramSize Size of the ram
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runDevices(String nfile, int nramSize) throws Exception
+	{
+		HeadlessRechner rechner = new HeadlessRechner(Interpreter.stringToRam(readFile(nfile), nramSize));
+		final Device.Output output = new Device.Output(4096);
+		final Device.Input input = new Device.Input(4096);
+		DeviceBus devices = new DeviceBus(nramSize);
+		devices.map(nramSize-6, output);
+		devices.map(nramSize-4, input);
+		devices.map(nramSize-2, new Device.Timer());
+		rechner.setDeviceBus(devices);
+		Thread feeder = new Thread("input")
+		{
+			public void run()
+			{
+				try
+				{
+					feed(input);
+				}
+				catch(Exception e)
+				{
+					e.printStackTrace();
+				}
+			}
+		};
+		feeder.setDaemon(true);
+		feeder.start();
+		final AtomicBoolean stopped = new AtomicBoolean();
+		Thread printer = new Thread("output")
+		{
+			public void run()
+			{
+				int[] values = new int[256];
+				boolean last = false;
+				while(!last)
+				{
+					last = stopped.get();
+					int count;
+					while((count = output.getBuffer().poll(values, 0, values.length)) > 0)
+					{
+						for(int i = 0; i < count; i++)
+						{
+							System.out.print((char)values[i]);
+						}
+					}
+					System.out.flush();
+					Thread.yield();
+				}
+			}
+		};
+		printer.start();
+		long start = System.nanoTime();
+		StopReason reason;
+		try
+		{
+			reason = runToStop(rechner, Long.MAX_VALUE, Long.MAX_VALUE, System.err);
+		}
+		finally
+		{
+			stopped.set(true);
+			printer.join();
+		}
+		printStopped(System.err, reason, rechner.getInstructionCount(), System.nanoTime()-start);
+		System.err.print(devices.getReport());
+	}
+	/**
+	 * Reads the numbers of the standard input and offers them in batches to an input queue, until the standard input ends
+	 * @param ninput The input queue
+	 * @throws Exception Throws exceptions from reading the standard input
+	 */
+	private static void feed(Device.Input ninput) throws Exception
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+		int[] values = new int[256];
+		int count = 0;
+		String line;
+		while((line = reader.readLine()) != null)
+		{
+			for(String token : line.trim().split("\\s+"))
+			{
+				if(token.length() == 0)
+				{
+					continue;
+				}
+				values[count++] = Integer.parseInt(token);
+				if(count == values.length)
+				{
+					offer(ninput, values, count);
+					count = 0;
+				}
+			}
+		}
+		offer(ninput, values, count);
+		ninput.close();
+	}
+	/**
+	 * Offers values to an input queue, waits while the queue is full
+	 * @param ninput The input queue
+	 * @param nvalues The values
+	 * @param ncount Number of values
+	 */
+	private static void offer(Device.Input ninput, int[] nvalues, int ncount)
+	{
+		int offered = 0;
+		while(offered < ncount)
+		{
+			offered += ninput.getBuffer().offer(nvalues, offered, ncount-offered);
+			if(offered < ncount)
+			{
+				Thread.yield();
+			}
+		}
+	}
+	/**
+	 * Assembles the given file, executes it on a BatchRechner with one instance per line of the datafile
+	 * and prints the state and the written ramcells of each instance afterwards
+	 * @param nfile Path of the file to execute
+	 * @param ndataFile Path of the datafile, each line contains an adress or label followed by the numbers to write there
+	 * @param nramSize Size of the ram
+	 * @throws Exception Throws exceptions from the file access and the execution
+	 */
+	private static void runBatch(String nfile, String ndataFile, int nramSize) throws Exception
+	{
+		String program = readFile(nfile);
+		HashMap<String, Integer> labels = Interpreter.stringToLabels(program);
+		List<String[]> lines = readData(ndataFile);
+		BatchRechner rechner = new BatchRechner(Interpreter.stringToRam(program, nramSize), lines.size());
+		int[] addresses = new int[lines.size()];
+		int[] lengths = new int[lines.size()];
+		for(int i = 0; i < lines.size(); i++)
+		{
+			String[] values = lines.get(i);
+			Integer label = labels.get(values[0].toUpperCase());
+			addresses[i] = label != null ? label : Integer.parseInt(values[0]);
+			int[] data = new int[values.length-1];
+			for(int j = 0; j < data.length; j++)
+			{
+				data[j] = Integer.parseInt(values[j+1]);
+			}
+			lengths[i] = data.length;
+			rechner.patch(i, addresses[i], data);
+		}
+		long start = System.nanoTime();
+		rechner.run(Long.MAX_VALUE);
+		long time = System.nanoTime()-start;
+		
+		for(int i = 0; i < rechner.getInstances(); i++)
+		{
+			int status = rechner.getStatus(i);
+			StringBuilder line = new StringBuilder("Instance "+i+" stopped: ");
+			line.append(status == BatchRechner.STATUS_EXCEPTION ? rechner.getException(i).toString() : HeadlessRechner.stopReason(status).toString());
+			line.append(", Accumulator: "+rechner.getAccumulator(i)+", "+rechner.getInstructionCount(i)+" instructions:");
+			int[] ram = rechner.getRam(i);
+			for(int j = addresses[i]; j < addresses[i]+lengths[i]; j++)
+			{
+				line.append(" "+ram[j]);
+			}
+			System.out.println(line);
+		}
+		System.out.println("Executed in "+(time/1000000)+" ms");
+		System.out.print(rechner.getReport());
+	}
+	/**
+	 * Executes the program in the given file once per line of the datafile on machines of a MachinePool, the threads take the lines
+	 * one after another and print the same results as runBatch() in the order of the lines.
+	 * @param nfile Path of the file to execute
+	 * @param ndataFile Path of the datafile, each line contains an adress or label followed by the numbers to write there
+	 * @param nramSize Size of the ram
+	 * @param nthreads Number of threads executing the runs
+	 * @throws Exception Throws exceptions from the file access
+	 */
+	private static void runJobs(String nfile, String ndataFile, int nramSize, int nthreads) throws Exception
+	{
+		String program = readFile(nfile);
+		HashMap<String, Integer> labels = Interpreter.stringToLabels(program);
+		List<String[]> lines = readData(ndataFile);
+		final int[] addresses = new int[lines.size()];
+		final int[][] data = new int[lines.size()][];
+		for(int i = 0; i < lines.size(); i++)
+		{
+			String[] values = lines.get(i);
+			Integer label = labels.get(values[0].toUpperCase());
+			addresses[i] = label != null ? label : Integer.parseInt(values[0]);
+			data[i] = new int[values.length-1];
+			for(int j = 0; j < data[i].length; j++)
+			{
+				data[i][j] = Integer.parseInt(values[j+1]);
+			}
+		}
+		final MachinePool pool = new MachinePool(Interpreter.stringToRam(program, nramSize));
+		final String[] results = new String[lines.size()];
+		final AtomicInteger next = new AtomicInteger();
+		Thread[] threads = new Thread[Math.max(1, nthreads)];
+		long start = System.nanoTime();
+		for(int t = 0; t < threads.length; t++)
+		{
+			threads[t] = new Thread("Jobs "+t)
+			{
+				public void run()
+				{
+					for(int i = next.getAndIncrement(); i < results.length; i = next.getAndIncrement())
+					{
+						results[i] = runJob(pool, addresses[i], data[i]);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for(Thread thread : threads)
+		{
+			thread.join();
+		}
+		long time = System.nanoTime()-start;
+		
+		for(int i = 0; i < results.length; i++)
+		{
+			System.out.println("Job "+i+" stopped: "+results[i]);
+		}
+		System.out.println("Executed in "+(time/1000000)+" ms on "+pool.getCreated()+" machines");
+	}
+	/**
+	 * Executes one run on a machine of the pool
+	 * @param npool The pool
+	 * @param naddress The first ramcell written before the run
+	 * @param ndata The numbers written before the run
+	 * @return The reason why the run stopped, the accumulator, the number of instructions and the ramcells written before the run
+	 */
+	private static String runJob(MachinePool npool, int naddress, int[] ndata)
+	{
+		HeadlessRechner rechner = npool.acquire();
+		try
+		{
+			StringBuilder line = new StringBuilder();
+			try
+			{
+				for(int j = 0; j < ndata.length; j++)
+				{
+					rechner.setRam(naddress+j, ndata[j]);
+				}
+				int status = rechner.run();
+				line.append(HeadlessRechner.stopReason(status));
+			}
+			catch(RuntimeException e)
+			{
+				line.append(e.toString());
+			}
+			line.append(", Accumulator: "+rechner.getAccumulator()+", "+rechner.getInstructionCount()+" instructions:");
+			int[] ram = rechner.getRam();
+			for(int j = naddress; j < naddress+ndata.length && j < ram.length; j++)
+			{
+				line.append(" "+ram[j]);
+			}
+			return line.toString();
+		}
+		finally
+		{
+			npool.release(rechner);
+		}
+	}
+	/**
+	 * Reads the lines of a datafile, empty lines and comments starting with ; are skipped
+	 * @param ndataFile Path of the datafile
+	 * @return The values of each line
+	 * @throws Exception Throws exceptions from the file access
+	 */
+	private static List<String[]> readData(String ndataFile) throws Exception
+	{
+		List<String[]> lines = new ArrayList<String[]>();
+		for(String line : readFile(ndataFile).split("\n"))
+		{
+			if(!line.trim().isEmpty() && !line.trim().startsWith(";"))
+			{
+				lines.add(line.trim().split("\\s+"));
+			}
+		}
+		return lines;
+	}
+	/**
+	 * Creates a cache level from its description
+	 * @param nname Name of the cache
+	 * @param nconfiguration Size, associativity and line size, separated by colons
+	 * @param nreplacement Cache.REPLACEMENT_LRU or Cache.REPLACEMENT_RANDOM
+	 * @param nnext Next level of the cache, null for the ram
+	 * @return The new cache
+	 */
+	private static Cache createCache(String nname, String nconfiguration, int nreplacement, Cache nnext)
+	{
+		String[] values = nconfiguration.split(":");
+		return new Cache(nname, Integer.parseInt(values[0]), Integer.parseInt(values[1]), Integer.parseInt(values[2]), nreplacement, nnext);
+	}
+	
+	/**
+	 * Translates the program in the given file into a java class and writes it to classname.java.
+	 * Programs that modify their own code are executed without GUI instead.
+	 * @param nfile Path of the file to translate
+	 * @param nclassName Name of the generated class
+	 * @param nramSize Size of the ram
+	 * @throws Exception Throws exceptions from the file access
+	 */
+	private static void translate(String nfile, String nclassName, int nramSize) throws Exception
+	{
+		Translator translator = new Translator(Interpreter.stringToRam(readFile(nfile), nramSize));
+		if(translator.isSelfModifying())
+		{
+			System.out.println("The program modifies its own code and can not be translated:");
+			System.out.print(translator.getReport());
+			System.out.println("Executing it in the interpreter instead.");
+			runHeadless(nfile, nramSize, Long.MAX_VALUE, 0);
+			return;
+		}
+		FileWriter writer = new FileWriter(nclassName+".java");
+		writer.write(translator.toJava(nclassName));
+		writer.close();
+	}
+	
+	/**
+	 * Reads the content of a file
+	 * @param nfile Path of the file to read
+	 * @return The content of the file
+	 * @throws Exception Throws exceptions from FileReader and BufferedReader
+	 */
+	private static String readFile(String nfile) throws Exception
+	{
+		StringBuilder tString = new StringBuilder(512);
+		BufferedReader breader = new BufferedReader(new FileReader(nfile));
+		while(breader.ready())
+		{
+			tString.append(breader.readLine()+"\n");
 		}
+		breader.close();
+		return tString.toString();
 	}
 
 }
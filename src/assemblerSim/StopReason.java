@@ -0,0 +1,47 @@
+package assemblerSim;
+
+/**
+ * This enum contains the reasons why a bounded run of a program stopped
+ */
+public enum StopReason {
+	/**
+	 * A HALT-instruction was executed, or a jump condition was not fulfilled in the last ramcell
+	 */
+	HALT,
+	/**
+	 * A breakpoint was reached
+	 */
+	BREAK,
+	/**
+	 * The maximum number of instructions was executed
+	 */
+	BUDGET,
+	/**
+	 * The deadline passed
+	 */
+	DEADLINE,
+	/**
+	 * The last ramcell was executed, executing the next instruction executes it again
+	 */
+	END_OF_RAM,
+	/**
+	 * The run was cancelled by another thread
+	 */
+	CANCELLED,
+	/**
+	 * The machine returned to a state it was in before, so it would run forever, see LoopDetector
+	 */
+	LOOP,
+	/**
+	 * A backward run reached the oldest instruction recorded in the History
+	 */
+	START_OF_HISTORY,
+	/**
+	 * A CALL found the return stack full, the machine stays at the CALL
+	 */
+	STACK_OVERFLOW,
+	/**
+	 * A RET found the return stack empty, the machine stays at the RET
+	 */
+	STACK_UNDERFLOW
+}
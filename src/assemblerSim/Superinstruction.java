@@ -0,0 +1,141 @@
+package assemblerSim;
+
+import java.util.Map;
+
+/**
+ * A sequence of instructions fused into one instruction, which HeadlessRechner.run() executes with a single dispatch,
+ * e.g. LOAD x / ADDM 1 / STORE x or LOAD a / SUB b / JMPGEM L.
+ * A sequence ends with the first instruction writing into the ram or jump, before a HALT or BREAK and before the last ramcell. Because a store ends the sequence,
+ * a program overwriting its own code can only change instructions of the sequence which were executed already.
+ * A superinstruction replaces the decoded instruction of the first ramcell of the sequence only, the other ramcells keep their own
+ * decoded instructions, so jumps into the middle of the sequence still work. It is dropped when one of its ramcells is overwritten.
+ */
+public class Superinstruction extends HeadlessRechner.Handler
+{
+	/**
+	 * Maximum number of fused instructions
+	 */
+	public final static int MAX_LENGTH = 8;
+
+	/*
+	 * Indices of the statistics of a sequence
+	 */
+	public final static int STAT_FUSED = 0;
+	public final static int STAT_EXECUTIONS = 1;
+
+	private final int address;
+	private final HeadlessRechner.Handler[] handlers;
+	private final int[] operands;
+	private final int[] instructions;
+	/**
+	 * Statistics shared by all superinstructions with the same opcodes
+	 */
+	private final long[] statistics;
+
+	/**
+	 * Creates a superinstruction
+	 * @param naddress Adress of the first instruction
+	 * @param nhandlers Handlers of the fused instructions
+	 * @param noperands Decoded operands of the fused instructions
+	 * @param ninstructions The fused instructions
+	 * @param nstatistics Statistics of the sequence
+	 */
+	private Superinstruction(int naddress, HeadlessRechner.Handler[] nhandlers, int[] noperands, int[] ninstructions, long[] nstatistics)
+	{
+		super(false, nhandlers[nhandlers.length-1].jump, nhandlers.length);
+		address = naddress;
+		handlers = nhandlers;
+		operands = noperands;
+		instructions = ninstructions;
+		statistics = nstatistics;
+		statistics[STAT_FUSED]++;
+	}
+
+	/**
+	 * Collects the sequence starting at the given adress and creates the superinstruction for it
+	 * @param m The machine containing the sequence
+	 * @param address Adress of the first instruction
+	 * @param nstatistics Statistics of the machine, indexed by the opcodes of the sequences
+	 * @return The superinstruction or null, if less than two instructions can be fused at the adress
+	 */
+	static Superinstruction create(HeadlessRechner m, int address, Map<String, long[]> nstatistics)
+	{
+		int[] ram = m.ram;
+		int length = 0;
+		while(length < MAX_LENGTH && address+length < ram.length-1)
+		{
+			Opcodes opcode = Opcodes.decode(ram[address+length]);
+			if(opcode == Opcodes.HALT || opcode == Opcodes.BREAK)
+			{
+				break;
+			}
+			length++;
+			HeadlessRechner.Handler handler = HeadlessRechner.handler(opcode);
+			if(handler.jump || opcode.writesRam())
+			{
+				break;
+			}
+		}
+		if(length < 2)
+		{
+			return null;
+		}
+		HeadlessRechner.Handler[] handlers = new HeadlessRechner.Handler[length];
+		int[] operands = new int[length];
+		int[] instructions = new int[length];
+		StringBuilder name = new StringBuilder();
+		for(int i = 0; i < length; i++)
+		{
+			Opcodes opcode = Opcodes.decode(ram[address+i]);
+			handlers[i] = HeadlessRechner.handler(opcode);
+			operands[i] = m.decodeOperand(address+i);
+			instructions[i] = ram[address+i];
+			if(i > 0)
+			{
+				name.append('/');
+			}
+			name.append(opcode);
+		}
+		long[] statistics = nstatistics.get(name.toString());
+		if(statistics == null)
+		{
+			statistics = new long[2];
+			nstatistics.put(name.toString(), statistics);
+		}
+		return new Superinstruction(address, handlers, operands, instructions, statistics);
+	}
+
+	/**
+	 * Executes all fused instructions. Afterwards the registers are in the same state as after executing them one by one,
+	 * with the programcounter pointing to the last of them, if it is not a jump.
+	 * If an instruction fails, the machine is left at the failing instruction like the interpreter does,
+	 * with the instructions executed before it added to the instruction count.
+	 * @param m The machine to execute the instructions on
+	 * @param operand The decoded operand of the first instruction
+	 */
+	void execute(HeadlessRechner m, int operand)
+	{
+		int last = handlers.length-1;
+		int i = 0;
+		try
+		{
+			for(; i < last; i++)
+			{
+				m.addressRegister = address+i;
+				handlers[i].execute(m, operands[i]);
+			}
+			m.instructionRegister = instructions[last];
+			m.programCounter = address+last;
+			m.addressRegister = address+last;
+			handlers[last].execute(m, operands[last]);
+		}
+		catch(RuntimeException e)
+		{
+			m.instructionRegister = instructions[i];
+			m.programCounter = address+i;
+			m.instructionCount += i;
+			throw e;
+		}
+		statistics[STAT_EXECUTIONS]++;
+	}
+}
@@ -0,0 +1,707 @@
+package assemblerSim;
+
+import java.util.ArrayList;
+
+/**
+ * Translates a program in machinecode, e.g. created by Interpreter.stringToRam, into the source of a standalone Java class.
+ * Every reachable instruction becomes a case of one switch over the programcounter, the registers become local variables.
+ *
+ * The generated class has a method run(int[] ram, int[] registers), the registers are indexed by the register constants of VonNeumannRechner,
+ * followed by the return stack. It returns one of the HeadlessRechner.STATUS_ constants, or STATUS_INTERPRET if the program jumps to a ramcell that was not translated,
+ * writes into its own code through an indirect or indexed store or a MEMCPY or MEMSET, or a CALL or RET finds the return stack full or empty. In this case the program has to be continued by a HeadlessRechner from the returned registers,
+ * the translated code is not valid anymore.
+ *
+ * Programs that write into their own code with a direct STORE, STX or XCHG are not translated, see isSelfModifying() and getReport().
+ */
+public class Translator
+{
+	/**
+	 * Returned by the generated code if the rest of the program has to be interpreted
+	 */
+	public final static int STATUS_INTERPRET = 6;
+	/**
+	 * Number of entries of the registers of the generated code: the registers of the VonNeumannRechner up to the stackpointer and the return stack
+	 */
+	public final static int REGISTERS = VonNeumannRechner.STACKPOINTER+1+HeadlessRechner.RETURN_STACK_SIZE;
+
+	private int[] ram;
+	private int addressMask;
+	/**
+	 * Ramcells which can be reached as instructions from address 0
+	 */
+	private boolean[] code;
+	private ArrayList<String> problems = new ArrayList<String>();
+
+	/**
+	 * Create a new Translator and analyze the program
+	 * @param nram The machinecode of the program
+	 */
+	public Translator(int[] nram)
+	{
+		ram = nram;
+		addressMask = 0xFFFFFF%ram.length;
+		findCode();
+		findSelfModification();
+	}
+
+	/**
+	 * Checks whether the program writes into its own code with a direct STORE, STX or XCHG
+	 * @return true, if the program can not be translated
+	 */
+	protected boolean isSelfModifying()
+	{
+		return !problems.isEmpty();
+	}
+
+	/**
+	 * Returns a description of all stores into the code of the program
+	 * @return One line per store into the code
+	 */
+	protected String getReport()
+	{
+		StringBuilder report = new StringBuilder();
+		for(String problem : problems)
+		{
+			report.append(problem).append("\n");
+		}
+		return report.toString();
+	}
+
+	/**
+	 * Checks whether a ramcell is translated as an instruction
+	 * @param address The ramcell to check
+	 * @return true, if the ramcell can be reached as an instruction
+	 */
+	protected boolean isCode(int address)
+	{
+		return code[address];
+	}
+
+	/**
+	 * Marks all ramcells reachable from address 0 as code.
+	 * The targets of jumps which read their target from the ram are taken from the initial content of the ram.
+	 * RET returns behind a CALL, so the ramcell after every CALL is code.
+	 */
+	private void findCode()
+	{
+		code = new boolean[ram.length];
+		ArrayList<Integer> todo = new ArrayList<Integer>();
+		todo.add(0);
+		while(!todo.isEmpty())
+		{
+			int address = todo.remove(todo.size()-1);
+			if(address < 0 || address >= ram.length || code[address])
+			{
+				continue;
+			}
+			code[address] = true;
+			Opcodes command = Opcodes.decode(ram[address]);
+			int operand = ram[address]&addressMask;
+			switch(command)
+			{
+			case HALT:
+				break;
+			case JMP:
+				todo.add(ram[operand]);
+				break;
+			case JMPI:
+				todo.add(readIndirect(operand));
+				break;
+			case JMPM:
+				todo.add(operand);
+				break;
+			case CALL:
+				todo.add(operand);
+				todo.add(address+1);
+				break;
+			case RET:
+				break;
+			case JMPEQ:
+			case JMPNE:
+			case JMPGT:
+			case JMPLT:
+			case JMPGE:
+			case JMPLE:
+				todo.add(ram[operand]);
+				todo.add(address+1);
+				break;
+			case JMPEQI:
+			case JMPNEI:
+			case JMPGTI:
+			case JMPLTI:
+			case JMPGEI:
+			case JMPLEI:
+				todo.add(readIndirect(operand));
+				todo.add(address+1);
+				break;
+			case JMPEQM:
+			case JMPNEM:
+			case JMPGTM:
+			case JMPLTM:
+			case JMPGEM:
+			case JMPLEM:
+				todo.add(operand);
+				todo.add(address+1);
+				break;
+			default:
+				todo.add(address+1);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Reads the ramcell pointed to by another ramcell from the initial content of the ram
+	 * @param operand The ramcell containing the pointer
+	 * @return The content of the ramcell pointed to or -1, if the pointer is not a valid adress
+	 */
+	private int readIndirect(int operand)
+	{
+		int address = ram[operand]%ram.length;
+		return address < 0 ? -1 : ram[address];
+	}
+
+	/**
+	 * Collects all direct stores into ramcells that are translated as instructions
+	 */
+	private void findSelfModification()
+	{
+		for(int i = 0; i < ram.length; i++)
+		{
+			int target = ram[i]&addressMask;
+			Opcodes command = Opcodes.decode(ram[i]);
+			if(code[i] && (command == Opcodes.STORE || command == Opcodes.STX || command == Opcodes.XCHG) && code[target])
+			{
+				problems.add("Instruction "+i+" ("+Interpreter.opcodeToString(ram[i])+") writes into the code at "+target);
+			}
+		}
+	}
+
+	/**
+	 * Creates the source of the translated program
+	 * @param className Name of the generated class
+	 * @return The source of the generated class
+	 * @throws IllegalStateException If the program writes into its own code
+	 */
+	protected String toJava(String className)
+	{
+		if(isSelfModifying())
+		{
+			throw new IllegalStateException("The program modifies its own code:\n"+getReport());
+		}
+		StringBuilder out = new StringBuilder();
+		out.append("/**\n");
+		out.append(" * Translated from machinecode by assemblerSim.Translator\n");
+		out.append(" */\n");
+		out.append("public class ").append(className).append("\n{\n");
+		out.append("\tpublic final static int STATUS_HALT = ").append(HeadlessRechner.STATUS_HALT).append(";\n");
+		out.append("\tpublic final static int STATUS_BREAK = ").append(HeadlessRechner.STATUS_BREAK).append(";\n");
+		out.append("\tpublic final static int STATUS_END_OF_RAM = ").append(HeadlessRechner.STATUS_END_OF_RAM).append(";\n");
+		out.append("\tpublic final static int STATUS_INTERPRET = ").append(STATUS_INTERPRET).append(";\n");
+		out.append("\tpublic final static int RAM_SIZE = ").append(ram.length).append(";\n");
+		out.append("\tpublic final static int RETURN_STACK_SIZE = ").append(HeadlessRechner.RETURN_STACK_SIZE).append(";\n");
+		out.append("\tpublic final static int REGISTERS = ").append(REGISTERS).append(";\n\n");
+		appendCodeTable(out);
+		appendBulkHelpers(out);
+		appendCreateRam(out);
+		appendRun(out);
+		appendMain(out);
+		out.append("}\n");
+		return out.toString();
+	}
+
+	/**
+	 * Appends the table of translated ramcells, used to detect indirect stores into the code
+	 * @param out The source to append to
+	 */
+	private void appendCodeTable(StringBuilder out)
+	{
+		out.append("\tprivate final static boolean[] CODE = new boolean[RAM_SIZE];\n");
+		out.append("\tstatic\n\t{\n");
+		for(int i = 0; i < ram.length; i++)
+		{
+			if(code[i] && (i == 0 || !code[i-1]))
+			{
+				int end = i;
+				while(end < ram.length && code[end])
+				{
+					end++;
+				}
+				out.append("\t\tjava.util.Arrays.fill(CODE, ").append(i).append(", ").append(end).append(", true);\n");
+			}
+		}
+		out.append("\t}\n\n");
+	}
+
+	/**
+	 * Appends the methods used by the bulk instructions, see BulkMemory
+	 * @param out The source to append to
+	 */
+	private void appendBulkHelpers(StringBuilder out)
+	{
+		out.append("\t/**\n\t * Returns the start of a region of a bulk instruction and checks that it fits into the ram\n\t */\n");
+		out.append("\tprivate static int start(int[] r, int cell, int length)\n\t{\n");
+		out.append("\t\tint start = r[cell]%RAM_SIZE;\n");
+		out.append("\t\tif(start < 0 || start > RAM_SIZE-length)\n\t\t{\n");
+		out.append("\t\t\tthrow new ArrayIndexOutOfBoundsException(\"Region \"+start+\" with \"+length+\" ramcells does not fit into the ram\");\n");
+		out.append("\t\t}\n\t\treturn start;\n\t}\n\n");
+		out.append("\t/**\n\t * Checks whether a region contains translated ramcells\n\t */\n");
+		out.append("\tprivate static boolean code(int start, int length)\n\t{\n");
+		out.append("\t\tfor(int i = start; i < start+length; i++)\n\t\t{\n");
+		out.append("\t\t\tif(CODE[i])\n\t\t\t{\n\t\t\t\treturn true;\n\t\t\t}\n\t\t}\n");
+		out.append("\t\treturn false;\n\t}\n\n");
+	}
+
+	/**
+	 * Appends a method creating the initial content of the ram
+	 * @param out The source to append to
+	 */
+	private void appendCreateRam(StringBuilder out)
+	{
+		int length = ram.length;
+		while(length > 0 && ram[length-1] == 0)
+		{
+			length--;
+		}
+		out.append("\t/**\n\t * Returns the initial content of the ram\n\t */\n");
+		out.append("\tpublic static int[] createRam()\n\t{\n");
+		out.append("\t\tint[] ram = new int[RAM_SIZE];\n");
+		out.append("\t\tint[] program = {");
+		for(int i = 0; i < length; i++)
+		{
+			out.append(i%8 == 0 ? "\n\t\t\t" : " ").append("0x").append(Integer.toHexString(ram[i])).append(",");
+		}
+		out.append("\n\t\t};\n");
+		out.append("\t\tSystem.arraycopy(program, 0, ram, 0, program.length);\n");
+		out.append("\t\treturn ram;\n\t}\n\n");
+	}
+
+	/**
+	 * Appends the translated program
+	 * @param out The source to append to
+	 */
+	private void appendRun(StringBuilder out)
+	{
+		out.append("\t/**\n\t * Executes the program until it halts, reaches a breakpoint or has to be continued by the interpreter\n");
+		out.append("\t * @param r The ram\n\t * @param registers Accumulator, valueregister, instructionregister, programcounter, adressregister,\n");
+		out.append("\t * indexregister, stackpointer and the return stack, REGISTERS entries\n");
+		out.append("\t * @return One of the STATUS_ constants\n\t */\n");
+		out.append("\tpublic static int run(int[] r, int[] registers)\n\t{\n");
+		out.append("\t\tif(r.length != RAM_SIZE)\n\t\t{\n\t\t\tthrow new IllegalArgumentException(\"The ram has to have \"+RAM_SIZE+\" cells\");\n\t\t}\n");
+		out.append("\t\tint acc = registers[0];\n\t\tint vr = registers[1];\n\t\tint ir = registers[2];\n\t\tint pc = registers[3];\n\t\tint ar = registers[4];\n");
+		out.append("\t\tint x = registers[5];\n\t\tint sp = registers[6];\n");
+		out.append("\t\tint[] stack = new int[RETURN_STACK_SIZE];\n\t\tSystem.arraycopy(registers, 7, stack, 0, RETURN_STACK_SIZE);\n");
+		out.append("\t\tint status;\n");
+		out.append("\t\tloop:\n\t\tfor(;;)\n\t\t{\n\t\t\tswitch(pc)\n\t\t\t{\n");
+		for(int i = 0; i < ram.length; i++)
+		{
+			if(code[i])
+			{
+				out.append("\t\t\tcase ").append(i).append(": //").append(Interpreter.opcodeToString(ram[i])).append("\n");
+				appendInstruction(out, i);
+			}
+		}
+		out.append("\t\t\tdefault:\n\t\t\t\tstatus = STATUS_INTERPRET;\n\t\t\t\tbreak loop;\n");
+		out.append("\t\t\t}\n\t\t}\n");
+		out.append("\t\tregisters[0] = acc;\n\t\tregisters[1] = vr;\n\t\tregisters[2] = ir;\n\t\tregisters[3] = pc;\n\t\tregisters[4] = ar;\n");
+		out.append("\t\tregisters[5] = x;\n\t\tregisters[6] = sp;\n\t\tSystem.arraycopy(stack, 0, registers, 7, RETURN_STACK_SIZE);\n");
+		out.append("\t\treturn status;\n\t}\n\n");
+	}
+
+	/**
+	 * Appends a main method executing the program and printing the accumulator
+	 * @param out The source to append to
+	 */
+	private void appendMain(StringBuilder out)
+	{
+		out.append("\tpublic static void main(String[] args)\n\t{\n");
+		out.append("\t\tint[] ram = createRam();\n\t\tint[] registers = new int[REGISTERS];\n");
+		out.append("\t\tint status;\n");
+		out.append("\t\twhile((status = run(ram, registers)) == STATUS_BREAK)\n\t\t{\n\t\t}\n");
+		out.append("\t\tSystem.out.println(\"Status: \"+status+\" Accumulator: \"+registers[0]+\" Programcounter: \"+registers[3]);\n");
+		out.append("\t}\n");
+	}
+
+	/**
+	 * Appends the code of one instruction. Sequential instructions fall through into the next case.
+	 * The instructionregister and adressregister are only set where the program can leave the generated code.
+	 * @param out The source to append to
+	 * @param address The adress of the instruction
+	 */
+	private void appendInstruction(StringBuilder out, int address)
+	{
+		String ir = "ir = 0x"+Integer.toHexString(ram[address])+"; ";
+		boolean last = address == ram.length-1;
+		Opcodes command = Opcodes.decode(ram[address]);
+		int operand = ram[address]&addressMask;
+		int value = ram[address]&0xFFFFFF;
+		String indirect = "r["+operand+"]%RAM_SIZE";
+		String indexed = "("+operand+"+x)%RAM_SIZE";
+		//adressregister after the instruction
+		String ar = "ar = "+address+"; ";
+		switch(command)
+		{
+		case NOP:
+		default:
+			break;
+		case HALT:
+			line(out, ir+"ar = "+operand+"; pc = "+address+";");
+			line(out, "status = STATUS_HALT;");
+			line(out, "break loop;");
+			return;
+		case BREAK:
+			line(out, ir+ar+"pc = "+(last ? address : address+1)+";");
+			line(out, last ? "status = STATUS_END_OF_RAM;" : "status = STATUS_BREAK;");
+			line(out, "break loop;");
+			return;
+		case LOAD:
+			line(out, "acc = r["+operand+"];");
+			ar = "ar = "+operand+"; ";
+			break;
+		case LOADI:
+			line(out, "ar = "+indirect+";");
+			line(out, "acc = r[ar];");
+			ar = "";
+			break;
+		case LOADM:
+			line(out, "acc = "+value+";");
+			break;
+		case STORE:
+			line(out, "r["+operand+"] = acc;");
+			ar = "ar = "+operand+"; ";
+			break;
+		case XCHG:
+			line(out, "vr = r["+operand+"];");
+			line(out, "r["+operand+"] = acc;");
+			line(out, "acc = vr;");
+			ar = "ar = "+operand+"; ";
+			break;
+		case MEMCPY:
+		case MEMSET:
+			//the descriptor follows the operand, wrapping at the end of the ram
+			int second = operand+1 < ram.length ? operand+1 : 0;
+			line(out, "if(acc > 0)");
+			line(out, "{");
+			line(out, "\tint d = start(r, "+operand+", acc);");
+			if(command == Opcodes.MEMCPY)
+			{
+				line(out, "\tSystem.arraycopy(r, start(r, "+second+", acc), r, d, acc);");
+			}
+			else
+			{
+				line(out, "\tjava.util.Arrays.fill(r, d, d+acc, r["+second+"]);");
+			}
+			if(!last)
+			{
+				line(out, "\tif(code(d, acc))");
+				line(out, "\t{");
+				line(out, "\t\tvr = acc; "+ir+"ar = "+operand+"; pc = "+(address+1)+";");
+				line(out, "\t\tstatus = STATUS_INTERPRET;");
+				line(out, "\t\tbreak loop;");
+				line(out, "\t}");
+			}
+			line(out, "}");
+			line(out, "vr = acc > 0 ? acc : 0;");
+			ar = "ar = "+operand+"; ";
+			break;
+		case MEMCMP:
+			line(out, "vr = 0;");
+			line(out, "if(acc > 0)");
+			line(out, "{");
+			line(out, "\tint f = start(r, "+operand+", acc);");
+			line(out, "\tint s = start(r, "+(operand+1 < ram.length ? operand+1 : 0)+", acc);");
+			line(out, "\twhile(vr < acc && r[f+vr] == r[s+vr])");
+			line(out, "\t{");
+			line(out, "\t\tvr++;");
+			line(out, "\t}");
+			line(out, "\tif(vr < acc)");
+			line(out, "\t{");
+			line(out, "\t\tacc = r[f+vr] < r[s+vr] ? -1 : 1;");
+			line(out, "\t\tvr++;");
+			line(out, "\t}");
+			line(out, "\telse");
+			line(out, "\t{");
+			line(out, "\t\tacc = 0;");
+			line(out, "\t}");
+			line(out, "}");
+			line(out, "else");
+			line(out, "{");
+			line(out, "\tacc = 0;");
+			line(out, "}");
+			ar = "ar = "+operand+"; ";
+			break;
+		case STOREI:
+		case STOREX:
+		case STOREXP:
+			line(out, "ar = "+(command == Opcodes.STOREI ? indirect : indexed)+";");
+			line(out, "r[ar] = acc;");
+			if(command == Opcodes.STOREXP)
+			{
+				line(out, "x++;");
+			}
+			ar = "";
+			if(!last)
+			{
+				line(out, "if(CODE[ar])");
+				line(out, "{");
+				line(out, "\t"+ir+"pc = "+(address+1)+";");
+				line(out, "\tstatus = STATUS_INTERPRET;");
+				line(out, "\tbreak loop;");
+				line(out, "}");
+			}
+			break;
+		case LDX:
+			line(out, "x = r["+operand+"];");
+			ar = "ar = "+operand+"; ";
+			break;
+		case LDXM:
+			line(out, "x = "+value+";");
+			break;
+		case STX:
+			line(out, "r["+operand+"] = x;");
+			ar = "ar = "+operand+"; ";
+			break;
+		case TAX:
+			line(out, "x = acc;");
+			break;
+		case TXA:
+			line(out, "acc = x;");
+			break;
+		case INCX:
+			line(out, "x++;");
+			break;
+		case DECX:
+			line(out, "x--;");
+			break;
+		case LOADX:
+		case LOADXP:
+			line(out, "ar = "+indexed+";");
+			line(out, "acc = r[ar];");
+			if(command == Opcodes.LOADXP)
+			{
+				line(out, "x++;");
+			}
+			ar = "";
+			break;
+		case ADDX:
+		case SUBX:
+			line(out, "ar = "+indexed+";");
+			line(out, "vr = r[ar];");
+			line(out, "acc = acc "+operator(command)+" vr;");
+			ar = "";
+			break;
+		case CALL:
+			line(out, "if(sp < 0 || sp >= RETURN_STACK_SIZE)");
+			line(out, "{");
+			line(out, "\tpc = "+address+";");
+			line(out, "\tstatus = STATUS_INTERPRET;");
+			line(out, "\tbreak loop;");
+			line(out, "}");
+			line(out, "stack[sp] = "+(address+1)+";");
+			line(out, "sp++;");
+			line(out, ir+ar+"pc = "+operand+";");
+			line(out, "continue loop;");
+			return;
+		case RET:
+			line(out, "if(sp <= 0 || sp > RETURN_STACK_SIZE)");
+			line(out, "{");
+			line(out, "\tpc = "+address+";");
+			line(out, "\tstatus = STATUS_INTERPRET;");
+			line(out, "\tbreak loop;");
+			line(out, "}");
+			line(out, ir+ar+"pc = stack[sp-1];");
+			line(out, "sp--;");
+			line(out, "continue loop;");
+			return;
+		case ADD:
+		case SUB:
+		case MULT:
+		case DIV:
+		case MOD:
+		case AND:
+		case OR:
+			line(out, "vr = r["+operand+"];");
+			line(out, "acc = acc "+operator(command)+" vr;");
+			ar = "ar = "+operand+"; ";
+			break;
+		case ADDM:
+		case SUBM:
+		case MULTM:
+		case DIVM:
+		case MODM:
+		case ANDM:
+		case ORM:
+			line(out, "vr = "+value+";");
+			line(out, "acc = acc "+operator(command)+" vr;");
+			break;
+		case ADDI:
+		case SUBI:
+		case MULTI:
+		case DIVI:
+		case MODI:
+		case ANDI:
+		case ORI:
+			line(out, "ar = "+indirect+";");
+			line(out, "vr = r[ar];");
+			line(out, "acc = acc "+operator(command)+" vr;");
+			ar = "";
+			break;
+		case NOT:
+			line(out, "acc = ~acc;");
+			break;
+		case JMP:
+			line(out, ir+"ar = "+operand+"; pc = r["+operand+"];");
+			line(out, "continue loop;");
+			return;
+		case JMPI:
+			line(out, ir+"ar = "+indirect+"; pc = r[ar];");
+			line(out, "continue loop;");
+			return;
+		case JMPM:
+			line(out, ir+ar+"pc = "+operand+";");
+			line(out, "continue loop;");
+			return;
+		case JMPEQ:
+		case JMPNE:
+		case JMPGT:
+		case JMPLT:
+		case JMPGE:
+		case JMPLE:
+			appendConditionalJump(out, command, ir, "ar = "+operand+"; ", "r["+operand+"]", last, address);
+			return;
+		case JMPEQI:
+		case JMPNEI:
+		case JMPGTI:
+		case JMPLTI:
+		case JMPGEI:
+		case JMPLEI:
+			appendConditionalJump(out, command, ir, "ar = "+indirect+"; ", "r[ar]", last, address);
+			return;
+		case JMPEQM:
+		case JMPNEM:
+		case JMPGTM:
+		case JMPLTM:
+		case JMPGEM:
+		case JMPLEM:
+			appendConditionalJump(out, command, ir, ar, ""+operand, last, address);
+			return;
+		}
+		if(last)
+		{
+			//like the interpreter, the end of the ram only pauses the program
+			line(out, ir+ar+"pc = "+address+";");
+			line(out, "status = STATUS_END_OF_RAM;");
+			line(out, "break loop;");
+		}
+	}
+
+	/**
+	 * Appends a conditional jump
+	 * @param out The source to append to
+	 * @param command The jump instruction
+	 * @param ir Assignment of the instructionregister
+	 * @param ar Assignment of the adressregister
+	 * @param target Expression of the jump target
+	 * @param last true, if the jump is in the last ramcell
+	 * @param address The adress of the jump
+	 */
+	private void appendConditionalJump(StringBuilder out, Opcodes command, String ir, String ar, String target, boolean last, int address)
+	{
+		line(out, "if(acc "+condition(command)+" 0)");
+		line(out, "{");
+		line(out, "\t"+ir+ar+"pc = "+target+";");
+		line(out, "\tcontinue loop;");
+		line(out, "}");
+		if(last)
+		{
+			//a failed jump in the last ramcell halts the machine
+			line(out, ir+ar+"pc = "+address+";");
+			line(out, "status = STATUS_HALT;");
+			line(out, "break loop;");
+		}
+	}
+
+	/**
+	 * Appends an indented line of generated code
+	 * @param out The source to append to
+	 * @param line The line to append
+	 */
+	private static void line(StringBuilder out, String line)
+	{
+		out.append("\t\t\t\t").append(line).append("\n");
+	}
+
+	/**
+	 * Returns the java operator of an arithmetic or logic instruction
+	 * @param command The instruction
+	 * @return The java operator
+	 */
+	private static String operator(Opcodes command)
+	{
+		switch(command)
+		{
+		case ADD:
+		case ADDM:
+		case ADDI:
+		case ADDX:
+			return "+";
+		case SUB:
+		case SUBM:
+		case SUBI:
+		case SUBX:
+			return "-";
+		case MULT:
+		case MULTM:
+		case MULTI:
+			return "*";
+		case DIV:
+		case DIVM:
+		case DIVI:
+			return "/";
+		case MOD:
+		case MODM:
+		case MODI:
+			return "%";
+		case AND:
+		case ANDM:
+		case ANDI:
+			return "&";
+		default:
+			return "|";
+		}
+	}
+
+	/**
+	 * Returns the java comparison of a conditional jump
+	 * @param command The jump instruction
+	 * @return The comparison of the accumulator with 0
+	 */
+	private static String condition(Opcodes command)
+	{
+		switch(command)
+		{
+		case JMPEQ:
+		case JMPEQM:
+		case JMPEQI:
+			return "==";
+		case JMPNE:
+		case JMPNEM:
+		case JMPNEI:
+			return "!=";
+		case JMPGT:
+		case JMPGTM:
+		case JMPGTI:
+			return ">";
+		case JMPLT:
+		case JMPLTM:
+		case JMPLTI:
+			return "<";
+		case JMPGE:
+		case JMPGEM:
+		case JMPGEI:
+			return ">=";
+		default:
+			return "<=";
+		}
+	}
+}
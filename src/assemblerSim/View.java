@@ -6,11 +6,13 @@ import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 
 import javax.swing.JComponent;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.text.BadLocationException;
 
 /**
  * An object from this class is responsible for the animation part of the GUI. 
@@ -71,6 +73,8 @@ public class View extends JComponent
 	// RAM-JTextArea field.
 	private JTextArea are = new JTextArea();
 	private JScrollPane sco = new JScrollPane(are);
+	// heatmap of the accesses next to the RAM-JTextArea field
+	private HeatStrip heat = new HeatStrip(are);
 	
 	// active line
 	private int linie = 0;
@@ -115,6 +119,7 @@ public class View extends JComponent
 		are.setLineWrap(false);
 		are.setEditable(false);
 		add(sco);
+		sco.setRowHeaderView(heat);
 		are.setFont(ramFont);
 		
 		//waiting until image is loaded or max iterated through 32bit
@@ -300,6 +305,35 @@ public class View extends JComponent
 		are.setCaretPosition(0);
 	}
 	
+	/**
+	 * Replaces one line in the RAM-JTextArea field, if it is shown.
+	 * @param line the line, the ramcell of a dense RAM
+	 * @param text the new line, with line break, see Controller.formatRAMCell
+	 */
+	protected void updateRAMLine(int line, String text)
+	{
+		if(line < are.getLineCount()-1)
+		{
+			try
+			{
+				are.replaceRange(text, are.getLineStartOffset(line), are.getLineEndOffset(line));
+			}
+			catch(BadLocationException e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	/**
+	 * Sets the heatmap next to the RAM-JTextArea field.
+	 * @param nheat the heat of every line, from 0 for no accesses to 1, see Controller.formatHeat
+	 */
+	protected void updateHeatmap(float[] nheat)
+	{
+		heat.setHeat(nheat);
+	}
+	
 	/**
 	 * Resizes all pictures to a new size
 	 * @param x size in x direction
@@ -381,4 +415,66 @@ public class View extends JComponent
 	public void update(Graphics g) {
 		   paint(g);
 		}
+	
+	/**
+	 * Paints a colored bar next to every line of a text area, from yellow for few accesses to red for the most
+	 */
+	private static class HeatStrip extends JComponent
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int STRIP_WIDTH = 8;
+		
+		private final JTextArea text;
+		private float[] heat = new float[0];
+		
+		/**
+		 * Constructor
+		 * @param ntext the text area whose lines the strip is shown next to
+		 */
+		HeatStrip(JTextArea ntext)
+		{
+			text = ntext;
+		}
+		
+		/**
+		 * Sets the heat of the lines and repaints the strip
+		 * @param nheat the heat of every line, from 0 to 1
+		 */
+		void setHeat(float[] nheat)
+		{
+			heat = nheat;
+			revalidate();
+			repaint();
+		}
+		
+		/**
+		 * Returns the size of the strip, as high as the lines of the text area
+		 */
+		public Dimension getPreferredSize()
+		{
+			return new Dimension(STRIP_WIDTH, text.getInsets().top+heat.length*text.getFontMetrics(text.getFont()).getHeight());
+		}
+		
+		/**
+		 * Paints the bars of the lines visible in the clip
+		 */
+		protected void paintComponent(Graphics g)
+		{
+			super.paintComponent(g);
+			float[] lines = heat;
+			int height = text.getFontMetrics(text.getFont()).getHeight();
+			int top = text.getInsets().top;
+			Rectangle clip = g.getClipBounds();
+			int first = clip == null ? 0 : Math.max(0, (clip.y-top)/height);
+			int last = clip == null ? lines.length : Math.min(lines.length, (clip.y+clip.height-top)/height+1);
+			for(int i = first; i < last; i++)
+			{
+				if(lines[i] > 0)
+				{
+					g.setColor(new Color(255, (int)(255*(1-lines[i])), 0));
+					g.fillRect(0, top+i*height, STRIP_WIDTH, height);
+				}
+			}
+		}
+	}
 }
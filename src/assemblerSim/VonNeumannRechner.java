@@ -1,5 +1,7 @@
 package assemblerSim;
 
+import java.util.Arrays;
+
 /**
  * Simulates a VonNeuman-machine
  * @author Tim Borcherding; Marco "Don" Kaulea
@@ -19,23 +21,88 @@ public class VonNeumannRechner
 	private int instructionRegister;
 	private int programCounter;
 	private int addressRegister;
+	private int indexRegister;
+	private final int[] returnStack = new int[HeadlessRechner.RETURN_STACK_SIZE];
+	private int stackPointer;
 	private int microCounter = 0;
-	private int[] ram;
+	private Ram ram;
 	protected void setRam(int index, int value)
 	{
-		ram[index] = value;
+		if(loops != null || history != null)
+		{
+			int previous = ram.read(index);
+			if(loops != null)
+			{
+				loops.stored(index, previous, value);
+			}
+			if(history != null)
+			{
+				history.stored(index, previous);
+			}
+		}
+		ram.write(index, value);
 		controller.updateRAMAnimation(ram);
 	}
 	boolean jmpFlag = false;
 	
 	int instruction;
 	Opcodes command;
+	/**
+	 * Executes whole instructions in runUntil(), shares the ram with this machine while the ram is dense and wraps
+	 */
+	private HeadlessRechner engine;
+	/**
+	 * Set by cancel() to stop a runUntil() which executes the microinstructions
+	 */
+	private volatile boolean cancelled;
+	/**
+	 * Number of instructions executed by runUntil() with the microinstructions since the last reset
+	 */
+	private long steppedInstructions;
+	/**
+	 * Set when the microinstructions reach a breakpoint, the end of the ram or a full or empty return stack, read by runSteps()
+	 */
+	private StopReason stopped;
+	/**
+	 * Set when a micro-operation could not be executed, the rest of the microprogram is skipped
+	 */
+	private boolean aborted;
+	/**
+	 * Simulated caches, which are told about every access of the ram, null if no caches are simulated
+	 */
+	private MemoryHierarchy memory;
+	/**
+	 * Simulated branch predictors, which are told about every conditional jump, null if no branch predictors are simulated
+	 */
+	private BranchStatistics branches;
+	/**
+	 * Devices mapped into the ram, null if the ram has no devices
+	 */
+	private DeviceBus devices;
+	/**
+	 * Detector of endless loops, null if loops are not detected or the ram is paged
+	 */
+	private LoopDetector loops;
+	/**
+	 * Detector of endless loops set by setLoopDetector(), only used while the ram is dense
+	 */
+	private LoopDetector loopDetector;
+	/**
+	 * Record of the changes for executing backwards, null if no history is recorded
+	 */
+	private History history;
+	/**
+	 * State of the machine passed to the history
+	 */
+	private final int[] historyState = new int[STATE_SIZE];
 	
 	public final static int ACCUMULATOR = 0;
 	public final static int VALUEREGISTER = 1;
 	public final static int INSTRUCTIONREGISTER = 2;
 	public final static int PROGRAMMCOUNTER = 3;
 	public final static int ADDRESSREGISTER = 4;
+	public final static int INDEXREGISTER = 5;
+	public final static int STACKPOINTER = 6;
 	
 	
 	int nextStep;	
@@ -43,6 +110,14 @@ public class VonNeumannRechner
 	public final static int STEP_FETCH = 1;
 	public final static int STEP_INDIRECT = 2;
 	public final static int STEP_EXECUTE = 3;
+	/**
+	 * Names of the cycles shown by the GUI, indexed by the steps
+	 */
+	private final static String[] CYCLES = {"HALT", "FETCH", "INDIRECT", "EXECUTE"};
+	/**
+	 * Number of values of the state recorded by a History: the registers, the instruction count in two values and the return stack
+	 */
+	final static int STATE_SIZE = 9+HeadlessRechner.RETURN_STACK_SIZE;
 	
 	/**
 	 * Create a new instance of VonNeumanRechner
@@ -50,9 +125,18 @@ public class VonNeumannRechner
 	 * @param nramSize Size of the ram
 	 */
 	public VonNeumannRechner(Controller nController, int nramSize)
+	{
+		this(nController, new Ram.Dense(new int[nramSize], true));
+	}
+	/**
+	 * Create a new instance of VonNeumanRechner
+	 * @param nController 
+	 * @param nram The ram, which also decides whether adresses wrap around
+	 */
+	public VonNeumannRechner(Controller nController, Ram nram)
 	{
 		controller = nController;
-		ram = new int[nramSize];
+		ram = nram;
 		nextStep = 1;
 	}
 	
@@ -65,19 +149,140 @@ public class VonNeumannRechner
 	}
 	
 	/**
-	 * Sets a new ram content
+	 * Sets a new ram content, stored in a dense ram which wraps like the current ram
 	 * @param nram The new ram content
 	 */
 	protected void setRam(int[] nram)
+	{
+		setRam(new Ram.Dense(nram, ram.isWrapping()));
+	}
+	/**
+	 * Sets a new ram. Only a dense ram which wraps is executed by the engine in runUntil() and only a dense ram is checked for loops.
+	 * A persistent ram is kept by reset().
+	 * @param nram The new ram
+	 */
+	protected void setRam(Ram nram)
 	{
 		ram = nram;
+		loops = ram.array() != null ? loopDetector : null;
+		if(loops != null)
+		{
+			loops.reset(ram.array());
+		}
+		if(history != null)
+		{
+			history.clear();
+		}
 		controller.updateRAMAnimation(ram);
 	}
 	/**
-	 * Returns the content of the ram
-	 * @return The content of the ram
+	 * Sets the simulated caches, which are used by the microinstructions and by runUntil()
+	 * @param nmemory The caches for a ram of the current size, null to stop simulating caches
+	 */
+	protected void setMemoryHierarchy(MemoryHierarchy nmemory)
+	{
+		memory = nmemory;
+		if(engine != null)
+		{
+			engine.setMemoryHierarchy(memory);
+		}
+	}
+	/**
+	 * Returns the simulated caches
+	 * @return The caches, null if no caches are simulated
+	 */
+	protected MemoryHierarchy getMemoryHierarchy()
+	{
+		return memory;
+	}
+	/**
+	 * Sets the simulated branch predictors, which are used by the microinstructions and by runUntil()
+	 * @param nbranches The branch predictors for a ram of the current size, null to stop simulating branch predictors
+	 */
+	protected void setBranchStatistics(BranchStatistics nbranches)
+	{
+		branches = nbranches;
+		if(engine != null)
+		{
+			engine.setBranchStatistics(branches);
+		}
+	}
+	/**
+	 * Sets the devices mapped into the ram, which are used by the microinstructions and by runUntil().
+	 * The instructions executed by the microinstructions are not counted by a timer.
+	 * @param ndevices The devices for a ram of the current size, null to use the whole ram as plain ram
+	 */
+	protected void setDeviceBus(DeviceBus ndevices)
+	{
+		devices = ndevices;
+		if(engine != null)
+		{
+			engine.setDeviceBus(devices);
+		}
+	}
+	/**
+	 * Sets the detector of endless loops, which halts the machine when it returns to a state it was in before.
+	 * The state is checked before every instruction executed by the microinstructions and periodically by runUntil().
+	 * @param nloops The detector for a ram of the current size, null to stop detecting loops
+	 */
+	protected void setLoopDetector(LoopDetector nloops)
+	{
+		loopDetector = nloops;
+		loops = ram.array() != null ? loopDetector : null;
+		if(loops != null)
+		{
+			loops.reset(ram.array());
+		}
+		if(engine != null)
+		{
+			engine.setLoopDetector(loops);
+		}
+	}
+	/**
+	 * Sets the history, which records the changes of every instruction executed with the microinstructions, so they can be executed backwards.
+	 * While a history is set, runUntil() executes the microinstructions instead of the engine. Devices are not rewound by going back.
+	 * @param nhistory The empty history, null to stop recording
+	 */
+	protected void setHistory(History nhistory)
+	{
+		history = nhistory;
+		if(history != null)
+		{
+			history.clear();
+		}
+	}
+	/**
+	 * Writes a ramcell changed from outside of the program, e.g. by editing its line, without updating the RAM view.
+	 * The loop detector keeps track of the change, the history is cleared as it could not undo it.
+	 * @param index The ramcell
+	 * @param value The new content
+	 */
+	protected void patch(int index, int value)
+	{
+		int previous = ram.read(index);
+		if(previous == value)
+		{
+			return;
+		}
+		ram.write(index, value);
+		if(loops != null)
+		{
+			loops.stored(index, previous, value);
+		}
+		if(history != null)
+		{
+			history.clear();
+		}
+		if(engine != null && engine.getRam() == ram.array())
+		{
+			engine.invalidate();
+		}
+	}
+	/**
+	 * Returns the ram
+	 * @return The ram
 	 */
-	protected int[] getRam()
+	protected Ram getBackend()
 	{
 		return ram;
 	}
@@ -87,7 +292,7 @@ public class VonNeumannRechner
 	 */
 	protected int getRamSize()
 	{
-		return ram.length;
+		return ram.getSize();
 	}
 	/**
 	 * Resets the VonNeumann-Machine
@@ -100,15 +305,25 @@ public class VonNeumannRechner
 		instructionRegister=0;
 		programCounter=0;
 		addressRegister=0;
+		indexRegister=0;
+		stackPointer=0;
+		Arrays.fill(returnStack, 0);
 		controller.setRegister(ACCUMULATOR, accumulator);
 		controller.setRegister(VALUEREGISTER, valueRegister);
 		controller.setRegister(INSTRUCTIONREGISTER, instructionRegister);
 		controller.setRegister(PROGRAMMCOUNTER,programCounter);
 		controller.setRegister(ADDRESSREGISTER,addressRegister);
-		setRam(new int[ram.length]);
+		controller.setRegister(INDEXREGISTER, indexRegister);
+		controller.setRegister(STACKPOINTER, stackPointer);
+		setRam(ram.isPersistent() ? ram : ram.createEmpty());
+		steppedInstructions = 0;
 		nextStep = STEP_FETCH;
 		resetMicro();
 		jmpFlag = false;
+		if(engine != null)
+		{
+			engine.reset();
+		}
 		controller.setCycleDisplay("FETCH");
 		controller.setLine(0);
 	}
@@ -120,6 +335,17 @@ public class VonNeumannRechner
 		switch(nextStep)
 		{
 			case STEP_FETCH:
+				if(microCounter == 0 && loops != null && devices == null
+						&& loops.check(ram.array(), programCounter, accumulator, indexRegister, returnStack, stackPointer))
+				{
+					stopLoop();
+					break;
+				}
+				if(microCounter == 0 && history != null)
+				{
+					saveState(historyState);
+					history.begin(historyState);
+				}
 				controller.setCycleDisplay("FETCH");
 				fetch();
 				break;
@@ -134,438 +360,647 @@ public class VonNeumannRechner
 		}
 	}
 	/**
-	 * Execute the Fetch-Cycle on the VonNeuman-Machine
+	 * Executes whole instructions without updating the GUI after each of them, until the machine stops,
+	 * the budget is used up, the deadline passed or the run is cancelled.
+	 * An instruction which is already partly executed is finished first with single steps, it is not counted in the budget.
+	 * The deadline and the cancellation are only checked every HeadlessRechner.CHECK_INTERVAL instructions.
+	 * A paged ram or a ram which does not wrap is executed with the microinstructions instead of the engine, see runSteps(),
+	 * as well as every ram while a history is recorded.
+	 * @param maxInstructions Maximum number of instructions to execute
+	 * @param deadline Time in milliseconds like System.currentTimeMillis(), after which the run stops, Long.MAX_VALUE for none
+	 * @return The reason why the run stopped
 	 */
-	private void fetch()
+	protected StopReason runUntil(long maxInstructions, long deadline)
 	{
-		switch(microCounter)
+		while(nextStep != STEP_HALT && (nextStep != STEP_FETCH || microCounter != 0))
 		{
-			case 0:
-				loadCurrentAddress();
-				microCounter++;
-				controller.appendEvent("Set Adressregister to Programcounter ("+programCounter+")\n");
-				break;
-			case 1:
-				loadOpcode();
-				resetMicro();
-				nextStep = STEP_INDIRECT;
-				controller.appendEvent("LOAD memorycell "+ addressRegister +" into Instructionregister\n");
+			step();
+		}
+		if(nextStep == STEP_HALT)
+		{
+			return StopReason.HALT;
+		}
+		HeadlessRechner headless = history == null ? getEngine() : null;
+		if(headless == null)
+		{
+			return runSteps(maxInstructions, deadline);
+		}
+		//the ram may have been changed without the engine noticing it
+		headless.invalidate();
+		headless.setRegister(ACCUMULATOR, accumulator);
+		headless.setRegister(VALUEREGISTER, valueRegister);
+		headless.setRegister(INSTRUCTIONREGISTER, instructionRegister);
+		headless.setRegister(PROGRAMMCOUNTER, programCounter);
+		headless.setRegister(ADDRESSREGISTER, addressRegister);
+		headless.setRegister(INDEXREGISTER, indexRegister);
+		headless.setRegister(STACKPOINTER, stackPointer);
+		System.arraycopy(returnStack, 0, headless.getReturnStack(), 0, returnStack.length);
+		StopReason reason = null;
+		try
+		{
+			reason = headless.runUntil(maxInstructions, deadline);
+		}
+		finally
+		{
+			accumulator = headless.getAccumulator();
+			valueRegister = headless.getValueRegister();
+			instructionRegister = headless.getInstructionRegister();
+			programCounter = headless.getProgramCounter();
+			addressRegister = headless.getAddressRegister();
+			indexRegister = headless.getIndexRegister();
+			stackPointer = headless.getStackPointer();
+			System.arraycopy(headless.getReturnStack(), 0, returnStack, 0, returnStack.length);
+			controller.setRegister(ACCUMULATOR, accumulator);
+			controller.setRegister(VALUEREGISTER, valueRegister);
+			controller.setRegister(INSTRUCTIONREGISTER, instructionRegister);
+			controller.setRegister(PROGRAMMCOUNTER, programCounter);
+			controller.setRegister(ADDRESSREGISTER, addressRegister);
+			controller.setRegister(INDEXREGISTER, indexRegister);
+			controller.setRegister(STACKPOINTER, stackPointer);
+			controller.updateRAMAnimation(ram);
+			controller.setLine(0);
+		}
+		if(reason == StopReason.HALT)
+		{
+			nextStep = STEP_HALT;
+			controller.setCycleDisplay("HALT");
+			controller.halt();
 		}
+		else if(reason == StopReason.LOOP)
+		{
+			stopLoop();
+		}
+		else
+		{
+			controller.setCycleDisplay("FETCH");
+			if(reason == StopReason.STACK_OVERFLOW || reason == StopReason.STACK_UNDERFLOW)
+			{
+				controller.appendEvent(stackReport(reason));
+			}
+			if(reason == StopReason.BREAK || reason == StopReason.END_OF_RAM || reason == StopReason.STACK_OVERFLOW || reason == StopReason.STACK_UNDERFLOW)
+			{
+				controller.halt();
+			}
+		}
+		return reason;
 	}
 	/**
-	 * Execute the Indirect-Cycle on the VonNeuman-Machine
+	 * Executes whole instructions with the microinstructions for a ram the engine cannot execute, until the machine stops,
+	 * the budget is used up, the deadline passed or the run is cancelled. The deadline and the cancellation are checked before every instruction.
+	 * The GUI is updated by the microinstructions like in single steps.
+	 * @param maxInstructions Maximum number of instructions to execute
+	 * @param deadline Time in milliseconds like System.currentTimeMillis(), after which the run stops, Long.MAX_VALUE for none
+	 * @return The reason why the run stopped
 	 */
-	private void indirect()
+	private StopReason runSteps(long maxInstructions, long deadline)
 	{
-		instruction = Integer.rotateRight(instructionRegister, 24)&255;
-		try
+		for(long executed = 0; ; executed++)
 		{
-			command = Opcodes.values()[instruction];
-		}
-		catch(IndexOutOfBoundsException e)
-		{
-			command = Opcodes.NOP;
-		}
-		switch(command)
-		{
-		case HALT:
-		case LOAD:
-		case STORE:
-		case ADD:
-		case SUB:
-		case MULT:
-		case DIV:
-		case MOD:
-		case AND:
-		case OR:
-		case JMP:
-		case JMPEQ:
-		case JMPNE:
-		case JMPGT:
-		case JMPLT:
-		case JMPGE:
-		case JMPLE:
-			loadAddress();
-			controller.appendEvent("Set Adressregister to "+addressRegister+"\n");
-		case LOADM:
-		case ADDM:
-		case SUBM:
-		case MULTM:
-		case DIVM:
-		case MODM:
-		case ANDM:
-		case ORM:
-		case NOT:
-		case NOP:
-		case JMPM:
-		case JMPEQM:
-		case JMPNEM:
-		case JMPGTM:
-		case JMPLTM:
-		case JMPGEM:
-		case JMPLEM:
-		default:
-			nextStep = STEP_EXECUTE;
-			break;
-		case LOADI:
-		case STOREI:
-		case ADDI:
-		case SUBI:
-		case MULTI:
-		case DIVI:
-		case MODI:
-		case ANDI:
-		case ORI:
-		case JMPI:
-		case JMPEQI:
-		case JMPNEI:
-		case JMPGTI:
-		case JMPLTI:
-		case JMPGEI:
-		case JMPLEI:
-			switch(microCounter)
+			if(cancelled)
+			{
+				cancelled = false;
+				return StopReason.CANCELLED;
+			}
+			if(System.currentTimeMillis() >= deadline)
+			{
+				return StopReason.DEADLINE;
+			}
+			if(executed >= maxInstructions)
 			{
-			case 0:
-				loadAddress();
-				microCounter++;
-				controller.appendEvent("Set Adressregister to "+addressRegister+"\n");
+				return StopReason.BUDGET;
+			}
+			stopped = null;
+			do
+			{
+				step();
+			}
+			while(nextStep != STEP_HALT && (nextStep != STEP_FETCH || microCounter != 0));
+			if(nextStep == STEP_HALT)
+			{
+				if(loops != null && loops.isLooping())
+				{
+					return StopReason.LOOP;
+				}
+				steppedInstructions++;
+				return StopReason.HALT;
+			}
+			steppedInstructions++;
+			if(stopped != null)
+			{
+				return stopped;
+			}
+		}
+	}
+	/**
+	 * Halts the machine after the loop detector found an endless loop and reports the loop
+	 */
+	private void stopLoop()
+	{
+		nextStep = STEP_HALT;
+		controller.setCycleDisplay("HALT");
+		controller.appendEvent(loops.getReport());
+		controller.halt();
+	}
+	/**
+	 * Returns whether the loop detector halted the machine
+	 * @return true, if the machine halted because it found an endless loop
+	 */
+	boolean isLooping()
+	{
+		return nextStep == STEP_HALT && loops != null && loops.isLooping();
+	}
+	/**
+	 * Halts the machine instead of executing the next step, like the loop detector does.
+	 * Used to follow a copy of this machine which found the loop, see RunAhead.
+	 */
+	void haltLoop()
+	{
+		nextStep = STEP_HALT;
+	}
+	/**
+	 * Returns whether the next step fetches a new instruction
+	 * @return true, if the machine is between two instructions
+	 */
+	boolean isAtInstructionStart()
+	{
+		return nextStep == STEP_FETCH && microCounter == 0;
+	}
+	/**
+	 * Stops a running runUntil() from another thread. If no run is active, the next run stops at once.
+	 */
+	protected void cancel()
+	{
+		HeadlessRechner headless = getEngine();
+		if(headless != null)
+		{
+			headless.cancel();
+		}
+		else
+		{
+			cancelled = true;
+		}
+	}
+	/**
+	 * Returns the number of instructions executed by runUntil() since the last reset
+	 * @return The number of executed instructions
+	 */
+	protected long getInstructionCount()
+	{
+		return (engine == null ? 0 : engine.getInstructionCount())+steppedInstructions;
+	}
+	/**
+	 * Saves the state of the machine: the ram, the registers, the return stack, the cycle, the position in the microprogram,
+	 * the jump flag and the number of executed instructions. The simulated caches, branch predictors and devices are not saved.
+	 * A paged ram is saved in constant time by sharing its pages until they are written (copy on write), a dense ram copies only
+	 * the pages written since its last snapshot, see Ram.Dense.
+	 * @return The saved state
+	 */
+	protected Checkpoint checkpoint()
+	{
+		return new Checkpoint(this, ram.snapshot());
+	}
+	/**
+	 * Saves the state of the machine like checkpoint() without the ram, which takes constant time
+	 * @return The saved state, it can not be restored
+	 */
+	Checkpoint checkpointRegisters()
+	{
+		return new Checkpoint(this, null);
+	}
+	/**
+	 * Returns the machine to a saved state, the checkpoint is not changed and can be restored again.
+	 * The saved content is copied into the ram of the machine, which keeps its kind, only a ram of another size is replaced by a copy
+	 * of the saved ram. The loop detector forgets the states it checked, as they may be reached again without a loop.
+	 * @param ncheckpoint The saved state
+	 */
+	protected void restore(Checkpoint ncheckpoint)
+	{
+		loadCheckpoint(ncheckpoint);
+		if(ram.restore(ncheckpoint.ram))
+		{
+			if(engine != null && engine.getRam() == ram.array())
+			{
+				engine.invalidate();
+			}
+			setRam(ram);
+		}
+		else
+		{
+			setRam(ncheckpoint.ram.snapshot());
+		}
+		controller.setRegister(ACCUMULATOR, accumulator);
+		controller.setRegister(VALUEREGISTER, valueRegister);
+		controller.setRegister(INSTRUCTIONREGISTER, instructionRegister);
+		controller.setRegister(PROGRAMMCOUNTER, programCounter);
+		controller.setRegister(ADDRESSREGISTER, addressRegister);
+		controller.setRegister(INDEXREGISTER, indexRegister);
+		controller.setRegister(STACKPOINTER, stackPointer);
+		controller.setCycleDisplay(CYCLES[nextStep]);
+		controller.setLine(0);
+	}
+	/**
+	 * Follows a step executed by a copy of this machine without updating the GUI, see RunAhead: the start of an instruction is recorded
+	 * in the history, the ramcells written by the step are written and the registers and the position in the microprogram are taken over.
+	 * The accesses of the step are not reported to the simulated caches here.
+	 * @param nstate The state of the copy after the step, from checkpointRegisters()
+	 * @param ncells The ramcells written by the step
+	 * @param nvalues Their content after the step
+	 * @param ncount Number of written ramcells
+	 */
+	void follow(Checkpoint nstate, int[] ncells, int[] nvalues, int ncount)
+	{
+		if(history != null && isAtInstructionStart())
+		{
+			saveState(historyState);
+			history.begin(historyState);
+		}
+		for(int i = 0; i < ncount; i++)
+		{
+			setRam(ncells[i], nvalues[i]);
+		}
+		loadCheckpoint(nstate);
+	}
+	/**
+	 * Sets the registers, the return stack, the position in the microprogram and the number of executed instructions of a saved state
+	 * @param ncheckpoint The saved state
+	 */
+	private void loadCheckpoint(Checkpoint ncheckpoint)
+	{
+		accumulator = ncheckpoint.accumulator;
+		valueRegister = ncheckpoint.valueRegister;
+		instructionRegister = ncheckpoint.instructionRegister;
+		programCounter = ncheckpoint.programCounter;
+		addressRegister = ncheckpoint.addressRegister;
+		indexRegister = ncheckpoint.indexRegister;
+		stackPointer = ncheckpoint.stackPointer;
+		System.arraycopy(ncheckpoint.returnStack, 0, returnStack, 0, returnStack.length);
+		nextStep = ncheckpoint.nextStep;
+		microCounter = ncheckpoint.microCounter;
+		jmpFlag = ncheckpoint.jmpFlag;
+		instruction = ncheckpoint.instruction;
+		command = ncheckpoint.command;
+		if(engine != null)
+		{
+			engine.instructionCount = 0;
+		}
+		steppedInstructions = ncheckpoint.instructionCount;
+	}
+	/**
+	 * Writes the state recorded by a history into an array
+	 * @param state The array of STATE_SIZE values
+	 */
+	private void saveState(int[] state)
+	{
+		long count = getInstructionCount();
+		state[0] = accumulator;
+		state[1] = valueRegister;
+		state[2] = instructionRegister;
+		state[3] = programCounter;
+		state[4] = addressRegister;
+		state[5] = indexRegister;
+		state[6] = stackPointer;
+		state[7] = (int)count;
+		state[8] = (int)(count>>>32);
+		System.arraycopy(returnStack, 0, state, 9, returnStack.length);
+	}
+	/**
+	 * Sets the state recorded by a history, the machine is about to fetch the next instruction afterwards
+	 * @param state The array of STATE_SIZE values
+	 */
+	private void loadState(int[] state)
+	{
+		accumulator = state[0];
+		valueRegister = state[1];
+		instructionRegister = state[2];
+		programCounter = state[3];
+		addressRegister = state[4];
+		indexRegister = state[5];
+		stackPointer = state[6];
+		if(engine != null)
+		{
+			engine.instructionCount = 0;
+		}
+		steppedInstructions = (state[7]&0xFFFFFFFFL)|((long)state[8]<<32);
+		System.arraycopy(state, 9, returnStack, 0, returnStack.length);
+		nextStep = STEP_FETCH;
+		resetMicro();
+		jmpFlag = false;
+	}
+	/**
+	 * Undoes the current instruction or, if the machine just went back to its start, the previous one, see History
+	 * @return false, if the history is not recorded or contains nothing to undo
+	 */
+	private boolean back()
+	{
+		if(history == null)
+		{
+			return false;
+		}
+		if(!history.back(ram, historyState))
+		{
+			return false;
+		}
+		loadState(historyState);
+		return true;
+	}
+	/**
+	 * Shows the state of the machine after going back in the GUI, the loop detector forgets the states it checked
+	 */
+	private void showBack()
+	{
+		if(loops != null)
+		{
+			loops.reset(ram.array());
+		}
+		controller.setRegister(ACCUMULATOR, accumulator);
+		controller.setRegister(VALUEREGISTER, valueRegister);
+		controller.setRegister(INSTRUCTIONREGISTER, instructionRegister);
+		controller.setRegister(PROGRAMMCOUNTER, programCounter);
+		controller.setRegister(ADDRESSREGISTER, addressRegister);
+		controller.setRegister(INDEXREGISTER, indexRegister);
+		controller.setRegister(STACKPOINTER, stackPointer);
+		controller.updateRAMAnimation(ram);
+		controller.setCycleDisplay(CYCLES[nextStep]);
+		controller.setLine(0);
+	}
+	/**
+	 * Goes back to the start of the current instruction or, if the machine is already there, of the previous one
+	 * @return false, if no history is recorded or it contains nothing to undo
+	 */
+	protected boolean stepBack()
+	{
+		boolean moved = back();
+		if(moved)
+		{
+			showBack();
+		}
+		return moved;
+	}
+	/**
+	 * Executes instructions backwards until the next instruction is a breakpoint, the budget is used up or the history is exhausted.
+	 * The GUI is updated once at the end.
+	 * @param maxInstructions Maximum number of instructions to undo
+	 * @return BREAK, BUDGET or START_OF_HISTORY
+	 */
+	protected StopReason runBack(long maxInstructions)
+	{
+		StopReason reason = StopReason.BUDGET;
+		for(long i = 0; i < maxInstructions; i++)
+		{
+			if(!back())
+			{
+				reason = StopReason.START_OF_HISTORY;
 				break;
-			case 1:
-				addressIndirect();
-				resetMicro();
-				nextStep = STEP_EXECUTE;
-				controller.appendEvent("Indirect Adressregister to "+addressRegister+"\n");
+			}
+			int cell = ram.reduce(programCounter);
+			if(cell >= 0 && cell < ram.getSize() && Opcodes.decode(ram.read(cell)) == Opcodes.BREAK)
+			{
+				reason = StopReason.BREAK;
 				break;
 			}
-			break;
 		}
+		showBack();
+		return reason;
+	}
+	/**
+	 * Returns the engine used by runUntil(), a new one if the ram was replaced
+	 * @return The engine sharing the ram with this machine, null if the ram is paged or does not wrap
+	 */
+	private synchronized HeadlessRechner getEngine()
+	{
+		int[] cells = ram.isWrapping() ? ram.array() : null;
+		if(cells == null)
+		{
+			return null;
+		}
+		if(engine == null || engine.getRam() != cells)
+		{
+			long count = engine == null ? 0 : engine.getInstructionCount();
+			engine = new HeadlessRechner(cells);
+			engine.instructionCount = count;
+			engine.setMemoryHierarchy(memory);
+			engine.setBranchStatistics(branches);
+			engine.setDeviceBus(devices);
+			engine.setLoopDetector(loops);
+		}
+		engine.setBackend((Ram.Dense)ram);
+		return engine;
+	}
+	/**
+	 * Execute the Fetch-Cycle on the VonNeuman-Machine
+	 */
+	private void fetch()
+	{
+		run(Microcode.FETCH);
+	}
+	/**
+	 * Execute the Indirect-Cycle on the VonNeuman-Machine
+	 */
+	private void indirect()
+	{
+		instruction = instructionRegister>>>24;
+		command = Opcodes.decode(instructionRegister);
+		run(Microcode.INDIRECT[command.ordinal()]);
 	}
 	/**
 	 * Execute the Execute-Cycle on the VonNeuman-Machine
 	 */
 	private void execute()
-	{		
-		switch (command)
+	{
+		run(Microcode.EXECUTE[command.ordinal()]);
+	}
+	/**
+	 * Executes the next step of a microprogram, the microcounter is the position of the step in the microprogram
+	 * @param program The microprogram of the current cycle
+	 */
+	private void run(byte[] program)
+	{
+		int position = microCounter;
+		while(position < program.length)
 		{
-		case NOP:
-		default:
-			controller.appendEvent("NOP\n");
-			increaseProgramCounter();
-			nextStep = STEP_FETCH;
-			controller.setLine(0);
-			break;
-		case HALT:
-			controller.appendEvent("HALT\n");
-			nextStep = STEP_HALT;
-			controller.setCycleDisplay("HALT");
-			controller.setLine(0);
-			controller.halt();
-			break;
-		case BREAK:
-			controller.appendEvent("Breakpoint reached\n");
-			controller.halt();
-			increaseProgramCounter();
+			byte operation = program[position++];
+			if(operation == Microcode.STEP)
+			{
+				microCounter = position;
+				return;
+			}
+			microOperation(operation);
+			if(aborted)
+			{
+				aborted = false;
+				break;
+			}
+		}
+		resetMicro();
+	}
+	/**
+	 * Executes a micro-operation, see Microcode
+	 * @param operation The micro-operation
+	 */
+	private void microOperation(byte operation)
+	{
+		switch(operation)
+		{
+		case Microcode.GOTO_FETCH:
 			nextStep = STEP_FETCH;
 			break;
-		case LOADI:
-		case LOAD:
+		case Microcode.GOTO_INDIRECT:
+			nextStep = STEP_INDIRECT;
+			break;
+		case Microcode.GOTO_EXECUTE:
+			nextStep = STEP_EXECUTE;
+			break;
+		case Microcode.AR_PC:
+			loadCurrentAddress();
+			controller.appendEvent("Set Adressregister to Programcounter ("+programCounter+")\n");
+			break;
+		case Microcode.IR_RAM:
+			loadOpcode();
+			controller.appendEvent("LOAD memorycell "+ addressRegister +" into Instructionregister\n");
+			break;
+		case Microcode.AR_IR:
+			loadAddress();
+			controller.appendEvent("Set Adressregister to "+addressRegister+"\n");
+			break;
+		case Microcode.AR_RAM:
+			addressIndirect();
+			controller.appendEvent("Indirect Adressregister to "+addressRegister+"\n");
+			break;
+		case Microcode.ACC_RAM:
 			loadRamToAcc();
-			increaseProgramCounter();
-			nextStep = STEP_FETCH;
 			break;
-		case LOADM:
+		case Microcode.ACC_IR:
 			loadAccImmediate();
-			increaseProgramCounter();
-			nextStep = STEP_FETCH;
 			break;
-		case STOREI:
-		case STORE:
-			storeAccToRam();
-			increaseProgramCounter();
-			nextStep = STEP_FETCH;
+		case Microcode.VR_RAM:
+			loadRamToValue();
 			break;
-		case ADDI:
-		case ADD:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				add();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.VR_IR:
+			loadValueImmediate();
 			break;
-		case ADDM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				add();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.RAM_ACC:
+			storeAccToRam();
 			break;
-		case SUBI:
-		case SUB:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				sub();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.ACC_VR:
+			loadValueToAcc();
 			break;
-		case SUBM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				sub();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.ADD:
+			add();
 			break;
-		case MULTI:
-		case MULT:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				mult();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.SUB:
+			sub();
 			break;
-		case MULTM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				mult();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.MULT:
+			mult();
 			break;
-		case DIVI:
-		case DIV:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				div();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.DIV:
+			div();
 			break;
-		case DIVM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				div();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.MOD:
+			mod();
 			break;
-		case MODI:
-		case MOD:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				mod();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.AND:
+			and();
 			break;
-		case MODM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				mod();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.OR:
+			or();
 			break;
-		case ANDI:
-		case AND:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				and();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.NOT:
+			not();
 			break;
-		case ANDM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				and();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.COPY:
+			copyRam();
 			break;
-		case ORI:
-		case OR:
-			switch(microCounter)
-			{
-			case 0:
-				loadRamToValue();
-				microCounter++;
-			break;
-			case 1:
-				or();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.FILL:
+			fillRam();
 			break;
-		case ORM:
-			switch(microCounter)
-			{
-			case 0:
-				loadValueImmediate();
-				microCounter++;
-			break;
-			case 1:
-				or();
-				increaseProgramCounter();
-				resetMicro();
-				nextStep = STEP_FETCH;
-				break;
-			}
+		case Microcode.COMPARE:
+			compareRam();
 			break;
-		case NOT:
-			not();
+		case Microcode.INC_PC:
 			increaseProgramCounter();
-			nextStep = STEP_FETCH;
-			break;
-		case JMP:
-		case JMPI:
-			loadJmp();
 			break;
-		case JMPM:
+		case Microcode.PC_IR:
 			loadJmpImmediate();
 			break;
-		case JMPEQ:
-		case JMPEQI:
+		case Microcode.PC_RAM:
+			loadJmp();
+			break;
+		case Microcode.IF_EQ:
 			checkEQ();
-			checkCond();
 			break;
-		case JMPNE:
-		case JMPNEI:
+		case Microcode.IF_NE:
 			checkNE();
-			checkCond();
 			break;
-		case JMPGT:
-		case JMPGTI:
+		case Microcode.IF_GT:
 			checkGT();
-			checkCond();
 			break;
-		case JMPLT:
-		case JMPLTI:
+		case Microcode.IF_LT:
 			checkLT();
-			checkCond();
 			break;
-		case JMPGE:
-		case JMPGEI:
+		case Microcode.IF_GE:
 			checkGE();
-			checkCond();
 			break;
-		case JMPLE:
-		case JMPLEI:
+		case Microcode.IF_LE:
 			checkLE();
+			break;
+		case Microcode.BRANCH:
 			checkCond();
 			break;
-		case JMPEQM:
-			checkEQ();
+		case Microcode.BRANCH_IR:
 			checkCondM();
 			break;
-		case JMPNEM:
-			checkNE();
-			checkCondM();
+		case Microcode.NOP:
+			controller.appendEvent("NOP\n");
 			break;
-		case JMPGTM:
-			checkGT();
-			checkCondM();
+		case Microcode.HALT:
+			controller.appendEvent("HALT\n");
+			nextStep = STEP_HALT;
+			controller.setCycleDisplay("HALT");
+			controller.setLine(0);
+			controller.halt();
 			break;
-		case JMPLTM:
-			checkLT();
-			checkCondM();
+		case Microcode.BREAK:
+			controller.appendEvent("Breakpoint reached\n");
+			stopped = StopReason.BREAK;
+			controller.halt();
 			break;
-		case JMPGEM:
-			checkGE();
-			checkCondM();
+		case Microcode.LINE_0:
+			controller.setLine(0);
 			break;
-		case JMPLEM:
-			checkLE();
-			checkCondM();
+		case Microcode.AR_IX:
+			addressIndexed();
+			controller.appendEvent("Indexed Adressregister to "+addressRegister+"\n");
+			break;
+		case Microcode.X_RAM:
+			loadRamToIndex();
+			break;
+		case Microcode.X_IR:
+			loadIndexImmediate();
+			break;
+		case Microcode.RAM_X:
+			storeIndexToRam();
+			break;
+		case Microcode.X_ACC:
+			setIndexRegister(accumulator);
+			controller.appendEvent("LOAD Accumulator ("+accumulator+") into Indexregister\n");
+			break;
+		case Microcode.ACC_X:
+			loadIndexToAcc();
+			break;
+		case Microcode.INC_X:
+			setIndexRegister(indexRegister+1);
+			controller.appendEvent("Increase Indexregister by 1 ("+indexRegister+")\n");
+			break;
+		case Microcode.DEC_X:
+			setIndexRegister(indexRegister-1);
+			controller.appendEvent("Decrease Indexregister by 1 ("+indexRegister+")\n");
+			break;
+		case Microcode.PUSH_PC:
+			pushReturnAddress();
+			break;
+		case Microcode.POP_PC:
+			popReturnAddress();
 			break;
 		}
 	}
@@ -574,7 +1009,7 @@ public class VonNeumannRechner
 	 */
 	private void increaseProgramCounter()
 	{
-		if(programCounter < (ram.length-1))
+		if(programCounter < (ram.getSize()-1))
 		{		
 			programCounter++;
 			controller.setRegister(PROGRAMMCOUNTER, programCounter);
@@ -583,6 +1018,7 @@ public class VonNeumannRechner
 		else
 		{
 			nextStep = STEP_HALT;
+			stopped = StopReason.END_OF_RAM;
 			controller.setCycleDisplay("HALT");
 			controller.halt();
 		}
@@ -592,10 +1028,140 @@ public class VonNeumannRechner
 	 */
 	private void addressIndirect()
 	{
-		addressRegister = ram[addressRegister]%ram.length;
+		if(memory != null)
+		{
+			memory.read(addressRegister);
+		}
+		addressRegister = ram.reduce(ram.read(addressRegister));
 		controller.setRegister(ADDRESSREGISTER, addressRegister);
 		controller.setLine(1);
 	}
+	/**
+	 * Add the indexregister to the adress from the instructionregister and load it into the adressregister
+	 */
+	private void addressIndexed()
+	{
+		addressRegister = ram.reduce(ram.operand(instructionRegister)+indexRegister);
+		controller.setRegister(ADDRESSREGISTER, addressRegister);
+		controller.setLine(10);
+	}
+	/**
+	 * Sets the indexregister
+	 * @param value The new value of the indexregister
+	 */
+	private void setIndexRegister(int value)
+	{
+		indexRegister = value;
+		controller.setRegister(INDEXREGISTER, indexRegister);
+	}
+	/**
+	 * Load the content of the ramcell, which is pointed to by the adressregister into the indexregister
+	 */
+	private void loadRamToIndex()
+	{
+		if(memory != null)
+		{
+			memory.read(addressRegister);
+		}
+		readDevice();
+		setIndexRegister(ram.read(addressRegister));
+		controller.setLine(2);
+		controller.appendEvent("LOAD memorycell "+ addressRegister +" ("+indexRegister+") into Indexregister\n");
+	}
+	/**
+	 * Load a value into the indexregister directly from the instruction register
+	 */
+	private void loadIndexImmediate()
+	{
+		setIndexRegister(instructionRegister&0xFFFFFF/**16777215**/);
+		controller.setLine(7);
+		controller.appendEvent("LOAD value "+ indexRegister +" into Indexregister\n");
+	}
+	/**
+	 * Stores the indexregister to the ramcell which is pointed to by the adressregister
+	 */
+	private void storeIndexToRam()
+	{
+		if(memory != null)
+		{
+			memory.write(addressRegister);
+		}
+		setRam(addressRegister, indexRegister);
+		if(devices != null && devices.isMapped(addressRegister))
+		{
+			devices.write(addressRegister, indexRegister, getInstructionCount());
+		}
+		controller.setLine(13);
+		controller.appendEvent("STORE Indexregister ("+indexRegister+") to memorycell "+ addressRegister +"\n");
+	}
+	/**
+	 * Load the content of the indexregister into the accumulator
+	 */
+	private void loadIndexToAcc()
+	{
+		accumulator = indexRegister;
+		controller.setRegister(ACCUMULATOR, accumulator);
+		controller.setLine(11);
+		controller.appendEvent("LOAD Indexregister ("+indexRegister+") into Accumulator\n");
+	}
+	/**
+	 * Pushes the adress of the next instruction on the return stack, a full stack stops the machine at the CALL
+	 */
+	private void pushReturnAddress()
+	{
+		if(stackPointer < 0 || stackPointer >= returnStack.length)
+		{
+			stopStack(stackPointer < 0 ? StopReason.STACK_UNDERFLOW : StopReason.STACK_OVERFLOW);
+			return;
+		}
+		returnStack[stackPointer] = programCounter+1;
+		stackPointer++;
+		controller.setRegister(STACKPOINTER, stackPointer);
+		controller.appendEvent("Push return adress "+(programCounter+1)+"\n");
+	}
+	/**
+	 * Jumps to the adress popped from the return stack, an empty stack stops the machine at the RET
+	 */
+	private void popReturnAddress()
+	{
+		if(stackPointer <= 0 || stackPointer > returnStack.length)
+		{
+			stopStack(stackPointer <= 0 ? StopReason.STACK_UNDERFLOW : StopReason.STACK_OVERFLOW);
+			return;
+		}
+		programCounter = returnStack[stackPointer-1];
+		stackPointer--;
+		nextStep = STEP_FETCH;
+		controller.setRegister(STACKPOINTER, stackPointer);
+		controller.setRegister(PROGRAMMCOUNTER, programCounter);
+		controller.setLine(3);
+		controller.appendEvent("Return: set Programmcounter to "+programCounter+"\n");
+	}
+	/**
+	 * Stops the machine at a CALL or RET which can not use the return stack, like a breakpoint: the rest of the instruction is skipped,
+	 * executing the next instruction executes it again
+	 * @param reason STACK_OVERFLOW or STACK_UNDERFLOW
+	 */
+	private void stopStack(StopReason reason)
+	{
+		nextStep = STEP_FETCH;
+		aborted = true;
+		stopped = reason;
+		controller.appendEvent(stackReport(reason));
+		controller.setCycleDisplay("FETCH");
+		controller.setLine(0);
+		controller.halt();
+	}
+	/**
+	 * Describes a CALL or RET which can not use the return stack
+	 * @param reason STACK_OVERFLOW or STACK_UNDERFLOW
+	 * @return The event shown in the console
+	 */
+	private String stackReport(StopReason reason)
+	{
+		return (reason == StopReason.STACK_OVERFLOW ? "Return stack overflow" : "Return stack underflow")+" at ramcell "+programCounter
+				+", the stackpointer is "+stackPointer+" of "+returnStack.length+"\n";
+	}
 	/**
 	 * Load a value into the valueregister directly from the instruction register
 	 */
@@ -621,7 +1187,7 @@ public class VonNeumannRechner
 	 */
 	private void loadAddress()
 	{
-		addressRegister = instructionRegister&0xFFFFFF/**16777215**/%ram.length;	//line 11
+		addressRegister = ram.operand(instructionRegister);	//line 11
 		controller.setRegister(ADDRESSREGISTER, addressRegister);
 		controller.setLine(10);
 	}
@@ -630,7 +1196,12 @@ public class VonNeumannRechner
 	 */
 	private void loadRamToValue()
 	{
-		valueRegister = ram[addressRegister];
+		if(memory != null)
+		{
+			memory.read(addressRegister);
+		}
+		readDevice();
+		valueRegister = ram.read(addressRegister);
 		controller.setRegister(VALUEREGISTER, valueRegister);
 		controller.setLine(4);
 		controller.appendEvent("Load memorycell "+ addressRegister +" ("+valueRegister+") into Valueregister\n");
@@ -640,20 +1211,161 @@ public class VonNeumannRechner
 	 */
 	private void loadRamToAcc()
 	{
-		accumulator = ram[addressRegister];
+		if(memory != null)
+		{
+			memory.read(addressRegister);
+		}
+		readDevice();
+		accumulator = ram.read(addressRegister);
 		controller.setRegister(ACCUMULATOR, accumulator);
 		controller.setLine(2);
 		controller.appendEvent("LOAD memorycell "+ addressRegister +" ("+accumulator+") into Accumulator\n");
 	}
+	/**
+	 * Lets the device mapped at the ramcell the adressregister points to provide the value of the ramcell
+	 */
+	private void readDevice()
+	{
+		boolean pointer = command.isIndirect() && addressRegister == ram.operand(instructionRegister);
+		if(devices != null && devices.isMapped(addressRegister) && !pointer)
+		{
+			setRam(addressRegister, devices.read(addressRegister, getInstructionCount()));
+		}
+	}
+	/**
+	 * Load the content of the valueregister into the accumulator, used to exchange the accumulator with a ramcell
+	 */
+	private void loadValueToAcc()
+	{
+		accumulator = valueRegister;
+		controller.setRegister(ACCUMULATOR, accumulator);
+		controller.setLine(11);
+		controller.appendEvent("LOAD Valueregister ("+valueRegister+") into Accumulator\n");
+	}
 	/**
 	 * Stores the Accumulator to the ramcell which is pointet to by the adressregister.
 	 */
 	private void storeAccToRam()
 	{
+		if(memory != null)
+		{
+			memory.write(addressRegister);
+		}
 		setRam(addressRegister,accumulator);
+		if(devices != null && devices.isMapped(addressRegister))
+		{
+			devices.write(addressRegister, accumulator, getInstructionCount());
+		}
 		controller.setLine(13);
 		controller.appendEvent("STORE Accumulator ("+accumulator+") to memorycell "+ addressRegister +"\n");
 	}
+	/**
+	 * Copies as many ramcells as the accumulator says between the regions described by the ramcells the adressregister points to,
+	 * see BulkMemory
+	 */
+	private void copyRam()
+	{
+		int length = accumulator;
+		if(length > 0)
+		{
+			int destination = BulkMemory.start(ram, addressRegister, length);
+			int source = BulkMemory.start(ram, BulkMemory.second(ram, addressRegister), length);
+			if(memory != null)
+			{
+				memory.bulk(Opcodes.MEMCPY, addressRegister, destination, source, length);
+			}
+			if(history != null)
+			{
+				for(int i = destination; i < destination+length; i++)
+				{
+					history.stored(i, ram.read(i));
+				}
+			}
+			if(loops != null)
+			{
+				loops.toggle(ram.array(), destination, length);
+			}
+			ram.copy(source, destination, length);
+			if(loops != null)
+			{
+				loops.toggle(ram.array(), destination, length);
+			}
+			controller.updateRAMAnimation(ram);
+			controller.appendEvent("Copy "+length+" memorycells from "+source+" to "+destination+"\n");
+		}
+		valueRegister = Math.max(length, 0);
+		controller.setRegister(VALUEREGISTER, valueRegister);
+		controller.setLine(13);
+	}
+	/**
+	 * Sets as many ramcells as the accumulator says in the region described by the ramcells the adressregister points to,
+	 * see BulkMemory
+	 */
+	private void fillRam()
+	{
+		int length = accumulator;
+		if(length > 0)
+		{
+			int destination = BulkMemory.start(ram, addressRegister, length);
+			int value = ram.read(BulkMemory.second(ram, addressRegister));
+			if(memory != null)
+			{
+				memory.bulk(Opcodes.MEMSET, addressRegister, destination, value, length);
+			}
+			if(history != null)
+			{
+				for(int i = destination; i < destination+length; i++)
+				{
+					history.stored(i, ram.read(i));
+				}
+			}
+			if(loops != null)
+			{
+				loops.toggle(ram.array(), destination, length);
+			}
+			ram.fill(destination, length, value);
+			if(loops != null)
+			{
+				loops.toggle(ram.array(), destination, length);
+			}
+			controller.updateRAMAnimation(ram);
+			controller.appendEvent("Set "+length+" memorycells from "+destination+" to "+value+"\n");
+		}
+		valueRegister = Math.max(length, 0);
+		controller.setRegister(VALUEREGISTER, valueRegister);
+		controller.setLine(13);
+	}
+	/**
+	 * Compares as many ramcells as the accumulator says of the regions described by the ramcells the adressregister points to
+	 * and stores the result in the accumulator, see BulkMemory
+	 */
+	private void compareRam()
+	{
+		int length = accumulator;
+		int compared = 0;
+		int result = 0;
+		if(length > 0)
+		{
+			int first = BulkMemory.start(ram, addressRegister, length);
+			int second = BulkMemory.start(ram, BulkMemory.second(ram, addressRegister), length);
+			int offset = BulkMemory.mismatch(ram, first, second, length);
+			compared = Math.min(offset+1, length);
+			if(offset < length)
+			{
+				result = ram.read(first+offset) < ram.read(second+offset) ? -1 : 1;
+			}
+			if(memory != null)
+			{
+				memory.bulk(Opcodes.MEMCMP, addressRegister, first, second, compared);
+			}
+			controller.appendEvent("Compare "+length+" memorycells from "+first+" with "+second+". Result: "+result+"\n");
+		}
+		valueRegister = compared;
+		accumulator = result;
+		controller.setRegister(VALUEREGISTER, valueRegister);
+		controller.setRegister(ACCUMULATOR, accumulator);
+		controller.setLine(4);
+	}
 	/**
 	 * Adds the accumulator and the valueregister and stores the result in the accumulator
 	 */
@@ -739,7 +1451,7 @@ public class VonNeumannRechner
 	 */
 	private void loadJmpImmediate()
 	{
-		programCounter = instructionRegister&0xFFFFFF/**16777215**/%ram.length;
+		programCounter = ram.operand(instructionRegister);
 		nextStep = STEP_FETCH;
 		controller.setRegister(PROGRAMMCOUNTER, programCounter);
 		controller.setLine(8);
@@ -750,7 +1462,11 @@ public class VonNeumannRechner
 	 */
 	private void loadJmp()
 	{
-		programCounter = ram[addressRegister];
+		if(memory != null)
+		{
+			memory.read(addressRegister);
+		}
+		programCounter = ram.read(addressRegister);
 		nextStep = STEP_FETCH;
 		controller.setRegister(PROGRAMMCOUNTER, programCounter);
 		controller.setLine(3);
@@ -803,6 +1519,10 @@ public class VonNeumannRechner
 	 */
 	private void checkCond()
 	{
+		if(branches != null)
+		{
+			branches.branch(ram.reduce(programCounter), ram.read(addressRegister), jmpFlag);
+		}
 		if(jmpFlag)
 		{
 			loadJmp();
@@ -820,6 +1540,10 @@ public class VonNeumannRechner
 	 */
 	private void checkCondM()
 	{
+		if(branches != null)
+		{
+			branches.branch(ram.reduce(programCounter), ram.operand(instructionRegister), jmpFlag);
+		}
 		if(jmpFlag)
 		{
 			loadJmpImmediate();
@@ -837,7 +1561,7 @@ public class VonNeumannRechner
 	 */
 	private void loadCurrentAddress()
 	{
-		addressRegister = programCounter%ram.length; 
+		addressRegister = ram.reduce(programCounter); 
 		controller.setRegister(ADDRESSREGISTER, addressRegister);
 		controller.setLine(6);
 	}
@@ -846,8 +1570,92 @@ public class VonNeumannRechner
 	 */
 	private void loadOpcode()
 	{
-		instructionRegister = ram[addressRegister];
+		if(memory != null)
+		{
+			memory.fetch(addressRegister);
+		}
+		instructionRegister = ram.read(addressRegister);
 		controller.setRegister(INSTRUCTIONREGISTER,instructionRegister);
 		controller.setLine(5);
 	}
+
+	/**
+	 * Saved state of a VonNeumannRechner, see checkpoint()
+	 */
+	public static class Checkpoint
+	{
+		private final Ram ram;
+		private final int accumulator;
+		private final int valueRegister;
+		private final int instructionRegister;
+		private final int programCounter;
+		private final int addressRegister;
+		private final int indexRegister;
+		private final int[] returnStack;
+		private final int stackPointer;
+		private final int nextStep;
+		private final int microCounter;
+		private final boolean jmpFlag;
+		private final int instruction;
+		private final Opcodes command;
+		private final long instructionCount;
+
+		/**
+		 * Saves the state of a machine
+		 * @param nrechner The machine
+		 * @param nram The snapshot of its ram, null to save only the registers
+		 */
+		private Checkpoint(VonNeumannRechner nrechner, Ram nram)
+		{
+			ram = nram;
+			accumulator = nrechner.accumulator;
+			valueRegister = nrechner.valueRegister;
+			instructionRegister = nrechner.instructionRegister;
+			programCounter = nrechner.programCounter;
+			addressRegister = nrechner.addressRegister;
+			indexRegister = nrechner.indexRegister;
+			returnStack = nrechner.returnStack.clone();
+			stackPointer = nrechner.stackPointer;
+			nextStep = nrechner.nextStep;
+			microCounter = nrechner.microCounter;
+			jmpFlag = nrechner.jmpFlag;
+			instruction = nrechner.instruction;
+			command = nrechner.command;
+			instructionCount = nrechner.getInstructionCount();
+		}
+
+		/**
+		 * Returns the number of instructions executed by runUntil() before the state was saved
+		 * @return The number of executed instructions
+		 */
+		public long getInstructionCount()
+		{
+			return instructionCount;
+		}
+		/**
+		 * Returns the saved programcounter
+		 * @return The programcounter
+		 */
+		public int getProgramCounter()
+		{
+			return programCounter;
+		}
+		/**
+		 * Returns the saved accumulator
+		 * @return The accumulator
+		 */
+		public int getAccumulator()
+		{
+			return accumulator;
+		}
+		/**
+		 * Returns the content of a saved ramcell
+		 * @param cell The ramcell
+		 * @return The content of the ramcell
+		 */
+		public int getRam(int cell)
+		{
+			return ram.read(cell);
+		}
+	}
 }